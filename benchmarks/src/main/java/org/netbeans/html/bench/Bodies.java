@@ -0,0 +1,67 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.bench;
+
+import net.java.html.js.JavaScriptBody;
+
+/** JavaScript functions called by {@link JavaScriptBodyBenchmark}.
+ */
+final class Bodies {
+    private Bodies() {
+    }
+
+    @JavaScriptBody(args = {}, body = "")
+    static native void empty();
+
+    @JavaScriptBody(args = { "a" }, body = "return a;")
+    static native int sum(int a);
+
+    @JavaScriptBody(args = { "a", "b" }, body = "return a + b;")
+    static native int sum(int a, int b);
+
+    @JavaScriptBody(args = { "a", "b", "c", "d" }, body = "return a + b + c + d;")
+    static native int sum(int a, int b, int c, int d);
+
+    @JavaScriptBody(args = { "a", "b" }, body = "return a * b;")
+    static native double mul(double a, double b);
+
+    @JavaScriptBody(args = { "a", "b" }, body = "return a + b;")
+    static native String concat(String a, String b);
+
+    @JavaScriptBody(args = { "o" }, body = "return o;")
+    static native Object identity(Object o);
+
+    @JavaScriptBody(args = {}, body = "return { 'x' : 1 };")
+    static native Object object();
+
+    @JavaScriptBody(args = { "o" }, body = "return o['x'];")
+    static native int x(Object o);
+
+    @JavaScriptBody(args = { "n" }, body = "var arr = []; for (var i = 0; i < n; i++) arr.push(i); return arr;")
+    static native Object[] array(int n);
+
+    @JavaScriptBody(args = { "n" }, javacall = true, body =
+        "return @org.netbeans.html.bench.Bodies::increment(I)(n);"
+    )
+    static native int callback(int n);
+
+    static int increment(int n) {
+        return n + 1;
+    }
+}
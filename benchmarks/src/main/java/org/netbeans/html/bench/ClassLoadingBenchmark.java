@@ -0,0 +1,222 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.html.boot.impl.FindResources;
+import org.netbeans.html.boot.impl.FnUtils;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Startup cost of loading an application with many classes containing
+ * {@link net.java.html.js.JavaScriptBody} methods through a fresh
+ * {@link net.java.html.boot.BrowserBuilder} like class loader. The classes
+ * are generated and need to be transformed when loaded. The
+ * <code>cache</code> parameter selects whether the
+ * <code>org.netbeans.html.boot.cache</code> directory is not used at all
+ * (<code>off</code>), is empty (<code>cold</code>) or already contains
+ * all the transformed classes (<code>warm</code>). The classes are loaded
+ * by the given number of <code>threads</code> at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ClassLoadingBenchmark {
+    private static final String PKG = "org/netbeans/html/bench/gen/"; // NOI18N
+    private static final String CACHE = "org.netbeans.html.boot.cache"; // NOI18N
+
+    @Param({ "1000" })
+    public int classes;
+
+    @Param({ "off", "cold", "warm" })
+    public String cache;
+
+    @Param({ "1", "8" })
+    public int threads;
+
+    private File app;
+    private File cacheDir;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void generateApp() throws Exception {
+        executor = Executors.newFixedThreadPool(threads);
+        app = Files.createTempDirectory("app").toFile(); // NOI18N
+        File pkg = new File(app, PKG);
+        pkg.mkdirs();
+        try (Writer w = new OutputStreamWriter(new FileOutputStream(new File(pkg, "net.java.html.js.classes")), "UTF-8")) { // NOI18N
+            for (int i = 0; i < classes; i++) {
+                w.write(className(i));
+                w.write('\n');
+                try (OutputStream os = new FileOutputStream(new File(pkg, "App" + i + ".class"))) { // NOI18N
+                    os.write(generateClass(PKG + "App" + i)); // NOI18N
+                }
+            }
+        }
+        if ("warm".equals(cache)) { // NOI18N
+            cacheDir = Files.createTempDirectory("cache").toFile(); // NOI18N
+            System.setProperty(CACHE, cacheDir.getPath());
+            loadApp();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void prepareCache() throws IOException {
+        if ("cold".equals(cache)) { // NOI18N
+            delete(cacheDir);
+            cacheDir = Files.createTempDirectory("cache").toFile(); // NOI18N
+            System.setProperty(CACHE, cacheDir.getPath());
+        } else if ("off".equals(cache)) { // NOI18N
+            System.clearProperty(CACHE);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteApp() {
+        executor.shutdown();
+        System.clearProperty(CACHE);
+        delete(cacheDir);
+        delete(app);
+    }
+
+    @Benchmark
+    public int loadApp() throws Exception {
+        final ClassLoader l = FnUtils.newLoader(new AppResources(), null, ClassLoadingBenchmark.class.getClassLoader());
+        if (threads == 1) {
+            return loadClasses(l, 0);
+        }
+        List<Future<Integer>> loading = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int first = t;
+            loading.add(executor.submit(() -> loadClasses(l, first)));
+        }
+        int hash = 0;
+        for (Future<Integer> f : loading) {
+            hash += f.get();
+        }
+        return hash;
+    }
+
+    private int loadClasses(ClassLoader l, int first) throws ClassNotFoundException {
+        int hash = 0;
+        for (int i = first; i < classes; i += threads) {
+            hash += l.loadClass(className(i)).getName().length();
+        }
+        return hash;
+    }
+
+    private static String className(int i) {
+        return PKG.replace('/', '.') + "App" + i; // NOI18N
+    }
+
+    private static byte[] generateClass(String name) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(Opcodes.V1_7, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", null); // NOI18N
+
+        MethodVisitor init = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null); // NOI18N
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false); // NOI18N
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        MethodVisitor sum = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_NATIVE, "sum", "(II)I", null, null); // NOI18N
+        AnnotationVisitor body = sum.visitAnnotation("Lnet/java/html/js/JavaScriptBody;", false); // NOI18N
+        AnnotationVisitor args = body.visitArray("args"); // NOI18N
+        args.visit(null, "a"); // NOI18N
+        args.visit(null, "b"); // NOI18N
+        args.visitEnd();
+        body.visit("body", "return a + b;"); // NOI18N
+        body.visitEnd();
+        sum.visitEnd();
+
+        MethodVisitor twice = cw.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC, "twice", "(I)I", null, null); // NOI18N
+        twice.visitCode();
+        twice.visitVarInsn(Opcodes.ILOAD, 0);
+        twice.visitVarInsn(Opcodes.ILOAD, 0);
+        twice.visitMethodInsn(Opcodes.INVOKESTATIC, name, "sum", "(II)I", false); // NOI18N
+        twice.visitInsn(Opcodes.IRETURN);
+        twice.visitMaxs(0, 0);
+        twice.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static void delete(File f) {
+        if (f == null) {
+            return;
+        }
+        File[] children = f.listFiles();
+        if (children != null) {
+            for (File c : children) {
+                delete(c);
+            }
+        }
+        f.delete();
+    }
+
+    private final class AppResources implements FindResources {
+        @Override
+        public void findResources(String path, Collection<? super URL> results, boolean oneIsEnough) {
+            File f = new File(app, path);
+            if (f.exists()) {
+                try {
+                    results.add(f.toURI().toURL());
+                } catch (MalformedURLException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.bench;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.html.boot.spi.Fn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Overhead of calling {@link net.java.html.js.JavaScriptBody} methods
+ * depending on number and type of arguments and of calling back
+ * from JavaScript to Java.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JavaScriptBodyBenchmark {
+    @Param({ "script", "proto" })
+    public String presenter;
+
+    private Closeable active;
+    private Object jsObject;
+    private final Object javaObject = new Object();
+
+    @Setup
+    public void activate() {
+        active = Fn.activate(Presenters.create(presenter));
+        jsObject = Bodies.object();
+    }
+
+    @TearDown
+    public void deactivate() throws IOException {
+        active.close();
+    }
+
+    @Benchmark
+    public void noArgs() {
+        Bodies.empty();
+    }
+
+    @Benchmark
+    public int oneInt() {
+        return Bodies.sum(1);
+    }
+
+    @Benchmark
+    public int twoInts() {
+        return Bodies.sum(1, 2);
+    }
+
+    @Benchmark
+    public int fourInts() {
+        return Bodies.sum(1, 2, 3, 4);
+    }
+
+    @Benchmark
+    public double twoDoubles() {
+        return Bodies.mul(1.5, 2.5);
+    }
+
+    @Benchmark
+    public String twoStrings() {
+        return Bodies.concat("Hello", "World");
+    }
+
+    @Benchmark
+    public Object javaObject() {
+        return Bodies.identity(javaObject);
+    }
+
+    @Benchmark
+    public int jsObject() {
+        return Bodies.x(jsObject);
+    }
+
+    @Benchmark
+    public Object[] array() {
+        return Bodies.array(10);
+    }
+
+    @Benchmark
+    public int callback() {
+        return Bodies.callback(1);
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.bench;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.java.html.BrwsrCtx;
+import net.java.html.json.Models;
+import org.netbeans.html.boot.spi.Fn;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.spi.Technology;
+import org.netbeans.html.json.spi.Transfer;
+import org.netbeans.html.ko4j.KO4J;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Models with knockout.js bindings applied. There is no real DOM, the
+ * bindings are applied to an empty element. Every change is still
+ * propagated to the knockout observables.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KnockoutBenchmark {
+    @Param({ "script", "proto" })
+    public String presenter;
+
+    @Param({ "10", "1000" })
+    public int size;
+
+    private Closeable active;
+    private Table table;
+    private Row row;
+    private int counter;
+
+    @Setup
+    public void prepare() throws Exception {
+        Fn.Presenter p = Presenters.create(presenter);
+        active = Fn.activate(p);
+        KO4J ko4j = new KO4J(p);
+        BrwsrCtx ctx = Contexts.newBuilder()
+            .register(Technology.class, ko4j.knockout(), 1)
+            .register(Transfer.class, ko4j.transfer(), 1)
+            .build();
+        table = Models.bind(TableImpl.create(size), ctx);
+        // loads knockout.js before the fake document is defined
+        Models.toRaw(table);
+        p.defineFn(
+            "var global = (function() { return this; })();\n"
+            + "function none() { return null; }\n"
+            + "function empty() { return []; }\n"
+            + "var doc = { 'nodeType' : 9 };\n"
+            + "var body = { 'nodeType' : 1, 'tagName' : 'BODY', 'childNodes' : [], "
+            + "'firstChild' : null, 'parentNode' : doc, 'ownerDocument' : doc, "
+            + "'getAttribute' : none, 'getElementsByTagName' : empty };\n"
+            + "doc['body'] = body;\n"
+            + "doc['documentElement'] = body;\n"
+            + "doc['getElementById'] = none;\n"
+            + "global['window'] = global;\n"
+            + "global['document'] = doc;\n"
+        ).invoke(null);
+        Models.applyBindings(table);
+        row = table.getRows().get(0);
+    }
+
+    @TearDown
+    public void deactivate() throws IOException {
+        active.close();
+    }
+
+    @Benchmark
+    public void set() {
+        row.setName("Name #" + ++counter); // NOI18N
+    }
+
+    @Benchmark
+    public int computed() {
+        row.setDone(!row.isDone());
+        return table.getDone();
+    }
+
+    @Benchmark
+    public void addAndRemove() {
+        List<Row> rows = table.getRows();
+        rows.add(new Row(++counter, "New", false)); // NOI18N
+        rows.remove(rows.size() - 1);
+    }
+
+    @Benchmark
+    public void replaceAll() {
+        List<Row> rows = table.getRows();
+        Row[] copy = rows.toArray(new Row[0]);
+        rows.clear();
+        rows.addAll(Arrays.asList(copy));
+    }
+}
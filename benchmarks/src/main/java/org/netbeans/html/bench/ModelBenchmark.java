@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.java.html.BrwsrCtx;
+import net.java.html.json.Models;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.spi.FunctionBinding;
+import org.netbeans.html.json.spi.PropertyBinding;
+import org.netbeans.html.json.spi.Technology;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Model runtime without any JavaScript. Models are either plain or
+ * bound to a {@link Technology} that observes all their properties.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+    @Param({ "10", "1000" })
+    public int size;
+
+    @Param({ "plain", "bound" })
+    public String bindings;
+
+    private BrwsrCtx ctx;
+    private byte[] json;
+    private Table table;
+    private Row row;
+    private int counter;
+
+    @Setup
+    public void prepare() {
+        if ("bound".equals(bindings)) { // NOI18N
+            ctx = Contexts.newBuilder().register(Technology.class, new Observing(), 1).build();
+        } else {
+            ctx = Contexts.newBuilder().build();
+        }
+        json = TableImpl.create(size).toString().getBytes();
+        table = Models.bind(TableImpl.create(size), ctx);
+        Models.applyBindings(table);
+        row = table.getRows().get(0);
+    }
+
+    @Benchmark
+    public Row create() {
+        return new Row(1, "Row", true); // NOI18N
+    }
+
+    @Benchmark
+    public Table parse() throws IOException {
+        return Models.parse(ctx, Table.class, new ByteArrayInputStream(json));
+    }
+
+    @Benchmark
+    public String toJSON() {
+        return table.toString();
+    }
+
+    @Benchmark
+    public int get() {
+        return row.getId() + row.getName().length();
+    }
+
+    @Benchmark
+    public void set() {
+        row.setId(++counter);
+    }
+
+    @Benchmark
+    public int computed() {
+        row.setDone(!row.isDone());
+        return table.getDone();
+    }
+
+    @Benchmark
+    public void addAndRemove() {
+        List<Row> rows = table.getRows();
+        rows.add(row);
+        rows.remove(rows.size() - 1);
+    }
+
+    /** Technology reading all properties when a model is bound and
+     * otherwise ignoring all the notifications.
+     */
+    private static final class Observing implements Technology<Object[]> {
+        @Override
+        public Object[] wrapModel(Object model) {
+            return new Object[] { model };
+        }
+
+        @Override
+        public <M> M toModel(Class<M> modelClass, Object data) {
+            return modelClass.cast(((Object[]) data)[0]);
+        }
+
+        @Override
+        public void bind(PropertyBinding b, Object model, Object[] data) {
+            b.getValue();
+        }
+
+        @Override
+        public void valueHasMutated(Object[] data, String propertyName) {
+        }
+
+        @Override
+        public void expose(FunctionBinding fb, Object model, Object[] d) {
+        }
+
+        @Override
+        public void applyBindings(Object[] data) {
+        }
+
+        @Override
+        public Object wrapArray(Object[] arr) {
+            return arr;
+        }
+
+        @Override
+        public void runSafe(Runnable r) {
+            r.run();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.bench;
+
+import java.net.URL;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import net.java.html.boot.script.Scripts;
+import org.netbeans.html.boot.spi.Fn;
+import org.netbeans.html.presenters.spi.ProtoPresenter;
+import org.netbeans.html.presenters.spi.ProtoPresenterBuilder;
+
+/** Presenters the benchmarks run with. Both of them evaluate the JavaScript
+ * in a local script engine on the calling thread.
+ */
+final class Presenters {
+    private Presenters() {
+    }
+
+    /** Creates a presenter.
+     *
+     * @param type either <code>script</code> for a {@link Scripts} based presenter
+     *   calling the script engine directly, or <code>proto</code> for a
+     *   {@link ProtoPresenterBuilder} based presenter talking to the engine
+     *   via its text protocol as it would talk to a remote browser
+     * @return new presenter
+     */
+    static Fn.Presenter create(String type) {
+        switch (type) {
+            case "script": // NOI18N
+                return Scripts.newPresenter().executor(Runnable::run).build();
+            case "proto": // NOI18N
+                return new Loopback().presenter;
+            default:
+                throw new IllegalArgumentException(type);
+        }
+    }
+
+    /** Fake transport - messages of the protocol aren't sent anywhere, but
+     * evaluated synchronously by a script engine in the same process.
+     */
+    private static final class Loopback {
+        final ScriptEngine eng;
+        final ProtoPresenter presenter;
+
+        Loopback() {
+            this.presenter = ProtoPresenterBuilder.newBuilder()
+                .app("Benchmarks") // NOI18N
+                .type("loopback") // NOI18N
+                .dispatcher(Runnable::run, false)
+                .loadJavaScript(this::loadJS, true)
+                .displayer(this::displayPage)
+                .preparator(this::callbackFn, true)
+                .build();
+            this.eng = new ScriptEngineManager().getEngineByName("javascript"); // NOI18N
+            this.eng.getBindings(ScriptContext.ENGINE_SCOPE).put("polyglot.js.allowAllAccess", true); // NOI18N
+        }
+
+        private void callbackFn(ProtoPresenterBuilder.OnPrepared ready) {
+            eng.getBindings(ScriptContext.ENGINE_SCOPE).put("jvm", new Clbk(presenter)); // NOI18N
+            try {
+                eng.eval("(function(global) {\n"
+                    + "  var jvm = global.jvm;\n"
+                    + "  global.loopbackCB = function(m,a1,a2,a3,a4) {\n"
+                    + "    return jvm.pass(m,a1,a2,a3,a4);\n"
+                    + "  }\n"
+                    + "})(this);\n"
+                );
+            } catch (ScriptException ex) {
+                throw new IllegalStateException(ex);
+            }
+            eng.getBindings(ScriptContext.ENGINE_SCOPE).put("jvm", ""); // NOI18N
+            ready.callbackIsPrepared("loopbackCB"); // NOI18N
+        }
+
+        private void loadJS(String js) {
+            try {
+                eng.eval(js);
+            } catch (ScriptException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        private void displayPage(URL url, Runnable onLoad) {
+            onLoad.run();
+        }
+    }
+
+    public static final class Clbk {
+        private final ProtoPresenter presenter;
+
+        Clbk(ProtoPresenter presenter) {
+            this.presenter = presenter;
+        }
+
+        private static String ts(Object o) {
+            return o == null ? null : o.toString();
+        }
+
+        public String pass(String method, Object a1, Object a2, Object a3, Object a4) throws Exception {
+            return presenter.js2java(method, ts(a1), ts(a2), ts(a3), ts(a4));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.bench;
+
+import java.util.List;
+import net.java.html.json.ComputedProperty;
+import net.java.html.json.Model;
+import net.java.html.json.Property;
+
+/** Table of {@link Row rows} used by the model benchmarks.
+ */
+@Model(className = "Table", properties = {
+    @Property(name = "title", type = String.class),
+    @Property(name = "rows", type = Row.class, array = true),
+})
+final class TableImpl {
+    @ComputedProperty
+    static int done(List<Row> rows) {
+        int cnt = 0;
+        for (Row r : rows) {
+            if (r.isDone()) {
+                cnt++;
+            }
+        }
+        return cnt;
+    }
+
+    static Table create(int size) {
+        Table t = new Table();
+        t.setTitle("Table"); // NOI18N
+        for (int i = 0; i < size; i++) {
+            t.getRows().add(new Row(i, "Row #" + i, i % 2 == 0)); // NOI18N
+        }
+        return t;
+    }
+}
@@ -24,9 +24,7 @@ import java.io.Reader;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Array;
 import java.net.URL;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.logging.Level;
@@ -72,8 +70,9 @@ Presenter, Fn.FromJavaScript, Fn.ToJavaScript, Executor {
     private final Object undefined;
     private final Set<Class<?>> jsReady;
     private final CallbackImpl callback;
+    private final boolean typedArrays;
 
-    ScriptPresenter(ScriptEngine eng, Executor exc, boolean sanitize) {
+    ScriptPresenter(ScriptEngine eng, Executor exc, boolean sanitize, boolean typedArrays) {
         if (eng == null) {
             eng = new ScriptEngineManager().getEngineByName("javascript");
         }
@@ -104,6 +103,7 @@ Presenter, Fn.FromJavaScript, Fn.ToJavaScript, Executor {
         this.undefined = undef;
         this.jsReady = new HashSet<>();
         this.callback = new CallbackImpl();
+        this.typedArrays = typedArrays;
     }
 
     @Override
@@ -160,6 +160,12 @@ Presenter, Fn.FromJavaScript, Fn.ToJavaScript, Executor {
     //
 
     private Object convertArrays(Object anyArr) throws Exception {
+        if (typedArrays) {
+            String kind = typedKind(anyArr);
+            if (kind != null) {
+                return wrapTypedFn().invokeImpl(null, false, kind, anyArr);
+            }
+        }
         int len = Array.getLength(anyArr);
         Object[] arr = new Object[len];
         for (int i = 0; i < len; i++) {
@@ -182,42 +188,40 @@ Presenter, Fn.FromJavaScript, Fn.ToJavaScript, Executor {
         return wrapArrImpl;
     }
 
-    private Object checkArray(Object val) throws Exception {
-        if (val instanceof Boolean || val instanceof Number || val instanceof String) {
-            return val;
-        }
-        final FnImpl fn = arraySizeFn();
-        final Object fnRes = fn.invokeImpl(null, false, val, null);
-        int length = ((Number) fnRes).intValue();
-        if (length == -1) {
-            return val;
-        }
-        Object[] arr = new Object[length];
-        fn.invokeImpl(null, false, val, arr);
-        return arr;
+    private static String typedKind(Object arr) {
+        if (arr instanceof double[]) {
+            return "d"; // NOI18N
+        } else if (arr instanceof float[]) {
+            return "f"; // NOI18N
+        } else if (arr instanceof int[]) {
+            return "i"; // NOI18N
+        } else if (arr instanceof short[]) {
+            return "s"; // NOI18N
+        } else if (arr instanceof byte[]) {
+            return "b"; // NOI18N
+        }
+        return null;
     }
 
-    private FnImpl arraySize;
-    private FnImpl arraySizeFn() {
-        if (arraySize == null) {
+    private FnImpl wrapTypedImpl;
+    private FnImpl wrapTypedFn() {
+        if (wrapTypedImpl == null) {
             try {
-                arraySize = defineImpl("\n"
-                    + "if (to == null) {\n"
-                    + "  if (Object.prototype.toString.call(arr) === '[object Array]') return arr.length;\n"
-                    + "  else return -1;\n"
-                    + "} else {\n"
-                    + "  var l = arr.length;\n"
-                    + "  for (var i = 0; i < l; i++) {\n"
-                    + "    to[i] = arr[i] === undefined ? null : arr[i];\n"
-                    + "  }\n"
-                    + "  return l;\n"
-                    + "}", new String[] { "arr", "to" }, null
+                wrapTypedImpl = defineImpl("\n"
+                    + "var l = arr.length;\n"
+                    + "var to = kind === 'd' ? new Float64Array(l) : kind === 'f' ? new Float32Array(l) :\n"
+                    + "  kind === 'i' ? new Int32Array(l) : kind === 's' ? new Int16Array(l) : new Int8Array(l);\n"
+                    + "for (var i = 0; i < l; i++) {\n"
+                    + "  to[i] = arr[i];\n"
+                    + "}\n"
+                    + "return to;\n"
+                    + "", new String[] { "kind", "arr" }, null
                 );
             } catch (Exception ex) {
                 throw new IllegalStateException(ex);
             }
         }
-        return arraySize;
+        return wrapTypedImpl;
     }
 
     private FnImpl wrapJavaObject;
@@ -244,22 +248,60 @@ Presenter, Fn.FromJavaScript, Fn.ToJavaScript, Executor {
         return wrapJavaObject;
     }
 
-    private FnImpl extractJavaObject;
-    private FnImpl extractJavaObject() {
-        if (extractJavaObject == null) {
+    private Object toJavaFn;
+    /** Function converting a JavaScript value to Java in a single call:
+     * primitives are returned as they are, wrapped Java objects are passed
+     * to {@link CallbackImpl} which is returned as a marker and arrays
+     * are copied into a Java array. When typed arrays are turned on,
+     * typed arrays are copied into primitive Java arrays.
+     */
+    private Object toJavaFn() {
+        if (toJavaFn == null) {
             try {
-                extractJavaObject = defineImpl("\n"
-                    + "var fn = obj && obj['javaObj'];\n"
-                    + "if (typeof fn === 'function') {\n"
-                    + "  fn();\n"
-                    + "};\n"
-                    + "", new String[] { "obj" }, null
+                Object factory = eng.eval("\n"
+                    + "(function(callback, typed) {\n"
+                    + "  var kinds = typed ? {\n"
+                    + "    '[object Float64Array]' : 'd', '[object Float32Array]' : 'f',\n"
+                    + "    '[object Int32Array]' : 'i', '[object Int16Array]' : 's', '[object Int8Array]' : 'b'\n"
+                    + "  } : null;\n"
+                    + "  function conv(r) {\n"
+                    + "    if (r === undefined || r === null) return null;\n"
+                    + "    var t = typeof r;\n"
+                    + "    if (t === 'string' || t === 'number' || t === 'boolean') return r;\n"
+                    + "    var fn = r['javaObj'];\n"
+                    + "    if (typeof fn === 'function') {\n"
+                    + "      fn();\n"
+                    + "      return callback;\n"
+                    + "    }\n"
+                    + "    var type = Object.prototype.toString.call(r);\n"
+                    + "    var k = kinds ? kinds[type] : null;\n"
+                    + "    if (k) {\n"
+                    + "      var l = r.length;\n"
+                    + "      var to = callback.primitives(k, l);\n"
+                    + "      for (var i = 0; i < l; i++) {\n"
+                    + "        to[i] = r[i];\n"
+                    + "      }\n"
+                    + "      return to;\n"
+                    + "    }\n"
+                    + "    if (type === '[object Array]') {\n"
+                    + "      var l = r.length;\n"
+                    + "      var to = callback.array(l);\n"
+                    + "      for (var i = 0; i < l; i++) {\n"
+                    + "        to[i] = r[i] === undefined ? null : r[i];\n"
+                    + "      }\n"
+                    + "      return to;\n"
+                    + "    }\n"
+                    + "    return r;\n"
+                    + "  }\n"
+                    + "  return conv;\n"
+                    + "})\n"
                 );
-            } catch (Exception ex) {
+                toJavaFn = ((Invocable) eng).invokeMethod(factory, "call", null, callback, typedArrays); // NOI18N
+            } catch (ScriptException | NoSuchMethodException ex) {
                 throw new IllegalStateException(ex);
             }
         }
-        return extractJavaObject;
+        return toJavaFn;
     }
 
     @Override
@@ -270,27 +312,21 @@ Presenter, Fn.FromJavaScript, Fn.ToJavaScript, Executor {
         if (toJS instanceof String || toJS instanceof Number || toJS instanceof Boolean || toJS instanceof Character) {
             return toJS;
         }
-        jsReady.add(toJS.getClass());
         try {
-            callback.last = this;
-            extractJavaObject().invokeImpl(null, false, toJS);
-            if (callback.last != this) {
-                toJS = callback.last;
-            }
-        } catch (Exception ex) {
+            toJS = ((Invocable) eng).invokeMethod(toJavaFn(), "call", null, toJS); // NOI18N
+        } catch (ScriptException | NoSuchMethodException ex) {
             throw new IllegalStateException(ex);
         }
-        if (toJS instanceof Weak) {
-            toJS = ((Weak)toJS).get();
-        }
-        if (toJS == undefined || toJS == null) {
-            return null;
-        }
-        try {
-            return checkArray(toJS);
-        } catch (Exception ex) {
-            throw new IllegalStateException(ex);
+        if (toJS == callback) {
+            toJS = callback.last;
+            callback.last = null;
+            if (toJS instanceof Weak) {
+                toJS = ((Weak) toJS).get();
+            }
+        } else if (toJS != null && !toJS.getClass().isArray() && !isJSReady(toJS)) {
+            jsReady.add(toJS.getClass());
         }
+        return toJS == undefined ? null : toJS;
     }
 
     @Override
@@ -383,25 +419,54 @@ Presenter, Fn.FromJavaScript, Fn.ToJavaScript, Executor {
         }
 
         final Object invokeImpl(Object thiz, boolean arrayChecks, Object... args) throws Exception {
-            List<Object> all = new ArrayList<>(args.length + 1);
+            Object[] all = new Object[args.length + 1];
             ScriptPresenter sp = (ScriptPresenter) presenter();
             if (thiz == null) {
-                all.add(fn);
+                all[0] = fn;
             } else {
-                all.add(sp.toJavaScript(thiz, true, true));
+                all[0] = sp.toJavaScript(thiz, true, true);
             }
             for (int i = 0; i < args.length; i++) {
-                Object conv = sp.toJavaScript(args[i], arrayChecks, keepAlive == null || keepAlive[i]);
-                all.add(conv);
+                all[i + 1] = sp.toJavaScript(args[i], arrayChecks, keepAlive == null || keepAlive[i]);
             }
-            Object ret = ((Invocable)eng).invokeMethod(fn, "call", all.toArray()); // NOI18N
+            Object ret = ((Invocable)eng).invokeMethod(fn, "call", all); // NOI18N
             if (ret == fn) {
                 return null;
             }
             if (!arrayChecks) {
                 return ret;
             }
-            return ((ScriptPresenter)presenter()).toJava(ret);
+            return sp.toJava(ret);
+        }
+
+        @Override
+        public double invokeDouble(Object thiz, int count, double a0, double a1, double a2, double a3) throws Exception {
+            Object ret = invokeDoubles(thiz, count, a0, a1, a2, a3);
+            if (!(ret instanceof Number)) {
+                ret = ((ScriptPresenter) presenter()).toJava(ret);
+            }
+            return ((Number) ret).doubleValue();
+        }
+
+        @Override
+        public void invokeVoid(Object thiz, int count, double a0, double a1, double a2, double a3) throws Exception {
+            invokeDoubles(thiz, count, a0, a1, a2, a3);
+        }
+
+        private Object invokeDoubles(Object thiz, int count, double a0, double a1, double a2, double a3) throws Exception {
+            Object[] all = new Object[count + 1];
+            if (thiz == null) {
+                all[0] = fn;
+            } else {
+                all[0] = ((ScriptPresenter) presenter()).toJavaScript(thiz, true, true);
+            }
+            switch (count) {
+                case 4: all[4] = a3;
+                case 3: all[3] = a2;
+                case 2: all[2] = a1;
+                case 1: all[1] = a0;
+            }
+            return ((Invocable)eng).invokeMethod(fn, "call", all); // NOI18N
         }
     }
 
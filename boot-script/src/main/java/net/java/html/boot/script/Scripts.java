@@ -49,6 +49,7 @@ public final class Scripts {
     private Executor exc;
     private ScriptEngine engine;
     private boolean sanitize = true;
+    private boolean typedArrays;
     
     private Scripts() {
     }
@@ -162,6 +163,23 @@ public final class Scripts {
         return this;
     }
     
+    /** Maps primitive arrays to JavaScript typed arrays. When turned on,
+     * {@code double[]}, {@code float[]}, {@code int[]}, {@code short[]} and
+     * {@code byte[]} are passed to JavaScript as {@code Float64Array},
+     * {@code Float32Array}, {@code Int32Array}, {@code Int16Array} and
+     * {@code Int8Array} created in a single call and typed arrays of these
+     * kinds are returned back as primitive Java arrays. By default
+     * primitive arrays are converted to regular JavaScript arrays.
+     *
+     * @param yesOrNo use typed arrays or not
+     * @return instance of the new builder
+     * @since 1.8
+     */
+    public Scripts typedArrays(boolean yesOrNo) {
+        this.typedArrays = yesOrNo;
+        return this;
+    }
+
     /** Builds new instance of the scripting presenter. Use
      * arguments of this builder and creates new instance.
      * 
@@ -169,6 +187,6 @@ public final class Scripts {
      * @since 1.6.1
      */
     public Presenter build() {
-        return new ScriptPresenter(engine, exc, sanitize);
+        return new ScriptPresenter(engine, exc, sanitize, typedArrays);
     }
 }
@@ -21,4 +21,19 @@ package net.java.html.boot.script.impl;
 
 public abstract class Callback {
     public abstract void callback(Object obj);
+
+    public Object[] array(int length) {
+        return new Object[length];
+    }
+
+    public Object primitives(String kind, int length) {
+        switch (kind) {
+            case "d": return new double[length];
+            case "f": return new float[length];
+            case "i": return new int[length];
+            case "s": return new short[length];
+            case "b": return new byte[length];
+            default: throw new IllegalArgumentException(kind);
+        }
+    }
 }
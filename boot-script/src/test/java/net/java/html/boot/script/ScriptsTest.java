@@ -82,6 +82,31 @@ public class ScriptsTest {
     }
     // END: ScriptsTest#activatePresenterDirectly
 
+    @JavaScriptBody(args = { "a", "b", "c" }, body = "return a * b + c;")
+    private static native double mulAdd(double a, double b, double c);
+
+    @Test
+    public void doublesArePassedUnboxed() throws Exception {
+        Fn.Presenter p = Scripts.newPresenter().build();
+        Fn fn = p.defineFn("return a * b + c;", "a", "b", "c");
+        assertEquals(fn.getClass().getDeclaredMethod("invokeDouble", Object.class, int.class, double.class, double.class, double.class, double.class).getDeclaringClass(), fn.getClass(), "Presenter handles doubles itself");
+        assertEquals(fn.getClass().getDeclaredMethod("invokeVoid", Object.class, int.class, double.class, double.class, double.class, double.class).getDeclaringClass(), fn.getClass(), "Presenter handles void calls itself");
+
+        Fn count = p.defineFn("return arguments.length * 10 + a;", "a", "b");
+        assertEquals(count.invokeDouble(null, 1, 4.5, 0, 0, 0), 14.5, "Only count arguments are passed");
+        assertEquals(count.invokeDouble(null, 2, 4.5, 1, 0, 0), 24.5);
+
+        Fn store = p.defineFn("this.x = a + b;", "a", "b");
+        Fn load = p.defineFn("return this.x;");
+        Object thiz = p.defineFn("return {};").invoke(null);
+        store.invokeVoid(thiz, 2, 40, 2, 0, 0);
+        assertEquals(load.invokeDouble(thiz, 0, 0, 0, 0, 0), 42.0);
+
+        try (Closeable c = Fn.activate(p)) {
+            assertEquals(mulAdd(6, 7, 0.5), 42.5);
+        }
+    }
+
     @Test
     public void initViaBrowserBuilder() throws Exception {
         String[] executed = { null };
@@ -98,6 +123,39 @@ public class ScriptsTest {
         assertEquals(executed[0], "OK", "Executed without issues");
     }
 
+    @Test
+    public void primitiveArraysAreTypedArrays() throws Exception {
+        Fn.Presenter p = Scripts.newPresenter().typedArrays(true).build();
+        try (Closeable c = Fn.activate(p)) {
+            Fn type = p.defineFn("return Object.prototype.toString.call(arr) + ':' + arr.join(',');", "arr");
+            assertEquals(type.invoke(null, new double[] { 1.5, -2 }), "[object Float64Array]:1.5,-2");
+            assertEquals(type.invoke(null, new float[] { 0.5f }), "[object Float32Array]:0.5");
+            assertEquals(type.invoke(null, new int[] { 1, -2 }), "[object Int32Array]:1,-2");
+            assertEquals(type.invoke(null, new short[] { -3 }), "[object Int16Array]:-3");
+            assertEquals(type.invoke(null, new byte[] { -128, 127 }), "[object Int8Array]:-128,127");
+            assertEquals(type.invoke(null, new long[] { 7 }), "[object Array]:7");
+
+            assertEquals((double[]) p.defineFn("return new Float64Array([1.5, -2]);").invoke(null), new double[] { 1.5, -2 });
+            assertEquals((float[]) p.defineFn("return new Float32Array([0.5]);").invoke(null), new float[] { 0.5f });
+            assertEquals((int[]) p.defineFn("return new Int32Array([1, -2]);").invoke(null), new int[] { 1, -2 });
+            assertEquals((short[]) p.defineFn("return new Int16Array([-3]);").invoke(null), new short[] { -3 });
+            assertEquals((byte[]) p.defineFn("return new Int8Array([-128, 127]);").invoke(null), new byte[] { -128, 127 });
+            Object[] regular = (Object[]) p.defineFn("return [ 1, 2 ];").invoke(null);
+            assertEquals(regular.length, 2);
+        }
+    }
+
+    @Test
+    public void primitiveArraysAreRegularArraysByDefault() throws Exception {
+        Fn.Presenter p = Scripts.newPresenter().build();
+        try (Closeable c = Fn.activate(p)) {
+            Fn type = p.defineFn("return Object.prototype.toString.call(arr);", "arr");
+            assertEquals(type.invoke(null, new double[] { 1.5 }), "[object Array]");
+            Object back = p.defineFn("return new Float64Array([1.5, -2]);").invoke(null);
+            assertFalse(back instanceof double[], "No conversion by default: " + back);
+        }
+    }
+
     @Test
     public void isSanitizationOnByDefault() throws Exception {
         assertSanitized(Scripts.newPresenter());
@@ -23,6 +23,7 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
@@ -34,6 +35,7 @@ import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
@@ -55,6 +57,14 @@ public final class FnUtils {
     /** Seeks for {@link JavaScriptBody} and {@link JavaScriptResource} annotations
      * in the bytecode and converts them into real code. Used by Maven plugin
      * postprocessing classes.
+     * <p>
+     * By default the function is kept in a static field and defined again
+     * whenever another presenter is active. When the
+     * <code>org.netbeans.html.boot.indy</code> system property is
+     * <code>true</code>, classes of version 51 and newer obtain the
+     * function via <code>invokedynamic</code> call site bootstrapped by
+     * {@link Fn#bootstrap} which remembers functions for the last few
+     * presenters.
      * 
      * @param bytecode the original bytecode with javascript specific annotations
      * @param loader the loader to load resources (scripts and classes) when needed
@@ -114,7 +124,13 @@ public final class FnUtils {
     }
 
     private static final class FindInClass extends ClassVisitor {
+        private static final Handle BOOTSTRAP = new Handle(
+            Opcodes.H_INVOKESTATIC, "org/netbeans/html/boot/spi/Fn", "bootstrap",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;"
+            + "Ljava/lang/String;ILjava/lang/String;Ljava/lang/String;)Ljava/lang/invoke/CallSite;"
+        );
         private String name;
+        private boolean indy;
         private int found;
         private int resourcesCnt = 0;
         private final String[] resources = new String[256];
@@ -126,6 +142,7 @@ public final class FnUtils {
         @Override
         public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
             this.name = name;
+            this.indy = (version & 0xffff) >= Opcodes.V1_7 && Boolean.getBoolean("org.netbeans.html.boot.indy"); // NOI18N
             super.visit(version, access, name, signature, superName, interfaces);
         }
 
@@ -224,66 +241,34 @@ public final class FnUtils {
                     args = fia.args;
                 }
 
-                super.visitFieldInsn(
-                        Opcodes.GETSTATIC, FindInClass.this.name,
-                        "$$fn$$" + name + "_" + found,
-                        "Lorg/netbeans/html/boot/spi/Fn;"
-                );
-                super.visitInsn(Opcodes.DUP);
-                super.visitMethodInsn(
-                        Opcodes.INVOKESTATIC,
-                        "org/netbeans/html/boot/spi/Fn", "isValid",
-                        "(Lorg/netbeans/html/boot/spi/Fn;)Z"
-                );
-                Label ifNotNull = new Label();
-                super.visitJumpInsn(Opcodes.IFNE, ifNotNull);
-
-                // init Fn
-                super.visitInsn(Opcodes.POP);
-                super.visitLdcInsn(Type.getObjectType(FindInClass.this.name));
-                super.visitInsn(fia.keepAlive ? Opcodes.ICONST_1 : Opcodes.ICONST_0);
-                super.visitLdcInsn(body);
-                super.visitIntInsn(Opcodes.SIPUSH, args.size());
-                super.visitTypeInsn(Opcodes.ANEWARRAY, "java/lang/String");
-                boolean needsVM = false;
-                for (int i = 0; i < args.size(); i++) {
-                    assert !needsVM;
-                    String argName = args.get(i);
-                    needsVM = "vm".equals(argName);
-                    super.visitInsn(Opcodes.DUP);
-                    super.visitIntInsn(Opcodes.BIPUSH, i);
-                    super.visitLdcInsn(argName);
-                    super.visitInsn(Opcodes.AASTORE);
-                }
-                super.visitMethodInsn(Opcodes.INVOKESTATIC,
-                        "org/netbeans/html/boot/spi/Fn", "define",
-                        "(Ljava/lang/Class;ZLjava/lang/String;[Ljava/lang/String;)Lorg/netbeans/html/boot/spi/Fn;"
-                );
                 Label noPresenter = new Label();
-                super.visitInsn(Opcodes.DUP);
-                super.visitJumpInsn(Opcodes.IFNULL, noPresenter);
-                int cnt = resourcesCnt;
-                while (cnt > 0) {
-                    String resource = resources[--cnt];
-                    if (resource == null) {
-                        continue;
+                if (indy) {
+                    StringBuilder names = new StringBuilder();
+                    for (String argName : args) {
+                        if (names.length() > 0) {
+                            names.append(',');
+                        }
+                        names.append(argName);
                     }
-                    super.visitLdcInsn(Type.getObjectType(FindInClass.this.name));
-                    super.visitLdcInsn(resource);
-                    super.visitMethodInsn(Opcodes.INVOKESTATIC,
-                            "org/netbeans/html/boot/spi/Fn", "preload",
-                            "(Lorg/netbeans/html/boot/spi/Fn;Ljava/lang/Class;Ljava/lang/String;)Lorg/netbeans/html/boot/spi/Fn;"
+                    StringBuilder preload = new StringBuilder();
+                    for (int i = 0; i < resourcesCnt; i++) {
+                        if (resources[i] == null) {
+                            continue;
+                        }
+                        if (preload.length() > 0) {
+                            preload.append('\n');
+                        }
+                        preload.append(resources[i]);
+                    }
+                    super.visitInvokeDynamicInsn("fn", "()Lorg/netbeans/html/boot/spi/Fn;", BOOTSTRAP, // NOI18N
+                        body, fia.keepAlive ? 1 : 0, names.toString(), preload.toString()
                     );
+                    super.visitInsn(Opcodes.DUP);
+                    super.visitJumpInsn(Opcodes.IFNULL, noPresenter);
+                } else {
+                    generateField(body, args, noPresenter);
                 }
-                super.visitInsn(Opcodes.DUP);
-                super.visitFieldInsn(
-                        Opcodes.PUTSTATIC, FindInClass.this.name,
-                        "$$fn$$" + name + "_" + found,
-                        "Lorg/netbeans/html/boot/spi/Fn;"
-                );
-                // end of Fn init
-
-                super.visitLabel(ifNotNull);
+                boolean needsVM = args.contains("vm");
 
                 final int offset;
                 if ((access & Opcodes.ACC_STATIC) == 0) {
@@ -294,6 +279,11 @@ public final class FnUtils {
                     super.visitInsn(Opcodes.ACONST_NULL);
                 }
 
+                if (generateDoubleCall(offset, needsVM)) {
+                    generateNoPresenter(hasCode, noPresenter);
+                    return true;
+                }
+
                 super.visitIntInsn(Opcodes.SIPUSH, args.size());
                 super.visitTypeInsn(Opcodes.ANEWARRAY, "java/lang/Object");
 
@@ -451,6 +441,11 @@ public final class FnUtils {
                     );
                     super.visitInsn(Opcodes.RETURN);
                 }
+                generateNoPresenter(hasCode, noPresenter);
+                return true;
+            }
+
+            private void generateNoPresenter(boolean hasCode, Label noPresenter) {
                 super.visitLabel(noPresenter);
                 if (hasCode) {
                     super.visitCode();
@@ -463,9 +458,126 @@ public final class FnUtils {
                     );
                     this.visitInsn(Opcodes.ATHROW);
                 }
+            }
+
+            /** Calls {@link Fn#invokeDouble} or {@link Fn#invokeVoid} when
+             * all parameters are <code>double</code> and the result is
+             * numeric or <code>void</code>.
+             *
+             * @return <code>true</code> if the call has been generated
+             */
+            private boolean generateDoubleCall(int offset, boolean needsVM) {
+                if (!fia.wait4js || needsVM) {
+                    return false;
+                }
+                Type[] params = Type.getArgumentTypes(desc);
+                if (params.length == 0 || params.length > 4) {
+                    return false;
+                }
+                for (Type t : params) {
+                    if (t.getSort() != Type.DOUBLE) {
+                        return false;
+                    }
+                }
+                Type ret = Type.getReturnType(desc);
+                switch (ret.getSort()) {
+                    case Type.VOID:
+                    case Type.DOUBLE:
+                    case Type.FLOAT:
+                    case Type.INT:
+                        break;
+                    default:
+                        return false;
+                }
+                super.visitIntInsn(Opcodes.BIPUSH, params.length);
+                for (int i = 0; i < 4; i++) {
+                    if (i < params.length) {
+                        super.visitVarInsn(Opcodes.DLOAD, offset + 2 * i);
+                    } else {
+                        super.visitInsn(Opcodes.DCONST_0);
+                    }
+                }
+                if (ret.getSort() == Type.VOID) {
+                    super.visitMethodInsn(Opcodes.INVOKEVIRTUAL,
+                            "org/netbeans/html/boot/spi/Fn", "invokeVoid", "(Ljava/lang/Object;IDDDD)V"
+                    );
+                    super.visitInsn(Opcodes.RETURN);
+                    return true;
+                }
+                super.visitMethodInsn(Opcodes.INVOKEVIRTUAL,
+                        "org/netbeans/html/boot/spi/Fn", "invokeDouble", "(Ljava/lang/Object;IDDDD)D"
+                );
+                switch (ret.getSort()) {
+                    case Type.FLOAT:
+                        super.visitInsn(Opcodes.D2F);
+                        break;
+                    case Type.INT:
+                        super.visitInsn(Opcodes.D2I);
+                        break;
+                }
+                super.visitInsn(ret.getOpcode(Opcodes.IRETURN));
                 return true;
             }
             
+            private void generateField(String body, List<String> args, Label noPresenter) {
+                super.visitFieldInsn(
+                        Opcodes.GETSTATIC, FindInClass.this.name,
+                        "$$fn$$" + name + "_" + found,
+                        "Lorg/netbeans/html/boot/spi/Fn;"
+                );
+                super.visitInsn(Opcodes.DUP);
+                super.visitMethodInsn(
+                        Opcodes.INVOKESTATIC,
+                        "org/netbeans/html/boot/spi/Fn", "isValid",
+                        "(Lorg/netbeans/html/boot/spi/Fn;)Z"
+                );
+                Label ifNotNull = new Label();
+                super.visitJumpInsn(Opcodes.IFNE, ifNotNull);
+
+                // init Fn
+                super.visitInsn(Opcodes.POP);
+                super.visitLdcInsn(Type.getObjectType(FindInClass.this.name));
+                super.visitInsn(fia.keepAlive ? Opcodes.ICONST_1 : Opcodes.ICONST_0);
+                super.visitLdcInsn(body);
+                super.visitIntInsn(Opcodes.SIPUSH, args.size());
+                super.visitTypeInsn(Opcodes.ANEWARRAY, "java/lang/String");
+                for (int i = 0; i < args.size(); i++) {
+                    String argName = args.get(i);
+                    super.visitInsn(Opcodes.DUP);
+                    super.visitIntInsn(Opcodes.BIPUSH, i);
+                    super.visitLdcInsn(argName);
+                    super.visitInsn(Opcodes.AASTORE);
+                }
+                super.visitMethodInsn(Opcodes.INVOKESTATIC,
+                        "org/netbeans/html/boot/spi/Fn", "define",
+                        "(Ljava/lang/Class;ZLjava/lang/String;[Ljava/lang/String;)Lorg/netbeans/html/boot/spi/Fn;"
+                );
+                super.visitInsn(Opcodes.DUP);
+                super.visitJumpInsn(Opcodes.IFNULL, noPresenter);
+                int cnt = resourcesCnt;
+                while (cnt > 0) {
+                    String resource = resources[--cnt];
+                    if (resource == null) {
+                        continue;
+                    }
+                    super.visitLdcInsn(Type.getObjectType(FindInClass.this.name));
+                    super.visitLdcInsn(resource);
+                    super.visitMethodInsn(Opcodes.INVOKESTATIC,
+                            "org/netbeans/html/boot/spi/Fn", "preload",
+                            "(Lorg/netbeans/html/boot/spi/Fn;Ljava/lang/Class;Ljava/lang/String;)Lorg/netbeans/html/boot/spi/Fn;"
+                    );
+                }
+                super.visitInsn(Opcodes.DUP);
+                super.visitFieldInsn(
+                        Opcodes.PUTSTATIC, FindInClass.this.name,
+                        "$$fn$$" + name + "_" + found,
+                        "Lorg/netbeans/html/boot/spi/Fn;"
+                );
+                // end of Fn init
+
+                super.visitLabel(ifNotNull);
+            }
+
             @Override
             public void visitEnd() {
                 super.visitEnd();
@@ -474,12 +586,14 @@ public final class FnUtils {
                         // native method
                         super.visitMaxs(1, 0);
                     }
-                    FindInClass.this.superField(
-                            Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC,
-                            "$$fn$$" + name + "_" + found,
-                            "Lorg/netbeans/html/boot/spi/Fn;",
-                            null, null
-                    );
+                    if (!indy) {
+                        FindInClass.this.superField(
+                                Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC,
+                                "$$fn$$" + name + "_" + found,
+                                "Lorg/netbeans/html/boot/spi/Fn;",
+                                null, null
+                        );
+                    }
                 }
             }
 
@@ -596,16 +710,56 @@ public final class FnUtils {
         }
     }
 
+    /** Reads the whole stream and closes it.
+     *
+     * @param is the stream to read
+     * @return all the bytes of the stream
+     * @throws IOException if the reading fails
+     */
+    static byte[] readFully(InputStream is) throws IOException {
+        try {
+            byte[] arr = new byte[Math.max(is.available(), 4096)];
+            int len = 0;
+            for (;;) {
+                int read = is.read(arr, len, arr.length - len);
+                if (read == -1) {
+                    break;
+                }
+                len += read;
+                if (len == arr.length) {
+                    int next = is.read();
+                    if (next == -1) {
+                        break;
+                    }
+                    arr = Arrays.copyOf(arr, arr.length * 2);
+                    arr[len++] = (byte) next;
+                }
+            }
+            return len == arr.length ? arr : Arrays.copyOf(arr, len);
+        } finally {
+            is.close();
+        }
+    }
+
+    /** Class loader transforming classes with {@link JavaScriptBody} methods.
+     * Registered as parallel capable, classes of different names are loaded
+     * concurrently - each name has its own lock.
+     */
     static class JsClassLoaderImpl extends JsClassLoader {
+        static {
+            registerAsParallelCapable();
+        }
 
         private final FindResources f;
         private final Fn.Presenter d;
+        private final TransformCache cache;
 
         public JsClassLoaderImpl(ClassLoader parent, FindResources f, Fn.Presenter d) {
             super(parent);
             setDefaultAssertionStatus(JsClassLoader.class.desiredAssertionStatus());
             this.f = f;
             this.d = d;
+            this.cache = TransformCache.getDefault();
         }
 
         @Override
@@ -660,6 +814,15 @@ public final class FnUtils {
             if (name.equals(Fn.FromJavaScript.class.getName())) {
                 return Fn.FromJavaScript.class;
             }
+            if (name.equals(Fn.Monitor.class.getName())) {
+                return Fn.Monitor.class;
+            }
+            if (name.equals(Fn.Statistics.class.getName())) {
+                return Fn.Statistics.class;
+            }
+            if (name.equals(Fn.StatisticsMXBean.class.getName())) {
+                return Fn.StatisticsMXBean.class;
+            }
             if (name.equals(FnUtils.class.getName())) {
                 return FnUtils.class;
             }
@@ -672,32 +835,22 @@ public final class FnUtils {
             }
             URL u = findResource(name.replace('.', '/') + ".class");
             if (u != null) {
-                InputStream is = null;
                 try {
-                    is = u.openStream();
-                    byte[] arr = new byte[is.available()];
-                    int len = 0;
-                    while (len < arr.length) {
-                        int read = is.read(arr, len, arr.length - len);
-                        if (read == -1) {
-                            throw new IOException("Can't read " + u);
-                        }
-                        len += read;
-                    }
-                    is.close();
-                    is = null;
+                    byte[] arr = readFully(u.openStream());
                     if (JsPkgCache.process(this, name)) {
+                        if (cache != null) {
+                            try {
+                                return defineClass(name, cache.transform(arr, this), null);
+                            } catch (ClassFormatError ex) {
+                                cache.remove(arr, ex);
+                            }
+                            return defineClass(name, cache.transform(arr, this), null);
+                        }
                         arr = FnUtils.transform(arr, this);
                     }
                     return defineClass(name, arr, 0, arr.length);
                 } catch (IOException ex) {
                     throw new ClassNotFoundException("Can't load " + name, ex);
-                } finally {
-                    try {
-                        if (is != null) is.close();
-                    } catch (IOException ex) {
-                        throw new ClassNotFoundException(null, ex);
-                    }
                 }
             }
             return super.findClass(name);
@@ -28,6 +28,8 @@ import java.security.ProtectionDomain;
  * @author Jaroslav Tulach
  */
 public final class JsAgent implements ClassFileTransformer {
+    private final TransformCache cache = TransformCache.getDefault();
+
     public static void premain(String args, Instrumentation instr) {
         instr.addTransformer(new JsAgent());
     }
@@ -40,6 +42,9 @@ public final class JsAgent implements ClassFileTransformer {
     public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined, ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
         try {
             if (JsPkgCache.process(loader, className)) {
+                if (cache != null) {
+                    return TransformCache.toArray(cache.transform(classfileBuffer, loader));
+                }
                 return FnUtils.transform(classfileBuffer, loader);
             } else {
                 return classfileBuffer;
@@ -26,6 +26,10 @@ import net.java.html.js.JavaScriptBody;
  * @author Jaroslav Tulach
  */
 abstract class JsClassLoader extends ClassLoader {
+    static {
+        registerAsParallelCapable();
+    }
+
     JsClassLoader(ClassLoader parent) {
         super(parent);
         setDefaultAssertionStatus(JsClassLoader.class.desiredAssertionStatus());
@@ -20,24 +20,27 @@ package org.netbeans.html.boot.impl;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-/**
+/** Remembers for each class loader and package which classes are listed
+ * in <code>net.java.html.js.classes</code> and need to be processed.
+ * Listings are read into immutable sets and lookups of already known
+ * packages don't hold any global lock.
  *
  * @author Jaroslav Tulach
  */
 final class JsPkgCache {
-    private final Map<String,Set<String>> props = new WeakHashMap<String, Set<String>>();
+    private final Map<String,Set<String>> props = new ConcurrentHashMap<String, Set<String>>();
     private static final Map<ClassLoader, JsPkgCache> CACHE = new WeakHashMap<ClassLoader, JsPkgCache>();
     private static final Set<String> NONE = Collections.emptySet();
 
@@ -45,64 +48,59 @@ final class JsPkgCache {
         if (className.equals("org.netbeans.html.boot.impl.Test")) { // NOI18N
             return true;
         }
-        Set<String> p;
         JsPkgCache c;
-        String pkgName;
         synchronized (CACHE) {
             c = CACHE.get(l);
             if (c == null) {
                 c = new JsPkgCache();
                 CACHE.put(l, c);
             }
-            int lastDot = className.lastIndexOf('.');
-            pkgName = className.substring(0, lastDot + 1).replace('.', '/');
-            p = c.props.get(pkgName);
-            if (p == NONE) {
-                return false;
-            } else if (p != null) {
-                return p.contains(className);
-            }
         }
+        int lastDot = className.lastIndexOf('.');
+        String pkgName = className.substring(0, lastDot + 1).replace('.', '/');
+        Set<String> p = c.props.get(pkgName);
+        if (p == null) {
+            p = read(l, pkgName);
+            c.props.put(pkgName, p);
+        }
+        return p.contains(className);
+    }
+
+    private static Set<String> read(ClassLoader l, String pkgName) {
         final String res = pkgName + "net.java.html.js.classes";
-        
         Enumeration<URL> en;
         try {
             en = l.getResources(res);
         } catch (IOException ex) {
             en = null;
         }
-        if (en == null || !en.hasMoreElements()) synchronized (CACHE) {
-            c.props.put(pkgName, NONE);
-            return false;
+        if (en == null || !en.hasMoreElements()) {
+            return NONE;
         }
-
         try {
-            Set<String> arr = new TreeSet<String>();
+            Set<String> arr = new HashSet<String>();
             while (en.hasMoreElements()) {
                 URL u = en.nextElement();
                 BufferedReader r = new BufferedReader(
-                    new InputStreamReader(u.openStream(), "UTF-8")
+                    new InputStreamReader(u.openStream(), "UTF-8") // NOI18N
                 );
-                for (;;) {
-                    String line = r.readLine();
-                    if (line == null) {
-                        break;
+                try {
+                    for (;;) {
+                        String line = r.readLine();
+                        if (line == null) {
+                            break;
+                        }
+                        arr.add(line);
                     }
-                    arr.add(line);
+                } finally {
+                    r.close();
                 }
-                r.close();
             }
-            p = arr;
+            return Collections.unmodifiableSet(arr);
         } catch (IOException ex) {
             LOG.log(Level.WARNING, "Can't read " + res, ex);
-            p = NONE;
-        }
-        
-        synchronized (CACHE) {
-            c.props.put(pkgName, p);
-            return p.contains(className);
+            return NONE;
         }
-        
     }
     private static final Logger LOG = Logger.getLogger(JsPkgCache.class.getName());
 }
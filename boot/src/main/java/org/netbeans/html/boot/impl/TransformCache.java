@@ -0,0 +1,216 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.boot.impl;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/** On-disk cache of classes {@link FnUtils#transform(byte[], java.lang.ClassLoader) transformed}
+ * by {@link JsClassLoader} and {@link JsAgent}. Turned on by setting the
+ * <code>org.netbeans.html.boot.cache</code> system property to a directory.
+ * The transformed bytes are stored under a name derived from the hash of
+ * the original bytes, so the directory can be shared by subsequent (even
+ * concurrent) runs of the application. Entries are kept in a subdirectory
+ * named after the hash of the {@link FnUtils} bytecode, so a different
+ * version of the transformation never sees them.
+ *
+ * @author Jaroslav Tulach
+ */
+final class TransformCache {
+    static final String PROPERTY = "org.netbeans.html.boot.cache"; // NOI18N
+    private static String version;
+    private static final Logger LOG = Logger.getLogger(TransformCache.class.getName());
+
+    private final File dir;
+
+    private TransformCache(File dir) {
+        this.dir = dir;
+    }
+
+    /** Cache in directory specified by the system property.
+     *
+     * @return the cache or <code>null</code> if caching isn't turned on
+     */
+    static TransformCache getDefault() {
+        String path = System.getProperty(PROPERTY);
+        if (path == null || path.isEmpty()) {
+            return null;
+        }
+        String v = version();
+        if (v == null) {
+            return null;
+        }
+        if (Boolean.getBoolean("org.netbeans.html.boot.indy")) { // NOI18N
+            v += "-indy"; // NOI18N
+        }
+        return new TransformCache(new File(path, v));
+    }
+
+    /** Version of the transformation. Computed from the bytecode of
+     * {@link FnUtils} and its member classes which perform it.
+     *
+     * @return the version or <code>null</code> if the bytecode cannot be found
+     */
+    private static synchronized String version() {
+        if (version == null) {
+            try {
+                MessageDigest md = MessageDigest.getInstance("SHA-1"); // NOI18N
+                digest(md, FnUtils.class);
+                version = "v" + hex(md.digest()); // NOI18N
+            } catch (IOException | NoSuchAlgorithmException ex) {
+                LOG.log(Level.WARNING, "Cannot compute version, not caching", ex);
+                return null;
+            }
+        }
+        return version;
+    }
+
+    private static void digest(MessageDigest md, Class<?> clazz) throws IOException {
+        String name = clazz.getName();
+        InputStream is = clazz.getResourceAsStream(name.substring(name.lastIndexOf('.') + 1) + ".class"); // NOI18N
+        if (is == null) {
+            throw new IOException("Cannot find bytecode of " + name);
+        }
+        md.update(FnUtils.readFully(is));
+        for (Class<?> inner : clazz.getDeclaredClasses()) {
+            digest(md, inner);
+        }
+    }
+
+    /** Transforms the bytecode or finds result of previous transformation
+     * of the same bytecode.
+     *
+     * @param bytecode the original bytecode
+     * @param loader loader to pass to {@link FnUtils#transform(byte[], java.lang.ClassLoader)}
+     * @return the transformed bytecode - memory mapped when found in the cache
+     */
+    ByteBuffer transform(byte[] bytecode, ClassLoader loader) {
+        File f;
+        try {
+            f = new File(dir, hash(bytecode) + ".class"); // NOI18N
+            ByteBuffer cached = read(f);
+            if (cached != null) {
+                return cached;
+            }
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, "Cannot read cache in " + dir, ex);
+            f = null;
+        }
+        byte[] arr = FnUtils.transform(bytecode, loader);
+        if (f != null) {
+            try {
+                write(f, arr);
+            } catch (IOException ex) {
+                LOG.log(Level.FINE, "Cannot write " + f, ex);
+            }
+        }
+        return ByteBuffer.wrap(arr);
+    }
+
+    /** Removes the cached transformation of given bytecode. Called when
+     * the cached bytes turn out to be unusable.
+     *
+     * @param bytecode the original bytecode
+     * @param why the reason for removal
+     */
+    void remove(byte[] bytecode, Throwable why) {
+        try {
+            File f = new File(dir, hash(bytecode) + ".class"); // NOI18N
+            LOG.log(Level.WARNING, "Removing broken " + f, why);
+            f.delete();
+        } catch (IOException ex) {
+            LOG.log(Level.FINE, "Cannot remove from cache in " + dir, ex);
+        }
+    }
+
+    static byte[] toArray(ByteBuffer bb) {
+        if (bb.hasArray() && bb.arrayOffset() == 0 && bb.array().length == bb.remaining()) {
+            return bb.array();
+        }
+        byte[] arr = new byte[bb.remaining()];
+        bb.duplicate().get(arr);
+        return arr;
+    }
+
+    private static ByteBuffer read(File f) throws IOException {
+        if (!f.isFile()) {
+            return null;
+        }
+        RandomAccessFile raf = new RandomAccessFile(f, "r"); // NOI18N
+        try {
+            FileChannel ch = raf.getChannel();
+            ByteBuffer bb = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (bb.remaining() < 4 || bb.getInt(0) != 0xCAFEBABE) {
+                LOG.log(Level.WARNING, "Ignoring broken {0}", f);
+                return null;
+            }
+            return bb;
+        } finally {
+            raf.close();
+        }
+    }
+
+    private void write(File f, byte[] arr) throws IOException {
+        if (!dir.isDirectory()) {
+            dir.mkdirs();
+        }
+        File tmp = new File(dir, f.getName() + '.' + Long.toHexString(System.nanoTime()) + Thread.currentThread().getId());
+        try {
+            FileOutputStream os = new FileOutputStream(tmp);
+            try {
+                os.write(arr);
+            } finally {
+                os.close();
+            }
+            Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            tmp.delete();
+        }
+    }
+
+    private static String hash(byte[] bytecode) throws IOException {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1").digest(bytecode); // NOI18N
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException(ex);
+        }
+        return hex(digest);
+    }
+
+    private static String hex(byte[] digest) {
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16));
+            sb.append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -23,12 +23,21 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.ConstantCallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.ref.WeakReference;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.Executor;
 import net.java.html.js.JavaScriptBody;
 import org.netbeans.html.boot.impl.FnContext;
@@ -39,6 +48,8 @@ import org.netbeans.html.boot.impl.FnContext;
  * @author Jaroslav Tulach
  */
 public abstract class Fn {
+    private static final Object MONITORS_LOCK = new Object();
+    private static volatile Observed[] monitors = new Observed[0];
     private final Ref presenter;
     
     /**
@@ -122,9 +133,17 @@ public abstract class Fn {
             } else {
                 arr = null;
             }
-            return ((KeepAlive)p).defineFn(code, names, arr);
+            return monitored(p, caller, code, ((KeepAlive)p).defineFn(code, names, arr));
         }
-        return p.defineFn(code, names);
+        return monitored(p, caller, code, p.defineFn(code, names));
+    }
+
+    private static Fn monitored(Presenter p, Class<?> caller, String code, Fn fn) {
+        Monitor m = monitor(p);
+        if (m == null || fn == null) {
+            return fn;
+        }
+        return new Monitored(p, fn, m, caller, code);
     }
     
     /** Wraps function to ensure that the script represented by <code>resource</code>
@@ -147,6 +166,42 @@ public abstract class Fn {
         return new Preload(fn.presenter(), fn, resource, caller);
     }
 
+    /** Bootstrap method for <code>invokedynamic</code> call sites of
+     * {@link JavaScriptBody} methods. Used by the bytecode transformer
+     * when the <code>org.netbeans.html.boot.indy</code> system property
+     * is set to <code>true</code>, not meant to be called directly.
+     * Each call site remembers functions {@link #define(java.lang.Class, boolean, java.lang.String, java.lang.String...) defined}
+     * for the last few presenters, so alternating between presenters
+     * doesn't define the function again and again.
+     *
+     * @param lookup lookup of the class with the {@link JavaScriptBody} method
+     * @param name ignored
+     * @param type type of the call site - no arguments returning {@link Fn}
+     * @param code the body of the function
+     * @param keepParametersAlive <code>1</code> if parameters should survive in JavaScript
+     * @param names comma separated names of parameters
+     * @param resources resources to {@link #preload(org.netbeans.html.boot.spi.Fn, java.lang.Class, java.lang.String) preload}
+     *   separated by new lines
+     * @return call site returning function for the active presenter or
+     *   <code>null</code> if there is no presenter
+     * @throws ReflectiveOperationException if the call site cannot be created
+     * @since 1.8
+     */
+    public static CallSite bootstrap(
+        MethodHandles.Lookup lookup, String name, MethodType type,
+        String code, int keepParametersAlive, String names, String resources
+    ) throws ReflectiveOperationException {
+        Site site = new Site(
+            lookup.lookupClass(), keepParametersAlive != 0, code,
+            names.isEmpty() ? new String[0] : names.split(","),
+            resources.isEmpty() ? new String[0] : resources.split("\n")
+        );
+        MethodHandle find = MethodHandles.lookup().findVirtual(
+            Site.class, "find", MethodType.methodType(Fn.class)
+        ).bindTo(site);
+        return new ConstantCallSite(find.asType(type));
+    }
+
     
     /** The currently active presenter.
      * 
@@ -178,6 +233,55 @@ public abstract class Fn {
         return FnContext.activate(p);
     }
 
+    /** Registers a monitor to observe calls between Java and JavaScript
+     * made via given presenter. Only functions {@link #define(java.lang.Class, java.lang.String, java.lang.String...) defined}
+     * after the registration are observed.
+     *
+     * @param p the presenter to observe
+     * @param monitor the monitor or <code>null</code> to stop observing
+     * @since 1.8
+     */
+    public static void monitor(Presenter p, Monitor monitor) {
+        synchronized (MONITORS_LOCK) {
+            Observed[] arr = monitors;
+            List<Observed> copy = new ArrayList<Observed>(arr.length + 1);
+            for (Observed o : arr) {
+                Presenter registered = o.get();
+                if (registered != null && registered != p) {
+                    copy.add(o);
+                }
+            }
+            if (monitor != null) {
+                copy.add(new Observed(p, monitor));
+            }
+            monitors = copy.toArray(new Observed[copy.size()]);
+        }
+    }
+
+    /** Finds a monitor {@link #monitor(org.netbeans.html.boot.spi.Fn.Presenter, org.netbeans.html.boot.spi.Fn.Monitor) registered}
+     * for given presenter. Presenters use it to report events that aren't
+     * visible to {@link Fn} - like calls from JavaScript to Java.
+     *
+     * @param p the presenter
+     * @return the monitor or <code>null</code> if the presenter isn't observed
+     * @since 1.8
+     */
+    public static Monitor monitor(Presenter p) {
+        if (p == null) {
+            return null;
+        }
+        final Observed[] arr = monitors;
+        if (arr.length == 0) {
+            return null;
+        }
+        for (Observed o : arr) {
+            if (o.get() == p) {
+                return o.monitor;
+            }
+        }
+        return null;
+    }
+
     /** Obtains a (usually {@linkplain WeakReference weak}) reference to
      * the presenter. Such reference is suitable for embedding in various long
      * living structures with a life-cycle that may outspan the one of presenter.
@@ -225,6 +329,58 @@ public abstract class Fn {
     public void invokeLater(Object thiz, Object... args) throws Exception {
         invoke(thiz, args);
     }
+
+    /** Invokes the function with up to four <code>double</code> arguments
+     * and a numeric result. Called instead of {@link #invoke(java.lang.Object, java.lang.Object...)}
+     * for {@link JavaScriptBody} methods whose parameters are all
+     * <code>double</code>, so presenters can pass the values without
+     * boxing them and allocating an array. The default implementation
+     * boxes the first <code>count</code> arguments and delegates to
+     * {@link #invoke(java.lang.Object, java.lang.Object...)}.
+     *
+     * @param thiz the meaning of <code>this</code> inside of the JavaScript
+     *   function - can be <code>null</code>
+     * @param count number of arguments to use - from <code>1</code> to <code>4</code>
+     * @param a0 first argument
+     * @param a1 second argument
+     * @param a2 third argument
+     * @param a3 fourth argument
+     * @return the numeric value returned from the function
+     * @throws Exception if something goes wrong, as exception may be thrown
+     * @since 1.8
+     */
+    public double invokeDouble(Object thiz, int count, double a0, double a1, double a2, double a3) throws Exception {
+        return ((Number) invoke(thiz, boxed(count, a0, a1, a2, a3))).doubleValue();
+    }
+
+    /** Invokes the function with up to four <code>double</code> arguments
+     * ignoring its result. Like {@link #invokeDouble(java.lang.Object, int, double, double, double, double)}
+     * but used for methods returning <code>void</code>.
+     *
+     * @param thiz the meaning of <code>this</code> inside of the JavaScript
+     *   function - can be <code>null</code>
+     * @param count number of arguments to use - from <code>1</code> to <code>4</code>
+     * @param a0 first argument
+     * @param a1 second argument
+     * @param a2 third argument
+     * @param a3 fourth argument
+     * @throws Exception if something goes wrong, as exception may be thrown
+     * @since 1.8
+     */
+    public void invokeVoid(Object thiz, int count, double a0, double a1, double a2, double a3) throws Exception {
+        invoke(thiz, boxed(count, a0, a1, a2, a3));
+    }
+
+    private static Object[] boxed(int count, double a0, double a1, double a2, double a3) {
+        Object[] args = new Object[count];
+        switch (count) {
+            case 4: args[3] = a3;
+            case 3: args[2] = a2;
+            case 2: args[1] = a1;
+            case 1: args[0] = a0;
+        }
+        return args;
+    }
     
     /** Provides the function implementation access to the presenter provided
      * in {@link #Fn(org.netbeans.html.boot.spi.Fn.Presenter) the constructor}.
@@ -395,6 +551,325 @@ public abstract class Fn {
         public boolean equals(Object obj);
     }
 
+    /** Observer of calls crossing between Java and JavaScript.
+     * {@link #monitor(org.netbeans.html.boot.spi.Fn.Presenter, org.netbeans.html.boot.spi.Fn.Monitor) Register}
+     * it for a presenter to get notified. The methods are called on the
+     * thread making the call and shall be fast. All of them do nothing
+     * by default. {@link Statistics} is an implementation collecting
+     * counts and durations of the calls.
+     *
+     * @since 1.8
+     */
+    public static abstract class Monitor {
+        /** Constructor for subclasses.
+         */
+        protected Monitor() {
+        }
+
+        /** A function {@link #define(java.lang.Class, java.lang.String, java.lang.String...) defined}
+         * by <code>caller</code> has been invoked.
+         *
+         * @param caller the class that defined the function - usually the one
+         *   with the {@link JavaScriptBody} method
+         * @param code body of the function
+         * @param later <code>true</code> if {@link #invokeLater(java.lang.Object, java.lang.Object...)}
+         *   has been used
+         * @param nanos how long the invocation took
+         */
+        public void invoked(Class<?> caller, String code, boolean later, long nanos) {
+        }
+
+        /** A script {@link #preload(org.netbeans.html.boot.spi.Fn, java.lang.Class, java.lang.String) resource}
+         * has been loaded into the presenter.
+         *
+         * @param caller the class requesting the script
+         * @param resource the name of the resource
+         * @param nanos how long the loading took
+         */
+        public void loaded(Class<?> caller, String resource, long nanos) {
+        }
+
+        /** JavaScript has called a Java method. Reported by presenters
+         * able to observe such calls.
+         *
+         * @param method identification of the called method
+         * @param nanos how long the Java method was running
+         */
+        public void calledBack(String method, long nanos) {
+        }
+
+        /** Calls deferred by the presenter have been sent to JavaScript
+         * at once. Reported by presenters that batch their calls.
+         *
+         * @param calls number of calls in the batch
+         * @param size length of the sent script
+         */
+        public void flushed(int calls, int size) {
+        }
+    }
+
+    /** Management interface of {@link Statistics}. Suitable for registration
+     * into a platform MBean server.
+     *
+     * @since 1.8
+     */
+    public interface StatisticsMXBean {
+        /** @return number of {@link #invoke(java.lang.Object, java.lang.Object...) synchronous calls} */
+        public long getInvocations();
+        /** @return number of {@link #invokeLater(java.lang.Object, java.lang.Object...) asynchronous calls} */
+        public long getLaterInvocations();
+        /** @return number of calls from JavaScript to Java */
+        public long getCallbacks();
+        /** @return number of loaded script resources */
+        public long getLoadedScripts();
+        /** @return number of batches of deferred calls */
+        public long getFlushes();
+        /** @return number of deferred calls in all the batches */
+        public long getFlushedCalls();
+        /** @return histogram of durations of synchronous calls. Element
+         *   <code>i</code> counts calls that took less than
+         *   2<sup>i</sup> microseconds, but not less than the previous limit */
+        public long[] getLatencyHistogram();
+        /** @return number of calls per function - keyed by name of the
+         *   defining class and beginning of the function's body */
+        public Map<String, Long> getFunctionCalls();
+        /** @return time in nanoseconds spent per function */
+        public Map<String, Long> getFunctionNanos();
+        /** @return number of calls per Java method called from JavaScript */
+        public Map<String, Long> getCallbackCalls();
+        /** Starts counting from zero again. */
+        public void reset();
+    }
+
+    /** {@link Monitor} collecting counts and durations of calls. Register it
+     * for a presenter and later inspect the values:
+     * <pre>
+     * Fn.Statistics stats = new Fn.Statistics();
+     * Fn.{@link #monitor(org.netbeans.html.boot.spi.Fn.Presenter, org.netbeans.html.boot.spi.Fn.Monitor) monitor}(presenter, stats);
+     * // run the application
+     * System.err.println(stats);
+     * </pre>
+     * The statistics can also be exposed via JMX as an {@link StatisticsMXBean MXBean}.
+     *
+     * @since 1.8
+     */
+    public static final class Statistics extends Monitor implements StatisticsMXBean {
+        private static final int BUCKETS = 32;
+        private final long[] histogram = new long[BUCKETS];
+        private final Map<String, long[]> functions = new HashMap<String, long[]>();
+        private final Map<String, long[]> callbacks = new HashMap<String, long[]>();
+        private long invocations;
+        private long laterInvocations;
+        private long callbackCount;
+        private long loadedScripts;
+        private long flushes;
+        private long flushedCalls;
+
+        /** Creates empty statistics.
+         */
+        public Statistics() {
+        }
+
+        @Override
+        public synchronized void invoked(Class<?> caller, String code, boolean later, long nanos) {
+            if (later) {
+                laterInvocations++;
+            } else {
+                invocations++;
+                int bucket = 64 - Long.numberOfLeadingZeros(nanos / 1000);
+                histogram[Math.min(bucket, BUCKETS - 1)]++;
+            }
+            count(functions, key(caller, code), nanos);
+        }
+
+        @Override
+        public synchronized void loaded(Class<?> caller, String resource, long nanos) {
+            loadedScripts++;
+        }
+
+        @Override
+        public synchronized void calledBack(String method, long nanos) {
+            callbackCount++;
+            count(callbacks, method, nanos);
+        }
+
+        @Override
+        public synchronized void flushed(int calls, int size) {
+            flushes++;
+            flushedCalls += calls;
+        }
+
+        @Override
+        public synchronized long getInvocations() {
+            return invocations;
+        }
+
+        @Override
+        public synchronized long getLaterInvocations() {
+            return laterInvocations;
+        }
+
+        @Override
+        public synchronized long getCallbacks() {
+            return callbackCount;
+        }
+
+        @Override
+        public synchronized long getLoadedScripts() {
+            return loadedScripts;
+        }
+
+        @Override
+        public synchronized long getFlushes() {
+            return flushes;
+        }
+
+        @Override
+        public synchronized long getFlushedCalls() {
+            return flushedCalls;
+        }
+
+        @Override
+        public synchronized long[] getLatencyHistogram() {
+            return histogram.clone();
+        }
+
+        @Override
+        public Map<String, Long> getFunctionCalls() {
+            return values(functions, 0);
+        }
+
+        @Override
+        public Map<String, Long> getFunctionNanos() {
+            return values(functions, 1);
+        }
+
+        @Override
+        public Map<String, Long> getCallbackCalls() {
+            return values(callbacks, 0);
+        }
+
+        @Override
+        public synchronized void reset() {
+            Arrays.fill(histogram, 0L);
+            functions.clear();
+            callbacks.clear();
+            invocations = 0;
+            laterInvocations = 0;
+            callbackCount = 0;
+            loadedScripts = 0;
+            flushes = 0;
+            flushedCalls = 0;
+        }
+
+        @Override
+        public synchronized String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("invocations: ").append(invocations).append('\n');
+            sb.append("later invocations: ").append(laterInvocations).append('\n');
+            sb.append("callbacks: ").append(callbackCount).append('\n');
+            sb.append("loaded scripts: ").append(loadedScripts).append('\n');
+            sb.append("flushes: ").append(flushes).append(" with ").append(flushedCalls).append(" calls\n");
+            for (Map.Entry<String, long[]> e : functions.entrySet()) {
+                sb.append("  ").append(e.getValue()[0]).append("x ").append(e.getValue()[1] / 1000).append(" us ").append(e.getKey()).append('\n');
+            }
+            return sb.toString();
+        }
+
+        private static void count(Map<String, long[]> map, String key, long nanos) {
+            long[] arr = map.get(key);
+            if (arr == null) {
+                arr = new long[2];
+                map.put(key, arr);
+            }
+            arr[0]++;
+            arr[1] += nanos;
+        }
+
+        private synchronized Map<String, Long> values(Map<String, long[]> map, int index) {
+            Map<String, Long> ret = new TreeMap<String, Long>();
+            for (Map.Entry<String, long[]> e : map.entrySet()) {
+                ret.put(e.getKey(), e.getValue()[index]);
+            }
+            return ret;
+        }
+
+        private static String key(Class<?> caller, String code) {
+            String body = code.trim().replaceAll("\\s+", " ");
+            if (body.length() > 60) {
+                body = body.substring(0, 60) + "...";
+            }
+            return (caller == null ? "" : caller.getName()) + ": " + body;
+        }
+    }
+
+    /** Copy-on-write entry of {@link #monitors} array, so {@link #monitor(org.netbeans.html.boot.spi.Fn.Presenter)}
+     * needs no lock.
+     */
+    private static final class Observed extends WeakReference<Presenter> {
+        final Monitor monitor;
+
+        Observed(Presenter p, Monitor monitor) {
+            super(p);
+            this.monitor = monitor;
+        }
+    }
+
+    private static final class Monitored extends Fn {
+        private final Fn fn;
+        private final Monitor monitor;
+        private final Class<?> caller;
+        private final String code;
+
+        Monitored(Presenter presenter, Fn fn, Monitor monitor, Class<?> caller, String code) {
+            super(presenter);
+            this.fn = fn;
+            this.monitor = monitor;
+            this.caller = caller;
+            this.code = code;
+        }
+
+        @Override
+        public Object invoke(Object thiz, Object... args) throws Exception {
+            long now = System.nanoTime();
+            try {
+                return fn.invoke(thiz, args);
+            } finally {
+                monitor.invoked(caller, code, false, System.nanoTime() - now);
+            }
+        }
+
+        @Override
+        public void invokeLater(Object thiz, Object... args) throws Exception {
+            long now = System.nanoTime();
+            try {
+                fn.invokeLater(thiz, args);
+            } finally {
+                monitor.invoked(caller, code, true, System.nanoTime() - now);
+            }
+        }
+
+        @Override
+        public double invokeDouble(Object thiz, int count, double a0, double a1, double a2, double a3) throws Exception {
+            long now = System.nanoTime();
+            try {
+                return fn.invokeDouble(thiz, count, a0, a1, a2, a3);
+            } finally {
+                monitor.invoked(caller, code, false, System.nanoTime() - now);
+            }
+        }
+
+        @Override
+        public void invokeVoid(Object thiz, int count, double a0, double a1, double a2, double a3) throws Exception {
+            long now = System.nanoTime();
+            try {
+                fn.invokeVoid(thiz, count, a0, a1, a2, a3);
+            } finally {
+                monitor.invoked(caller, code, false, System.nanoTime() - now);
+            }
+        }
+    }
+
     private static class Preload extends Fn {
         private static Map<String, Set<Ref>> LOADED;
         private final Fn fn;
@@ -420,6 +895,18 @@ public abstract class Fn {
             fn.invokeLater(thiz, args);
         }
 
+        @Override
+        public double invokeDouble(Object thiz, int count, double a0, double a1, double a2, double a3) throws Exception {
+            loadResource();
+            return fn.invokeDouble(thiz, count, a0, a1, a2, a3);
+        }
+
+        @Override
+        public void invokeVoid(Object thiz, int count, double a0, double a1, double a2, double a3) throws Exception {
+            loadResource();
+            fn.invokeVoid(thiz, count, a0, a1, a2, a3);
+        }
+
         private void loadResource() throws Exception {
             Ref id = super.presenter;
             if (id == null) {
@@ -444,15 +931,71 @@ public abstract class Fn {
                     if (is == null) {
                         throw new IOException("Cannot find " + resource + " in " + l);
                     }
+                    Monitor m = monitor(realPresenter);
+                    long now = m == null ? 0L : System.nanoTime();
                     try {
                         InputStreamReader r = new InputStreamReader(is, "UTF-8");
                         realPresenter.loadScript(r);
                     } finally {
                         is.close();
                     }
+                    if (m != null) {
+                        m.loaded(caller, resource, System.nanoTime() - now);
+                    }
                 }
             }
         }
     }
 
+    private static final class Site {
+        private static final int SIZE = 4;
+        private final Class<?> caller;
+        private final boolean keepAlive;
+        private final String code;
+        private final String[] names;
+        private final String[] resources;
+        private volatile Fn[] cache = new Fn[0];
+
+        Site(Class<?> caller, boolean keepAlive, String code, String[] names, String[] resources) {
+            this.caller = caller;
+            this.keepAlive = keepAlive;
+            this.code = code;
+            this.names = names;
+            this.resources = resources;
+        }
+
+        Fn find() {
+            Presenter p = FnContext.currentPresenter(false);
+            if (p == null) {
+                return null;
+            }
+            for (Fn fn : cache) {
+                if (fn.presenter() == p) {
+                    return fn;
+                }
+            }
+            return define(p);
+        }
+
+        private synchronized Fn define(Presenter p) {
+            Fn[] arr = cache;
+            for (Fn fn : arr) {
+                if (fn.presenter() == p) {
+                    return fn;
+                }
+            }
+            Fn fn = Fn.define(caller, keepAlive, code, names);
+            if (fn == null) {
+                return null;
+            }
+            for (int i = resources.length; i > 0;) {
+                fn = preload(fn, caller, resources[--i]);
+            }
+            Fn[] newArr = new Fn[Math.min(arr.length + 1, SIZE)];
+            newArr[0] = fn;
+            System.arraycopy(arr, 0, newArr, 1, newArr.length - 1);
+            cache = newArr;
+            return fn;
+        }
+    }
 }
@@ -0,0 +1,159 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.boot.impl;
+
+import java.io.Closeable;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collection;
+import net.java.html.js.JavaScriptBody;
+import org.netbeans.html.boot.spi.Fn;
+import static org.testng.Assert.assertEquals;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DoubleCallTest {
+    private Class<?> clazz;
+
+    @JavaScriptBody(args = { "a", "b" }, body = "return a * b;")
+    public static native double mul(double a, double b);
+
+    @JavaScriptBody(args = { "a", "b", "c" }, body = "return a + b + c;")
+    public static native int sum(double a, double b, double c);
+
+    @JavaScriptBody(args = { "x" }, body = "this.x = x;")
+    public native void set(double x);
+
+    @JavaScriptBody(args = { "a", "b" }, body = "return a + b;")
+    public static native int mixed(int a, double b);
+
+    @JavaScriptBody(args = {}, body = "return 42;")
+    public static native double answer();
+
+    @BeforeMethod
+    public void loadClass() throws Exception {
+        class Res implements FindResources {
+            @Override
+            public void findResources(String path, Collection<? super URL> results, boolean oneIsEnough) {
+                URL u = DoubleCallTest.class.getClassLoader().getResource(path);
+                if (u != null) {
+                    results.add(u);
+                }
+            }
+        }
+        ClassLoader l = FnUtils.newLoader(new Res(), null, DoubleCallTest.class.getClassLoader().getParent());
+        clazz = l.loadClass(DoubleCallTest.class.getName());
+    }
+
+    @Test public void specializedCalls() throws Exception {
+        Specialized p = new Specialized();
+        assertEquals(call(p, null, "mul", 3.0, 4.0), 12.0);
+        assertEquals(p.log, "invokeDouble(null, 2, 3.0, 4.0, 0.0, 0.0)");
+
+        assertEquals(call(p, null, "sum", 1.0, 2.0, 3.5), 6);
+        assertEquals(p.log, "invokeDouble(null, 3, 1.0, 2.0, 3.5, 0.0)");
+
+        java.lang.Object inst = clazz.newInstance();
+        call(p, inst, "set", 7.0);
+        assertEquals(p.log, "invokeVoid(" + inst + ", 1, 7.0, 0.0, 0.0, 0.0)");
+
+        assertEquals(call(p, null, "mixed", 1, 2.0), 3);
+        assertEquals(p.log, "invoke(null, [1, 2.0])", "Boxed for other than double parameters");
+
+        assertEquals(call(p, null, "answer"), 0.0);
+        assertEquals(p.log, "invoke(null, [])", "No specialization without parameters");
+    }
+
+    @Test public void boxedByDefault() throws Exception {
+        Boxing p = new Boxing();
+        assertEquals(call(p, null, "mul", 3.0, 4.0), 12.0);
+        assertEquals(p.log, "invoke(null, [3.0, 4.0])");
+
+        assertEquals(call(p, null, "sum", 1.0, 2.0, 3.5), 6);
+        assertEquals(p.log, "invoke(null, [1.0, 2.0, 3.5])");
+    }
+
+    private java.lang.Object call(Fn.Presenter p, java.lang.Object thiz, String name, java.lang.Object... args) throws Exception {
+        Method m = null;
+        for (Method c : clazz.getMethods()) {
+            if (c.getName().equals(name)) {
+                m = c;
+            }
+        }
+        Closeable c = Fn.activate(p);
+        try {
+            return m.invoke(thiz, args);
+        } finally {
+            c.close();
+        }
+    }
+
+    private static class Boxing implements Fn.Presenter {
+        String log;
+
+        @Override
+        public Fn defineFn(String code, String... names) {
+            return new Fn(this) {
+                @Override
+                public java.lang.Object invoke(java.lang.Object thiz, java.lang.Object... args) throws Exception {
+                    log = "invoke(" + thiz + ", " + Arrays.toString(args) + ")";
+                    double sum = 0;
+                    for (java.lang.Object a : args) {
+                        sum += ((Number) a).doubleValue();
+                    }
+                    return args.length == 2 && args[0] instanceof Double ? (Double) args[0] * (Double) args[1] : sum;
+                }
+            };
+        }
+
+        @Override
+        public void displayPage(URL page, Runnable onPageLoad) {
+        }
+
+        @Override
+        public void loadScript(Reader code) throws Exception {
+        }
+    }
+
+    private static final class Specialized extends Boxing {
+        @Override
+        public Fn defineFn(String code, String... names) {
+            final Fn boxing = super.defineFn(code, names);
+            return new Fn(this) {
+                @Override
+                public java.lang.Object invoke(java.lang.Object thiz, java.lang.Object... args) throws Exception {
+                    return boxing.invoke(thiz, args);
+                }
+
+                @Override
+                public double invokeDouble(java.lang.Object thiz, int count, double a0, double a1, double a2, double a3) throws Exception {
+                    log = "invokeDouble(" + thiz + ", " + count + ", " + a0 + ", " + a1 + ", " + a2 + ", " + a3 + ")";
+                    return count == 2 ? a0 * a1 : a0 + a1 + a2 + a3;
+                }
+
+                @Override
+                public void invokeVoid(java.lang.Object thiz, int count, double a0, double a1, double a2, double a3) throws Exception {
+                    log = "invokeVoid(" + thiz + ", " + count + ", " + a0 + ", " + a1 + ", " + a2 + ", " + a3 + ")";
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.boot.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Enumeration;
+import net.java.html.js.JavaScriptBody;
+import net.java.html.js.JavaScriptResource;
+import org.netbeans.html.boot.spi.Fn;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.fail;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+@JavaScriptResource("empty.js")
+public class IndyTest {
+    private static Class<?> clazz;
+
+    @JavaScriptBody(args = { "a", "b" }, body = "return a + b;")
+    public static native int sum(int a, int b);
+
+    @BeforeClass
+    public static void loadWithIndy() throws Exception {
+        class Res implements FindResources {
+            @Override
+            public void findResources(String path, Collection<? super URL> results, boolean oneIsEnough) {
+                try {
+                    ClassLoader l = IndyTest.class.getClassLoader();
+                    Enumeration<URL> en = l.getResources(path);
+                    while (en.hasMoreElements()) {
+                        results.add(en.nextElement());
+                    }
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        }
+        System.setProperty("org.netbeans.html.boot.indy", "true");
+        try {
+            ClassLoader l = FnUtils.newLoader(new Res(), null, IndyTest.class.getClassLoader().getParent());
+            clazz = l.loadClass(IndyTest.class.getName());
+            clazz.getMethod("sum", int.class, int.class);
+        } finally {
+            System.clearProperty("org.netbeans.html.boot.indy");
+        }
+    }
+
+    @AfterClass
+    public static void cleanUp() {
+        clazz = null;
+    }
+
+    @Test public void noStaticField() {
+        for (Field f : clazz.getDeclaredFields()) {
+            assertFalse(f.getName().startsWith("$$fn$$"), "No field for the function: " + f);
+        }
+    }
+
+    @Test public void functionDefinedOncePerPresenter() throws Exception {
+        Method m = clazz.getMethod("sum", int.class, int.class);
+        CountingPresenter first = new CountingPresenter();
+        CountingPresenter second = new CountingPresenter();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(invoke(first, m, i), 2 * i + 1);
+            assertEquals(invoke(second, m, i), 2 * i + 1);
+        }
+        assertEquals(first.defined, 1, "Defined once for first presenter");
+        assertEquals(second.defined, 1, "Defined once for second presenter");
+        assertEquals(first.loaded, 1, "Resource loaded once into first presenter");
+        assertEquals(second.loaded, 1, "Resource loaded once into second presenter");
+    }
+
+    @Test public void failsWithoutPresenter() throws Exception {
+        Method m = clazz.getMethod("sum", int.class, int.class);
+        Closeable c = FnContext.activate(null);
+        try {
+            m.invoke(null, 1, 2);
+            fail("Should fail without presenter");
+        } catch (InvocationTargetException ex) {
+            assertEquals(ex.getCause().getClass(), IllegalStateException.class);
+        } finally {
+            c.close();
+        }
+    }
+
+    private static java.lang.Object invoke(Fn.Presenter p, Method m, int i) throws Exception {
+        Closeable c = Fn.activate(p);
+        try {
+            return m.invoke(null, i, i + 1);
+        } finally {
+            c.close();
+        }
+    }
+
+    private static final class CountingPresenter implements Fn.Presenter {
+        int defined;
+        int loaded;
+
+        @Override
+        public Fn defineFn(String code, String... names) {
+            defined++;
+            assertEquals(names.length, 2, "Two arguments");
+            return new Fn(this) {
+                @Override
+                public java.lang.Object invoke(java.lang.Object thiz, java.lang.Object... args) throws Exception {
+                    return (Integer) args[0] + (Integer) args[1];
+                }
+            };
+        }
+
+        @Override
+        public void displayPage(URL page, Runnable onPageLoad) {
+        }
+
+        @Override
+        public void loadScript(Reader code) throws Exception {
+            loaded++;
+        }
+    }
+}
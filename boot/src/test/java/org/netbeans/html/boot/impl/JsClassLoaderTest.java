@@ -31,9 +31,11 @@ import javax.script.Invocable;
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 import org.netbeans.html.boot.spi.Fn;
+import static org.testng.Assert.assertSame;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
 
 /**
  *
@@ -134,6 +136,13 @@ public class JsClassLoaderTest extends JsClassLoaderBase{
         FnContext.currentPresenter(loader);
     }
 
+    @Test public void monitoringClassesAreShared() throws Exception {
+        ClassLoader l = (ClassLoader) loader;
+        assertSame(l.loadClass(Fn.Monitor.class.getName()), Fn.Monitor.class);
+        assertSame(l.loadClass(Fn.Statistics.class.getName()), Fn.Statistics.class);
+        assertSame(l.loadClass(Fn.StatisticsMXBean.class.getName()), Fn.StatisticsMXBean.class);
+    }
+
     @AfterClass
     public static void cleanUp() {
         methodClass = null;
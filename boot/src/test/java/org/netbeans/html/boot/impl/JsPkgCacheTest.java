@@ -0,0 +1,60 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.boot.impl;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+public class JsPkgCacheTest {
+    @Test public void allLineSeparators() throws Exception {
+        File dir = Files.createTempDirectory("jspkgcache").toFile();
+        File pkg = new File(new File(dir, "x"), "y");
+        pkg.mkdirs();
+        File list = new File(pkg, "net.java.html.js.classes");
+        FileOutputStream os = new FileOutputStream(list);
+        os.write("x.y.Unix\nx.y.Mac\rx.y.Windows\r\nx.y.Last".getBytes("UTF-8"));
+        os.close();
+
+        ClassLoader l = new URLClassLoader(new URL[] { dir.toURI().toURL() }, null);
+        assertTrue(JsPkgCache.process(l, "x.y.Unix"));
+        assertTrue(JsPkgCache.process(l, "x.y.Mac"));
+        assertTrue(JsPkgCache.process(l, "x.y.Windows"));
+        assertTrue(JsPkgCache.process(l, "x.y.Last"));
+        assertFalse(JsPkgCache.process(l, "x.y.Other"));
+        assertFalse(JsPkgCache.process(l, "x.y.Mac\rx.y.Windows"));
+
+        delete(dir);
+    }
+
+    private static void delete(File f) {
+        File[] children = f.listFiles();
+        if (children != null) {
+            for (File c : children) {
+                delete(c);
+            }
+        }
+        f.delete();
+    }
+}
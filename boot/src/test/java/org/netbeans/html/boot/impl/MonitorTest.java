@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.boot.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Map;
+import net.java.html.js.JavaScriptBody;
+import net.java.html.js.JavaScriptResource;
+import org.netbeans.html.boot.spi.Fn;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+@JavaScriptResource("empty.js")
+public class MonitorTest implements Fn.Presenter {
+    @JavaScriptBody(args = { "a" }, body = "return a;")
+    public static native int identity(int a);
+
+    @Test public void callsAreCounted() throws Exception {
+        class Res implements FindResources {
+            @Override
+            public void findResources(String path, Collection<? super URL> results, boolean oneIsEnough) {
+                try {
+                    ClassLoader l = MonitorTest.class.getClassLoader();
+                    Enumeration<URL> en = l.getResources(path);
+                    while (en.hasMoreElements()) {
+                        results.add(en.nextElement());
+                    }
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        }
+        Fn.Statistics stats = new Fn.Statistics();
+        Fn.monitor(this, stats);
+        assertSame(Fn.monitor(this), stats);
+
+        ClassLoader l = FnUtils.newLoader(new Res(), this, MonitorTest.class.getClassLoader().getParent());
+        Method m = l.loadClass(MonitorTest.class.getName()).getMethod("identity", int.class);
+        Closeable c = Fn.activate(this);
+        try {
+            assertEquals(m.invoke(null, 42), 42);
+            assertEquals(m.invoke(null, 43), 43);
+        } finally {
+            c.close();
+        }
+
+        assertEquals(stats.getInvocations(), 2);
+        assertEquals(stats.getLaterInvocations(), 0);
+        assertEquals(stats.getLoadedScripts(), 1, "empty.js loaded");
+        long sum = 0;
+        for (long cnt : stats.getLatencyHistogram()) {
+            sum += cnt;
+        }
+        assertEquals(sum, 2, "Both calls in the histogram");
+        Map<String, Long> calls = stats.getFunctionCalls();
+        assertEquals(calls.size(), 1, "One function: " + calls);
+        String key = calls.keySet().iterator().next();
+        assertTrue(key.startsWith(MonitorTest.class.getName()), key);
+        assertTrue(key.endsWith("return a;"), key);
+        assertEquals(calls.get(key), Long.valueOf(2));
+
+        stats.reset();
+        assertEquals(stats.getInvocations(), 0);
+        Fn.monitor(this, null);
+        assertNull(Fn.monitor(this));
+    }
+
+    @Test public void monitorsOfPresentersAreIndependent() {
+        MonitorTest other = new MonitorTest();
+        Fn.Statistics first = new Fn.Statistics();
+        Fn.Statistics second = new Fn.Statistics();
+        Fn.Statistics replaced = new Fn.Statistics();
+        Fn.monitor(this, first);
+        Fn.monitor(other, second);
+        assertSame(Fn.monitor(this), first);
+        assertSame(Fn.monitor(other), second);
+
+        Fn.monitor(this, replaced);
+        assertSame(Fn.monitor(this), replaced, "Registration replaced");
+        assertSame(Fn.monitor(other), second);
+
+        Fn.monitor(this, null);
+        assertNull(Fn.monitor(this));
+        assertSame(Fn.monitor(other), second, "Other presenter still observed");
+        Fn.monitor(other, null);
+        assertNull(Fn.monitor(other));
+        assertNull(Fn.monitor(null));
+    }
+
+    @Override
+    public Fn defineFn(String code, String... names) {
+        return new Identity(this);
+    }
+
+    @Override
+    public void displayPage(URL page, Runnable onPageLoad) {
+    }
+
+    @Override
+    public void loadScript(Reader code) throws Exception {
+    }
+
+    private static final class Identity extends Fn {
+        Identity(Presenter presenter) {
+            super(presenter);
+        }
+
+        @Override
+        public java.lang.Object invoke(java.lang.Object thiz, java.lang.Object... args) throws Exception {
+            return args[0];
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.boot.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+public class ParallelLoadingTest {
+    @Test public void differentClassesLoadConcurrently() throws Exception {
+        final CountDownLatch firstLoading = new CountDownLatch(1);
+        final CountDownLatch secondLoaded = new CountDownLatch(1);
+        final boolean[] waited = { false };
+        class Res implements FindResources {
+            @Override
+            public void findResources(String path, Collection<? super URL> results, boolean oneIsEnough) {
+                try {
+                    if (path.endsWith("ParallelLoadingTest$First.class")) {
+                        firstLoading.countDown();
+                        waited[0] = secondLoaded.await(10, TimeUnit.SECONDS);
+                    }
+                    Enumeration<URL> en = ParallelLoadingTest.class.getClassLoader().getResources(path);
+                    while (en.hasMoreElements()) {
+                        results.add(en.nextElement());
+                    }
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                } catch (InterruptedException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        }
+        final ClassLoader l = FnUtils.newLoader(new Res(), null, ParallelLoadingTest.class.getClassLoader().getParent());
+        ExecutorService exec = Executors.newSingleThreadExecutor();
+        try {
+            Future<Class<?>> first = exec.submit(() -> l.loadClass(First.class.getName()));
+            assertTrue(firstLoading.await(10, TimeUnit.SECONDS), "Loading of first class started");
+            Class<?> second = l.loadClass(Second.class.getName());
+            secondLoaded.countDown();
+            assertEquals(first.get(20, TimeUnit.SECONDS).getClassLoader(), l);
+            assertEquals(second.getClassLoader(), l);
+            assertNotSame(second, Second.class);
+            assertTrue(waited[0], "Second class was loaded while the first one was being loaded");
+        } finally {
+            exec.shutdown();
+        }
+    }
+
+    @Test public void readsStreamsThatDontReportAvailableBytes() throws IOException {
+        final int size = 10000;
+        InputStream is = new InputStream() {
+            int at;
+
+            @Override
+            public int read() {
+                return at < size ? (at++ % 100) : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (at == size) {
+                    return -1;
+                }
+                b[off] = (byte) read();
+                return 1;
+            }
+
+            @Override
+            public int available() {
+                return 0;
+            }
+        };
+        byte[] arr = FnUtils.readFully(is);
+        assertEquals(arr.length, size);
+        for (int i = 0; i < size; i++) {
+            assertEquals(arr[i], i % 100, "Byte at " + i);
+        }
+    }
+
+    public static final class First {
+    }
+
+    public static final class Second {
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.boot.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import net.java.html.js.JavaScriptBody;
+import org.netbeans.html.boot.spi.Fn;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.fail;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TransformCacheTest {
+    private File dir;
+
+    @JavaScriptBody(args = { "a", "b" }, body = "return a + b;")
+    public static native int sum(int a, int b);
+
+    @BeforeMethod
+    public void createCache() throws IOException {
+        dir = Files.createTempDirectory("transformcache").toFile();
+        System.setProperty(TransformCache.PROPERTY, dir.getPath());
+    }
+
+    @AfterMethod
+    public void deleteCache() {
+        System.clearProperty(TransformCache.PROPERTY);
+        delete(dir);
+    }
+
+    @Test public void transformedClassIsStoredAndReused() throws Exception {
+        Method first = load().getMethod("sum", int.class, int.class);
+        assertEquals(invoke(first), 3);
+
+        byte[] original = read(TransformCacheTest.class.getResourceAsStream("TransformCacheTest.class"));
+        byte[] transformed = FnUtils.transform(original, first.getDeclaringClass().getClassLoader());
+        File cached = findCached(transformed);
+        assertNotNull(cached, "Transformed bytecode found in " + Arrays.toString(versionDir().list()));
+
+        Method second = load().getMethod("sum", int.class, int.class);
+        assertEquals(invoke(second), 3, "Class from cache works");
+
+        FileOutputStream os = new FileOutputStream(cached);
+        os.write(original);
+        os.close();
+        Method third = load().getMethod("sum", int.class, int.class);
+        try {
+            invoke(third);
+            fail("Untransformed bytes are read from the cache");
+        } catch (InvocationTargetException ex) {
+            assertEquals(ex.getCause().getClass(), UnsatisfiedLinkError.class);
+        }
+    }
+
+    @Test public void brokenEntryIsTransformedAgain() throws Exception {
+        Method first = load().getMethod("sum", int.class, int.class);
+        assertEquals(invoke(first), 3);
+
+        byte[] original = read(TransformCacheTest.class.getResourceAsStream("TransformCacheTest.class"));
+        byte[] transformed = FnUtils.transform(original, first.getDeclaringClass().getClassLoader());
+        File cached = findCached(transformed);
+        assertNotNull(cached, "Transformed bytecode found in " + Arrays.toString(versionDir().list()));
+
+        FileOutputStream os = new FileOutputStream(cached);
+        os.write(transformed, 0, 16);
+        os.close();
+
+        Method second = load().getMethod("sum", int.class, int.class);
+        assertEquals(invoke(second), 3, "Truncated entry is replaced by transformed class");
+        assertEquals(read(new FileInputStream(cached)), transformed, "Cache entry is fixed");
+    }
+
+    @Test public void versionIsDerivedFromTransformation() throws Exception {
+        load();
+        String name = versionDir().getName();
+        assertEquals(name.length(), 41, "v followed by SHA-1 of the transformer: " + name);
+    }
+
+    private File versionDir() {
+        File[] versions = dir.listFiles();
+        assertNotNull(versions);
+        assertEquals(versions.length, 1, "One version: " + Arrays.toString(versions));
+        return versions[0];
+    }
+
+    private File findCached(byte[] content) throws IOException {
+        for (File f : versionDir().listFiles()) {
+            if (Arrays.equals(read(new FileInputStream(f)), content)) {
+                return f;
+            }
+        }
+        return null;
+    }
+
+    private static Class<?> load() throws ClassNotFoundException {
+        class Res implements FindResources {
+            @Override
+            public void findResources(String path, Collection<? super URL> results, boolean oneIsEnough) {
+                try {
+                    ClassLoader l = TransformCacheTest.class.getClassLoader();
+                    Enumeration<URL> en = l.getResources(path);
+                    while (en.hasMoreElements()) {
+                        results.add(en.nextElement());
+                    }
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        }
+        ClassLoader l = FnUtils.newLoader(new Res(), null, TransformCacheTest.class.getClassLoader().getParent());
+        return l.loadClass(TransformCacheTest.class.getName());
+    }
+
+    private static java.lang.Object invoke(Method m) throws Exception {
+        Closeable c = Fn.activate(new SumPresenter());
+        try {
+            return m.invoke(null, 1, 2);
+        } finally {
+            c.close();
+        }
+    }
+
+    private static byte[] read(InputStream is) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        byte[] arr = new byte[4096];
+        for (;;) {
+            int len = is.read(arr);
+            if (len == -1) {
+                break;
+            }
+            os.write(arr, 0, len);
+        }
+        is.close();
+        return os.toByteArray();
+    }
+
+    private static void delete(File f) {
+        File[] children = f.listFiles();
+        if (children != null) {
+            for (File c : children) {
+                delete(c);
+            }
+        }
+        f.delete();
+    }
+
+    private static final class SumPresenter implements Fn.Presenter {
+        @Override
+        public Fn defineFn(String code, String... names) {
+            return new Fn(this) {
+                @Override
+                public java.lang.Object invoke(java.lang.Object thiz, java.lang.Object... args) throws Exception {
+                    return (Integer) args[0] + (Integer) args[1];
+                }
+            };
+        }
+
+        @Override
+        public void displayPage(URL page, Runnable onPageLoad) {
+        }
+
+        @Override
+        public void loadScript(Reader code) throws Exception {
+        }
+    }
+}
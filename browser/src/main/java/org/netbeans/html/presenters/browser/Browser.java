@@ -35,17 +35,24 @@ import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLDecoder;
 import java.nio.file.Files;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
 import org.netbeans.html.boot.spi.Fn;
 import org.netbeans.html.boot.spi.Fn.Presenter;
 import org.netbeans.html.presenters.spi.ProtoPresenter;
@@ -69,7 +76,7 @@ import org.openide.util.lookup.ServiceProvider;
 public final class Browser implements Fn.Presenter, Fn.KeepAlive, Flushable,
 Executor, Closeable {
     static final Logger LOG = Logger.getLogger(Browser.class.getName());
-    private final Map<String,Command> SESSIONS = new HashMap<>();
+    private final Map<String,Command> SESSIONS = new ConcurrentHashMap<>();
     private final String app;
     private HttpServer server;
     private Runnable onPageLoad;
@@ -199,6 +206,7 @@ Executor, Closeable {
             server.init(from, to);
 
             this.server.addHttpHandler(new RootPage(page), "/");
+            this.server.addWebSocket(new CommandSocket(), "/command.ws");
             server.start();
 
             show(pageURL("http", server, "/"));
@@ -304,6 +312,122 @@ Executor, Closeable {
         s.addHeader(r, "Access-Control-Allow-Methods", "GET, POST, DELETE, PUT");
     }
 
+    private static final int BUFFER_SIZE = 8192;
+    private static final int GZIP_MIN_LENGTH = 1024;
+    private static final Map<String,String> CONTENT_TYPES = new ConcurrentHashMap<>();
+
+    /** Finds out content type of a file. The result of (potentially slow)
+     * {@link Files#probeContentType} is cached per file extension. Files
+     * without an extension are probed every time.
+     */
+    static String contentType(String path, File file) {
+        int dot = path.lastIndexOf('.');
+        String ext = dot == -1 || path.indexOf('/', dot) != -1 ? "" : path.substring(dot + 1).toLowerCase(Locale.ENGLISH);
+        String type = ext.isEmpty() ? null : CONTENT_TYPES.get(ext);
+        if (type == null) {
+            try {
+                type = Files.probeContentType(file.toPath());
+            } catch (IOException ignore) {
+            }
+            if (type == null || "content/unknown".equals(type)) {
+                type = knownContentType(path);
+            }
+            if (!ext.isEmpty()) {
+                CONTENT_TYPES.put(ext, type == null ? "" : type);
+            }
+        }
+        return type == null || type.isEmpty() ? null : type;
+    }
+
+    static String knownContentType(String path) {
+        if (path.endsWith(".html")) {
+            return "text/html";
+        }
+        if (path.endsWith(".js")) {
+            return "text/javascript";
+        }
+        if (path.endsWith(".css")) {
+            return "text/css";
+        }
+        return null;
+    }
+
+    static boolean isText(String type) {
+        if (type == null) {
+            return false;
+        }
+        return type.startsWith("text/")
+            || type.endsWith("javascript")
+            || type.endsWith("json")
+            || type.endsWith("xml");
+    }
+
+    static <Request> boolean acceptsGzip(HttpServer<Request, ?, ?, ?> s, Request r) {
+        String accept = s.getHeader(r, "Accept-Encoding");
+        return accept != null && accept.toLowerCase(Locale.ENGLISH).contains("gzip");
+    }
+
+    static <Request> boolean notModified(HttpServer<Request, ?, ?, ?> s, Request r, String etag, long modified) {
+        String match = s.getHeader(r, "If-None-Match");
+        if (match != null) {
+            for (String tag : match.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals(etag) || tag.equals("*")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        String since = s.getHeader(r, "If-Modified-Since");
+        if (since != null) {
+            try {
+                long time = ZonedDateTime.parse(since, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                return modified <= time;
+            } catch (DateTimeParseException ex) {
+                LOG.log(Level.FINE, "Cannot parse " + since, ex);
+            }
+        }
+        return false;
+    }
+
+    private final class CommandSocket extends HttpServer.WebSocketApplication {
+        @Override
+        <WebSocket> void onConnect(HttpServer<?, ?, WebSocket, ?> s, WebSocket socket) {
+            Command c = findCommand(s, socket);
+            if (c != null) {
+                c.connected(socket);
+            }
+        }
+
+        @Override
+        <WebSocket> void onMessage(HttpServer<?, ?, WebSocket, ?> s, WebSocket socket, String text) {
+            Command c = findCommand(s, socket);
+            if (c != null) {
+                c.onMessage(text);
+            }
+        }
+
+        @Override
+        <WebSocket> void onClose(HttpServer<?, ?, WebSocket, ?> s, WebSocket socket) {
+            Command c = findCommand(s, socket);
+            if (c != null) {
+                c.disconnected(socket);
+            }
+        }
+
+        private <WebSocket> Command findCommand(HttpServer<?, ?, WebSocket, ?> s, WebSocket socket) {
+            String id = s.getWebSocketParameter(socket, "id");
+            Command c = id == null ? null : SESSIONS.get(id);
+            if (c == null) {
+                LOG.log(Level.WARNING, "No command for {0}", id);
+            }
+            return c;
+        }
+    }
+
     private final class RootPage extends HttpServer.Handler {
         private final URL page;
 
@@ -378,49 +502,101 @@ Executor, Closeable {
                     path = path.substring(1);
                 }
                 URL relative = new URL(page, path);
-                InputStream is;
-                URLConnection conn;
-                try {
-                    conn = relative.openConnection();
-                    is = conn.getInputStream();
-                } catch (FileNotFoundException ex) {
-                    server.setStatus(rspns, 404);
-                    return;
-                }
-                String found = null;
+                File file = null;
                 if (relative.getProtocol().equals("file")) {
                     try {
-                        File file = new File(relative.toURI());
-                        found = Files.probeContentType(file.toPath());
-                    } catch (URISyntaxException | IOException ignore) {
+                        file = new File(relative.toURI());
+                    } catch (URISyntaxException | IllegalArgumentException ignore) {
                     }
+                }
+                if (file != null) {
+                    serveFile(server, rqst, rspns, path, file);
                 } else {
-                    found = conn.getContentType();
+                    serveURL(server, rqst, rspns, path, relative);
                 }
-                if (found == null || "content/unknown".equals(found)) {
-                    if (path.endsWith(".html")) {
-                        found = "text/html";
-                    }
-                    if (path.endsWith(".js")) {
-                        found = "text/javascript";
-                    }
-                    if (path.endsWith(".css")) {
-                        found = "text/css";
+            }
+        }
+
+        private <Request, Response> void serveFile(
+            HttpServer<Request, Response, ?, ?> server, Request rqst, Response rspns,
+            String path, File file
+        ) throws IOException {
+            if (!file.isFile()) {
+                server.setStatus(rspns, 404);
+                return;
+            }
+            String type = contentType(path, file);
+            boolean gzip = isText(type) && file.length() >= GZIP_MIN_LENGTH;
+            if (gzip) {
+                server.addHeader(rspns, "Vary", "Accept-Encoding");
+                gzip = acceptsGzip(server, rqst);
+            }
+            long modified = file.lastModified() / 1000 * 1000;
+            String etag = "\"" + Long.toHexString(file.length()) + "-" + Long.toHexString(modified) + (gzip ? "-gz\"" : "\"");
+            server.addHeader(rspns, "ETag", etag);
+            server.addHeader(rspns, "Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                Instant.ofEpochMilli(modified).atZone(ZoneOffset.UTC)
+            ));
+            server.addHeader(rspns, "Cache-Control", "no-cache");
+            if (notModified(server, rqst, etag, modified)) {
+                server.setStatus(rspns, 304);
+                return;
+            }
+            if (type != null) {
+                server.setContentType(rspns, type);
+            }
+            if (gzip) {
+                server.addHeader(rspns, "Content-Encoding", "gzip");
+                File precompressed = new File(file.getPath() + ".gz");
+                if (precompressed.isFile() && precompressed.lastModified() >= file.lastModified()) {
+                    server.sendFile(rspns, precompressed);
+                } else {
+                    try (OutputStream out = new GZIPOutputStream(server.getOutputStream(rspns), BUFFER_SIZE)) {
+                        Files.copy(file.toPath(), out);
                     }
                 }
-                if (found != null) {
-                    server.setContentType(rspns, found);
+            } else {
+                server.sendFile(rspns, file);
+            }
+        }
+
+        private <Request, Response> void serveURL(
+            HttpServer<Request, Response, ?, ?> server, Request rqst, Response rspns,
+            String path, URL relative
+        ) throws IOException {
+            InputStream is;
+            URLConnection conn;
+            try {
+                conn = relative.openConnection();
+                is = conn.getInputStream();
+            } catch (FileNotFoundException ex) {
+                server.setStatus(rspns, 404);
+                return;
+            }
+            String found = conn.getContentType();
+            if (found == null || "content/unknown".equals(found)) {
+                found = knownContentType(path);
+            }
+            if (found != null) {
+                server.setContentType(rspns, found);
+            }
+            OutputStream out = server.getOutputStream(rspns);
+            if (isText(found)) {
+                server.addHeader(rspns, "Vary", "Accept-Encoding");
+                if (acceptsGzip(server, rqst)) {
+                    server.addHeader(rspns, "Content-Encoding", "gzip");
+                    out = new GZIPOutputStream(out, BUFFER_SIZE);
                 }
-                OutputStream out = server.getOutputStream(rspns);
+            }
+            try (InputStream in = is; OutputStream o = out) {
+                byte[] arr = new byte[BUFFER_SIZE];
                 for (;;) {
-                    int b = is.read();
-                    if (b == -1) {
+                    int len = in.read(arr);
+                    if (len == -1) {
                         break;
                     }
-                    out.write(b);
+                    o.write(arr, 0, len);
                 }
-                out.close();
-                is.close();
             }
         }
 
@@ -471,7 +647,43 @@ Executor, Closeable {
                     + "    waitForCommand(counter + 1);\n"
                     + "  }\n"
                     + "}\n"
-                    + "waitForCommand(1);\n"
+                    + "var commandSocket = null;\n"
+                    + "function connectCommandSocket() {\n"
+                    + "  if (typeof WebSocket === 'undefined') {\n"
+                    + "    waitForCommand(1);\n"
+                    + "    return;\n"
+                    + "  }\n"
+                    + "  try {\n"
+                    + "    var socket = new WebSocket('ws" + prefix.substring(4) + "command.ws?id=" + id + "');\n"
+                    + "  } catch (e) {\n"
+                    + "    console.warn(e);\n"
+                    + "    waitForCommand(1);\n"
+                    + "    return;\n"
+                    + "  }\n"
+                    + "  socket.sent = 0;\n"
+                    + "  socket.onopen = function() {\n"
+                    + "    commandSocket = socket;\n"
+                    + "  };\n"
+                    + "  socket.onmessage = function(ev) {\n"
+            );
+            if (Browser.this.config.debug) {
+                w.write(""
+                    + "    console.log('WS got something ' + ev.data.substring(0,80));\n"
+                );
+            }
+            w.write(""
+                    + "    try {\n"
+                    + "      (0 || eval)(ev.data);\n"
+                    + "    } catch (e) {\n"
+                    + "      console.warn(e);\n"
+                    + "    }\n"
+                    + "  };\n"
+                    + "  socket.onclose = function() {\n"
+                    + "    commandSocket = null;\n"
+                    + "    waitForCommand(1);\n"
+                    + "  };\n"
+                    + "}\n"
+                    + "connectCommandSocket();\n"
             );
             w.write("  </script>\n");
         }
@@ -480,7 +692,19 @@ Executor, Closeable {
     String createCallbackFn(String prefix, String id) {
         StringBuilder sb = new StringBuilder();
         sb.append("this.toBrwsrSrvr = function(name, a1, a2, a3, a4) {\n"
+            + "var socket = typeof commandSocket === 'undefined' ? null : commandSocket;\n"
+            + "if (socket && name === 'r') {\n"
+            + "  function enc(v) {\n"
+            + "    if (v === null || v === undefined) return '-';\n"
+            + "    v = '' + v;\n"
+            + "    return v.length + ':' + v;\n"
+            + "  }\n"
+            + "  socket.send(enc(name) + enc(a1) + enc(a2) + enc(a3) + enc(a4));\n"
+            + "  socket.sent++;\n"
+            + "  return null;\n"
+            + "}\n"
             + "var url = '").append(prefix).append("command.js?id=").append(id).append("&name=' + name;\n"
+            + "if (socket) url += '&seq=' + socket.sent;\n"
             + "var body = 'p0=' + encodeURIComponent(a1);\n"
             + "body += '&p1=' + encodeURIComponent(a2);\n"
             + "body += '&p2=' + encodeURIComponent(a3);\n"
@@ -543,7 +767,7 @@ Executor, Closeable {
         return "org.netbeans.html"; // NOI18N
     }
 
-    private static final class Command<Request, Response, Runner> extends Object
+    static final class Command<Request, Response, Runner> extends Object
     implements Executor {
         private final HttpServer<Request, Response, ?, Runner> server;
         private final Queue<Object> exec;
@@ -553,6 +777,8 @@ Executor, Closeable {
         private Runner RUNNER;
         private Response suspended;
         private boolean initialized;
+        private Object socket;
+        private int received;
         private final ProtoPresenter presenter;
 
         Command(HttpServer<Request, Response, ?, Runner> s, Browser browser, String prefix) {
@@ -580,6 +806,9 @@ Executor, Closeable {
         }
 
         final synchronized void add(Object obj) {
+            if (socket != null && send(socket, obj)) {
+                return;
+            }
             if (suspended != null) {
                 Response rqst = suspended;
                 server.resume(rqst, () -> {
@@ -605,6 +834,97 @@ Executor, Closeable {
             return null;
         }
 
+        /** Switches to full-duplex mode. Pending as well as future commands
+         * are sent via the web socket instead of waiting for the browser
+         * to poll for them.
+         */
+        final synchronized void connected(Object s) {
+            this.socket = s;
+            this.received = 0;
+            for (;;) {
+                Object o = exec.peek();
+                if (o == null || !send(s, o)) {
+                    break;
+                }
+                exec.poll();
+            }
+            if (!initialized) {
+                initialized = true;
+                execute(browser.onPageLoad);
+            }
+        }
+
+        /** Sends the command via the web socket. When that fails the
+         * socket is forgotten and commands are left for polling again.
+         */
+        private boolean send(Object s, Object obj) {
+            try {
+                server.send(s, obj.toString());
+                return true;
+            } catch (RuntimeException ex) {
+                LOG.log(Level.INFO, "Cannot send via web socket, switching back to polling", ex);
+                disconnected(s);
+                return false;
+            }
+        }
+
+        final synchronized void disconnected(Object s) {
+            if (this.socket == s) {
+                this.socket = null;
+                notifyAll();
+            }
+        }
+
+        /** Processes a call from the browser received via the web socket.
+         */
+        final void onMessage(String text) {
+            try {
+                String[] args = parseMessage(text);
+                LOG.log(Level.FINE, "Socket call {0}", args[0]);
+                presenter.js2java(args[0], args[1], args[2], args[3], args[4]);
+            } catch (Exception ex) {
+                LOG.log(Level.SEVERE, "Cannot process " + text, ex);
+            } finally {
+                synchronized (this) {
+                    received++;
+                    notifyAll();
+                }
+            }
+        }
+
+        /** Parses a message received via the web socket. The message
+         * consists of five length-prefixed strings, {@code -} denotes
+         * {@code null}.
+         */
+        static String[] parseMessage(String text) {
+            String[] args = new String[5];
+            int at = 0;
+            for (int i = 0; i < args.length; i++) {
+                if (text.charAt(at) == '-') {
+                    at++;
+                    continue;
+                }
+                int colon = text.indexOf(':', at);
+                int end = colon + 1 + Integer.parseInt(text.substring(at, colon));
+                args[i] = text.substring(colon + 1, end);
+                at = end;
+            }
+            return args;
+        }
+
+        /** Calls via HTTP must not overtake messages sent earlier via the
+         * web socket.
+         */
+        private synchronized void awaitReceived(int seq) {
+            while (received < seq && socket != null) {
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    break;
+                }
+            }
+        }
+
         private synchronized boolean initialize(Response rspns) {
             if (!initialized) {
                 initialized = true;
@@ -634,6 +954,10 @@ Executor, Closeable {
                 w.write(s);
                 LOG.log(Level.FINE, "Exec global: {0}", s);
             } else {
+                String seq = server.getParameter(rqst, "seq");
+                if (seq != null) {
+                    awaitReceived(Integer.parseInt(seq));
+                }
                 List<String> args = new ArrayList<>();
                 String body = server.getBody(rqst);
                 for (String p : body.split("&")) {
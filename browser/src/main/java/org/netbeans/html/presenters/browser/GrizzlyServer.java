@@ -19,29 +19,54 @@
 package org.netbeans.html.presenters.browser;
 
 import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import org.glassfish.grizzly.PortRange;
+import org.glassfish.grizzly.http.HttpRequestPacket;
 import org.glassfish.grizzly.http.io.InputBuffer;
 import org.glassfish.grizzly.http.server.HttpHandler;
+import org.glassfish.grizzly.http.server.NetworkListener;
 import org.glassfish.grizzly.http.server.Request;
 import org.glassfish.grizzly.http.server.Response;
+import org.glassfish.grizzly.http.server.StaticHttpHandlerBase;
+import org.glassfish.grizzly.websockets.DataFrame;
+import org.glassfish.grizzly.websockets.ProtocolHandler;
+import org.glassfish.grizzly.websockets.SimpleWebSocket;
+import org.glassfish.grizzly.websockets.WebSocket;
+import org.glassfish.grizzly.websockets.WebSocketAddOn;
+import org.glassfish.grizzly.websockets.WebSocketEngine;
+import org.glassfish.grizzly.websockets.WebSocketListener;
 import org.netbeans.html.boot.spi.Fn;
 
-final class GrizzlyServer extends HttpServer<Request, Response, Object, GrizzlyServer.Context> {
+final class GrizzlyServer extends HttpServer<Request, Response, WebSocket, GrizzlyServer.Context> {
     private org.glassfish.grizzly.http.server.HttpServer server;
+    private final List<WebSocketApp> webSockets = new ArrayList<>();
 
     @Override
     void init(int from, int to) throws IOException {
         server = org.glassfish.grizzly.http.server.HttpServer.createSimpleServer(null, new PortRange(from, to));
+        for (NetworkListener l : server.getListeners()) {
+            l.registerAddOn(new WebSocketAddOn());
+        }
     }
 
     @Override
     void shutdownNow() {
+        for (WebSocketApp app : webSockets) {
+            WebSocketEngine.getEngine().unregister(app);
+        }
+        webSockets.clear();
         server.shutdownNow();
     }
 
@@ -127,6 +152,11 @@ final class GrizzlyServer extends HttpServer<Request, Response, Object, GrizzlyS
         return r.getOutputStream();
     }
 
+    @Override
+    void sendFile(Response r, File file) throws IOException {
+        StaticHttpHandlerBase.sendFile(r, file);
+    }
+
     @Override
     void suspend(Response r) {
         r.suspend();
@@ -148,8 +178,82 @@ final class GrizzlyServer extends HttpServer<Request, Response, Object, GrizzlyS
         r.addHeader(name, value);
     }
 
+    @Override
+    void addWebSocket(WebSocketApplication app, String path) {
+        WebSocketApp wsApp = new WebSocketApp(app, path);
+        webSockets.add(wsApp);
+        WebSocketEngine.getEngine().register(wsApp);
+    }
+
     @Override
     <WebSocket> void send(WebSocket socket, String s) {
+        ((org.glassfish.grizzly.websockets.WebSocket) socket).send(s);
+    }
+
+    @Override
+    <WebSocket> String getWebSocketParameter(WebSocket socket, String id) {
+        return ((ParametrizedWebSocket) socket).getParameter(id);
+    }
+
+    private final class WebSocketApp extends org.glassfish.grizzly.websockets.WebSocketApplication {
+        private final WebSocketApplication app;
+        private final String path;
+
+        WebSocketApp(WebSocketApplication app, String path) {
+            this.app = app;
+            this.path = path;
+        }
+
+        @Override
+        public boolean isApplicationRequest(HttpRequestPacket request) {
+            return path.equals(request.getRequestURI()) && request.getLocalPort() == getPort();
+        }
+
+        @Override
+        public WebSocket createSocket(ProtocolHandler handler, HttpRequestPacket requestPacket, WebSocketListener... listeners) {
+            return new ParametrizedWebSocket(handler, requestPacket.getQueryString(), listeners);
+        }
+
+        @Override
+        public void onConnect(WebSocket socket) {
+            super.onConnect(socket);
+            app.onConnect(GrizzlyServer.this, socket);
+        }
+
+        @Override
+        public void onMessage(WebSocket socket, String text) {
+            app.onMessage(GrizzlyServer.this, socket, text);
+        }
+
+        @Override
+        public void onClose(WebSocket socket, DataFrame frame) {
+            super.onClose(socket, frame);
+            app.onClose(GrizzlyServer.this, socket);
+        }
+    }
+
+    private static final class ParametrizedWebSocket extends SimpleWebSocket {
+        private final Map<String, String> parameters = new ConcurrentHashMap<>();
+
+        ParametrizedWebSocket(ProtocolHandler handler, String query, WebSocketListener... listeners) {
+            super(handler, listeners);
+            if (query != null) {
+                for (String pair : query.split("&")) {
+                    int eq = pair.indexOf('=');
+                    if (eq > 0) {
+                        try {
+                            parameters.put(pair.substring(0, eq), URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+                        } catch (UnsupportedEncodingException ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                    }
+                }
+            }
+        }
+
+        String getParameter(String name) {
+            return parameters.get(name);
+        }
     }
 
     class Context implements ThreadFactory {
@@ -18,6 +18,7 @@
  */
 package org.netbeans.html.presenters.browser;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
@@ -42,12 +43,15 @@ abstract class HttpServer<Request, Response, WebSocket, Runner> {
     abstract void setContentType(Response r, String texthtml);
     abstract void setStatus(Response r, int i);
     abstract OutputStream getOutputStream(Response r);
+    abstract void sendFile(Response r, File file) throws IOException;
     abstract void suspend(Response r);
     abstract void resume(Response r, Runnable runWhenResponseIsReady);
     abstract void setCharacterEncoding(Response r, String utF8);
     abstract void addHeader(Response r, String accessControlAllowOrigin, String string);
 
+    abstract void addWebSocket(WebSocketApplication app, String path);
     abstract <WebSocket> void send(WebSocket socket, String s);
+    abstract <WebSocket> String getWebSocketParameter(WebSocket socket, String id);
 
     abstract Runner initializeRunner(String id);
     abstract void runSafe(Runner runner, Runnable code, Fn.Presenter presenter);
@@ -57,6 +61,10 @@ abstract class HttpServer<Request, Response, WebSocket, Runner> {
     }
 
     static abstract class WebSocketApplication {
+        <WebSocket> void onConnect(HttpServer<?, ?, WebSocket, ?> server, WebSocket socket) {
+        }
         abstract <WebSocket> void onMessage(HttpServer<?, ?, WebSocket, ?> server, WebSocket socket, String text);
+        <WebSocket> void onClose(HttpServer<?, ?, WebSocket, ?> server, WebSocket socket) {
+        }
     }
 }
@@ -0,0 +1,325 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.presenters.browser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.netbeans.html.boot.spi.Fn;
+import org.netbeans.html.presenters.spi.ProtoPresenter;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+public class CommandTest {
+    @Test public void parseMessage() {
+        assertEquals(Browser.Command.parseMessage("1:r-0:3:abc-"), new String[] { "r", null, "", "abc", null });
+        assertEquals(Browser.Command.parseMessage("-----"), new String[5]);
+        assertEquals(Browser.Command.parseMessage("1:c12:hello world!3:a:b2:--1:-"), new String[] { "c", "hello world!", "a:b", "--", "-" });
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 123; i++) {
+            sb.append('x');
+        }
+        assertEquals(Browser.Command.parseMessage("1:r123:" + sb + "1:1-2:10"), new String[] { "r", sb.toString(), "1", null, "10" });
+    }
+
+    @Test public void fallsBackToLongPollWhenSocketCloses() throws Exception {
+        MockServer server = new MockServer();
+        Browser.Command<?, ?, ?> cmd = loadPage(server);
+        String id = server.id;
+
+        server.commandSocket.onConnect(server, id);
+        cmd.add("one");
+        assertEquals(server.sent.get(server.sent.size() - 1), "one", "Sent via socket: " + server.sent);
+
+        server.commandSocket.onClose(server, id);
+        int sent = server.sent.size();
+        cmd.add("two");
+        assertEquals(server.sent.size(), sent, "No longer sent via socket");
+
+        MockServer.Res poll = server.request("/command.js", "id", id);
+        assertEquals(poll.toString(), "two", "Queued command obtained by polling");
+
+        MockServer.Res suspended = server.request("/command.js", "id", id);
+        assertTrue(suspended.suspended, "Waiting for next command");
+        assertEquals(suspended.toString(), "");
+        cmd.add("three");
+        assertEquals(suspended.toString(), "three", "Suspended poll is resumed");
+
+        MockServer.Res call = server.request("/command.js", "id", id, "name", "x", "seq", "5");
+        assertEquals(call.toString(), "error:x", "Call after disconnect doesn't wait for socket messages");
+    }
+
+    @Test public void failedSendFallsBackToLongPoll() throws Exception {
+        MockServer server = new MockServer();
+        Browser.Command<?, ?, ?> cmd = loadPage(server);
+        String id = server.id;
+
+        server.commandSocket.onConnect(server, id);
+        server.failSend = true;
+        cmd.add("one");
+        assertFalse(server.sent.contains("one"), "Not sent: " + server.sent);
+
+        MockServer.Res poll = server.request("/command.js", "id", id);
+        assertEquals(poll.toString(), "one", "Command obtained by polling");
+
+        MockServer.Res call = server.request("/command.js", "id", id, "name", "x", "seq", "5");
+        assertEquals(call.toString(), "error:x", "Call doesn't wait for the broken socket");
+    }
+
+    @Test public void httpCallWaitsForSocketMessages() throws Exception {
+        final MockServer server = new MockServer();
+        final Browser.Command<?, ?, ?> cmd = loadPage(server);
+        final String id = server.id;
+        server.commandSocket.onConnect(server, id);
+
+        final MockServer.Res[] call = { null };
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread t = new Thread("HTTP call") {
+            @Override
+            public void run() {
+                try {
+                    call[0] = server.request("/command.js", "id", id, "name", "x", "seq", "1");
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+        t.start();
+        assertFalse(done.await(200, TimeUnit.MILLISECONDS), "Waiting for the message sent via socket");
+        server.commandSocket.onMessage(server, id, "1:y----");
+        assertTrue(done.await(10, TimeUnit.SECONDS), "Call processed after the socket message");
+        assertNotNull(call[0]);
+        assertEquals(call[0].toString(), "error:x");
+    }
+
+    private static Browser.Command<?, ?, ?> loadPage(MockServer server) throws Exception {
+        File page = File.createTempFile("page", ".html");
+        page.deleteOnExit();
+        try (Writer w = new FileWriter(page)) {
+            w.write("<html><body><h1>Page</h1></body></html>");
+        }
+        final Browser.Command<?, ?, ?>[] cmd = { null };
+        Browser browser = new Browser("test", new Browser.Config().command("NONE"), () -> server);
+        browser.displayPage(page.toURI().toURL(), () -> {
+            Fn.Presenter p = Fn.activePresenter();
+            cmd[0] = ((ProtoPresenter) p).lookup(Browser.Command.class);
+        });
+        MockServer.Res index = server.request("/");
+        Matcher m = Pattern.compile("command\\.js\\?id=([0-9a-f\\-]+)").matcher(index.toString());
+        assertTrue(m.find(), "Command id found in " + index);
+        server.id = m.group(1);
+
+        server.commandSocket.onConnect(server, m.group(1));
+        server.commandSocket.onClose(server, m.group(1));
+        assertNotNull(cmd[0], "Page loaded");
+        return cmd[0];
+    }
+
+    private static final class MockServer extends HttpServer<MockServer.Req, MockServer.Res, String, Object> {
+        private Handler root;
+        String id;
+        HttpServer.WebSocketApplication commandSocket;
+        final List<String> sent = new ArrayList<>();
+        boolean failSend;
+
+        Res request(String uri, String... params) throws IOException {
+            Req req = new Req(uri);
+            for (int i = 0; i < params.length; i += 2) {
+                req.params.put(params[i], params[i + 1]);
+            }
+            Res res = new Res();
+            root.service(this, req, res);
+            return res;
+        }
+
+        @Override
+        void init(int from, int to) throws IOException {
+        }
+
+        @Override
+        void start() throws IOException {
+        }
+
+        @Override
+        void shutdownNow() {
+        }
+
+        @Override
+        void addHttpHandler(Handler h, String path) {
+            root = h;
+        }
+
+        @Override
+        int getPort() {
+            return 8080;
+        }
+
+        @Override
+        String getRequestURI(Req r) {
+            return r.uri;
+        }
+
+        @Override
+        String getServerName(Req r) {
+            return "localhost";
+        }
+
+        @Override
+        int getServerPort(Req r) {
+            return 8080;
+        }
+
+        @Override
+        String getParameter(Req r, String id) {
+            return r.params.get(id);
+        }
+
+        @Override
+        String getMethod(Req r) {
+            return r.params.containsKey("name") ? "PUT" : "GET";
+        }
+
+        @Override
+        String getBody(Req r) throws IOException {
+            return "p0=a&p1=b&p2=c&p3=d";
+        }
+
+        @Override
+        String getHeader(Req r, String substring) {
+            return null;
+        }
+
+        @Override
+        Writer getWriter(Res r) {
+            return r.text;
+        }
+
+        @Override
+        void setContentType(Res r, String texthtml) {
+        }
+
+        @Override
+        void setStatus(Res r, int i) {
+        }
+
+        @Override
+        OutputStream getOutputStream(Res r) {
+            return new ByteArrayOutputStream();
+        }
+
+        @Override
+        void sendFile(Res r, File file) throws IOException {
+            throw new IOException();
+        }
+
+        @Override
+        void suspend(Res r) {
+            r.suspended = true;
+        }
+
+        @Override
+        void resume(Res r, Runnable runWhenResponseIsReady) {
+            r.suspended = false;
+            runWhenResponseIsReady.run();
+        }
+
+        @Override
+        void setCharacterEncoding(Res r, String utF8) {
+        }
+
+        @Override
+        void addHeader(Res r, String accessControlAllowOrigin, String string) {
+        }
+
+        @Override
+        void addWebSocket(WebSocketApplication app, String path) {
+            commandSocket = app;
+        }
+
+        @Override
+        <WebSocket> void send(WebSocket socket, String s) {
+            if (failSend) {
+                throw new IllegalStateException("Socket closed");
+            }
+            synchronized (sent) {
+                sent.add(s);
+            }
+        }
+
+        @Override
+        <WebSocket> String getWebSocketParameter(WebSocket socket, String id) {
+            return "id".equals(id) ? socket.toString() : null;
+        }
+
+        @Override
+        Object initializeRunner(String id) {
+            return null;
+        }
+
+        @Override
+        void runSafe(Object runner, Runnable code, Fn.Presenter presenter) {
+            if (presenter == null) {
+                code.run();
+                return;
+            }
+            try (Closeable c = Fn.activate(presenter)) {
+                code.run();
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        static final class Req {
+            final String uri;
+            final Map<String, String> params = new HashMap<>();
+
+            Req(String uri) {
+                this.uri = uri;
+            }
+        }
+
+        static final class Res {
+            final StringWriter text = new StringWriter();
+            boolean suspended;
+
+            @Override
+            public String toString() {
+                return text.toString();
+            }
+        }
+    }
+}
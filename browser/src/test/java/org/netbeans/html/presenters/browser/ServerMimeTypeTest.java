@@ -18,17 +18,25 @@
  */
 package org.netbeans.html.presenters.browser;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 import net.java.html.boot.BrowserBuilder;
 import static org.netbeans.html.presenters.browser.JavaScriptUtilities.closeSoon;
 import static org.netbeans.html.presenters.browser.JavaScriptUtilities.setLoaded;
 import org.testng.Assert;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 import org.testng.annotations.Test;
@@ -70,6 +78,52 @@ public class ServerMimeTypeTest {
         String jsMinType = new URL(connect, "test.min.js").openConnection().getContentType();
         assertMimeType(jsMinType, "*/javascript");
 
+        URLConnection jsConn = new URL(connect, "test.js").openConnection();
+        String etag = jsConn.getHeaderField("ETag");
+        assertNotNull(etag, "ETag provided");
+        assertNotNull(jsConn.getHeaderField("Last-Modified"), "Last-Modified provided");
+        jsConn.getInputStream().close();
+
+        HttpURLConnection cached = (HttpURLConnection) new URL(connect, "test.js").openConnection();
+        cached.setRequestProperty("If-None-Match", etag);
+        assertEquals(cached.getResponseCode(), 304, "Not modified");
+
+        HttpURLConnection since = (HttpURLConnection) new URL(connect, "test.js").openConnection();
+        since.setIfModifiedSince(jsConn.getLastModified());
+        assertEquals(since.getResponseCode(), 304, "Not modified since");
+
+        HttpURLConnection older = (HttpURLConnection) new URL(connect, "test.js").openConnection();
+        older.setIfModifiedSince(jsConn.getLastModified() - 60000);
+        assertEquals(older.getResponseCode(), 200, "Modified since an earlier time");
+        older.getInputStream().close();
+
+        File dir = new File(ServerMimeTypeTest.class.getResource("server.html").toURI()).getParentFile();
+        String text = script("big");
+        File big = writeFile(new File(dir, "big.js"), text.getBytes("UTF-8"));
+
+        HttpURLConnection plain = (HttpURLConnection) new URL(connect, "big.js").openConnection();
+        assertNull(plain.getHeaderField("Content-Encoding"), "Not compressed when not accepted");
+        assertEquals(readText(plain.getInputStream()), text);
+
+        HttpURLConnection gzip = (HttpURLConnection) new URL(connect, "big.js").openConnection();
+        gzip.setRequestProperty("Accept-Encoding", "gzip");
+        assertEquals(gzip.getHeaderField("Content-Encoding"), "gzip");
+        assertEquals(readText(new GZIPInputStream(gzip.getInputStream())), text, "Compressed on the fly");
+
+        File packed = writeFile(new File(dir, "packed.js"), script("original").getBytes("UTF-8"));
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream os = new GZIPOutputStream(compressed)) {
+            os.write(script("precompressed").getBytes("UTF-8"));
+        }
+        File packedGz = writeFile(new File(dir, "packed.js.gz"), compressed.toByteArray());
+        packedGz.setLastModified(packed.lastModified() + 1000);
+
+        HttpURLConnection pre = (HttpURLConnection) new URL(connect, "packed.js").openConnection();
+        pre.setRequestProperty("Accept-Encoding", "gzip");
+        assertEquals(pre.getHeaderField("Content-Encoding"), "gzip");
+        assertEquals(readText(new GZIPInputStream(pre.getInputStream())), script("precompressed"), "Precompressed file sent");
+        assertTrue(big.delete() && packed.delete() && packedGz.delete(), "Files deleted");
+
         URLConnection conn = new URL(connect, "non-existing.file").openConnection();
         assertTrue(conn instanceof HttpURLConnection, "it is HTTP connection: " + conn);
 
@@ -88,6 +142,37 @@ public class ServerMimeTypeTest {
         }
     }
 
+    private static String script(String name) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; sb.length() < 4096; i++) {
+            sb.append("var ").append(name).append(i).append(" = ").append(i).append(";\n");
+        }
+        return sb.toString();
+    }
+
+    private static File writeFile(File f, byte[] content) throws IOException {
+        f.deleteOnExit();
+        try (OutputStream os = new FileOutputStream(f)) {
+            os.write(content);
+        }
+        return f;
+    }
+
+    private static String readText(InputStream is) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try (InputStream in = is) {
+            byte[] arr = new byte[4096];
+            for (;;) {
+                int len = in.read(arr);
+                if (len == -1) {
+                    break;
+                }
+                os.write(arr, 0, len);
+            }
+        }
+        return os.toString("UTF-8");
+    }
+
     private void assertMimeType(String type, String exp) {
         int semicolon = type.indexOf(';');
         if (semicolon >= 0) {
@@ -22,23 +22,23 @@ import com.dukescript.api.strings.Texts;
 import java.io.Flushable;
 import java.io.IOException;
 import java.io.Reader;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.ref.PhantomReference;
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
-import java.util.NavigableSet;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -50,21 +50,23 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
     private int callCounter;
     /** @GuardedBy("this") */
     private Frame call;
-    private final NavigableSet<Exported> exported;
     private final int key;
     private final boolean synchronous;
     private final boolean evalJS;
+    private final boolean compact;
+    private final boolean typedArrays;
     private final String type;
     private final String app;
     private final CountDownLatch initialized = new CountDownLatch(1);
 
     Generic(
-        boolean synchronous, boolean evalJS, String type, String app
+        boolean synchronous, boolean evalJS, boolean compact, boolean typedArrays, String type, String app
     ) {
-        this.exported = new TreeSet<Exported>();
         this.key = (int)(System.currentTimeMillis() / 777) % 1000;
         this.synchronous = synchronous;
         this.evalJS = evalJS;
+        this.compact = compact;
+        this.typedArrays = typedArrays;
         this.type = type;
         this.app = app;
         this.resetDeferredDisabled();
@@ -102,6 +104,17 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
              init=(function(global) {
                var fncns = new Array();
                var js2j = new Array();
+               var js2jFree = new Array();
+               function js2jPush(r) {
+                 if (js2jFree.length > 0) {
+                   var at = js2jFree.pop();
+                   js2j[at] = r;
+                   return at;
+                 }
+                 var size = js2j.length;
+                 js2j.push(r);
+                 return size;
+               }
                function jobject(id,value) {
                  Object.defineProperty(this, 'id', { value : id });
                  Object.defineProperty(this, 'v', { value : value });
@@ -115,8 +128,56 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
                if (typeof toVM !== 'function') {
                  throw 'toVM should be a function: ' + toVM;
                }
+               var typed = @4 && typeof ArrayBuffer !== 'undefined';
+               var typedCtors = typed ? { 'd' : Float64Array, 'f' : Float32Array, 'i' : Int32Array, 's' : Int16Array, 'b' : Int8Array } : null;
+               var le = typed && new Uint8Array(new Uint16Array([1]).buffer)[0] === 1;
+               var typedKinds = le ? {
+                 '[object Float64Array]' : 'd', '[object Float32Array]' : 'f',
+                 '[object Int32Array]' : 'i', '[object Int16Array]' : 's', '[object Int8Array]' : 'b'
+               } : null;
+               var b64 = 'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/';
+               var b64i = new Array(128);
+               for (var i = 0; i < 64; i++) b64i[b64.charCodeAt(i)] = i;
+               function typedKind(r) {
+                 return typedKinds ? typedKinds[Object.prototype.toString.call(r)] : null;
+               }
+               function typedEncode(r) {
+                 var b = new Uint8Array(r.buffer, r.byteOffset, r.byteLength);
+                 var s = '';
+                 var i = 0;
+                 for (; i + 2 < b.length; i += 3) {
+                   var n = (b[i] << 16) | (b[i + 1] << 8) | b[i + 2];
+                   s += b64.charAt(n >> 18) + b64.charAt((n >> 12) & 63) + b64.charAt((n >> 6) & 63) + b64.charAt(n & 63);
+                 }
+                 if (i < b.length) {
+                   var n = b[i] << 16;
+                   if (i + 1 < b.length) n |= b[i + 1] << 8;
+                   s += b64.charAt(n >> 18) + b64.charAt((n >> 12) & 63);
+                   s += i + 1 < b.length ? b64.charAt((n >> 6) & 63) + '=' : '==';
+                 }
+                 return s;
+               }
+               function typedDecode(k, s) {
+                 var n = s.length;
+                 var pad = n > 0 && s.charAt(n - 1) === '=' ? (s.charAt(n - 2) === '=' ? 2 : 1) : 0;
+                 var b = new Uint8Array(n / 4 * 3 - pad);
+                 for (var i = 0, j = 0; i < n; i += 4) {
+                   var x = (b64i[s.charCodeAt(i)] << 18) | (b64i[s.charCodeAt(i + 1)] << 12) |
+                     ((b64i[s.charCodeAt(i + 2)] || 0) << 6) | (b64i[s.charCodeAt(i + 3)] || 0);
+                   b[j++] = x >> 16;
+                   if (j < b.length) b[j++] = x >> 8;
+                   if (j < b.length) b[j++] = x;
+                 }
+                 var C = typedCtors[k];
+                 if (le) return new C(b.buffer);
+                 var v = new DataView(b.buffer);
+                 var get = { 'd' : v.getFloat64, 'f' : v.getFloat32, 'i' : v.getInt32, 's' : v.getInt16, 'b' : v.getInt8 }[k];
+                 var r = new C(b.length / C.BYTES_PER_ELEMENT);
+                 for (var i = 0; i < r.length; i++) r[i] = get.call(v, i * C.BYTES_PER_ELEMENT, true);
+                 return r;
+               }
                function toJava(method, id, r) {
-                   var t = typeof r;
+                   var t = typeof r, k;
                    if (t === 'function') t = 'object';
                    if (t === 'undefined' || r === null) {
                      t = 'null';
@@ -125,6 +186,9 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
                      if (r['native']) {
                        t = 'java';
                        r = r.id;
+                     } else if ((k = typedKind(r))) {
+                       t = 'typed';
+                       r = k + typedEncode(r);
                      } else if (Object.prototype.toString.call(r) === '[object Array]') {
                      t = 'array';
                      var l = r.length + ':';
@@ -134,14 +198,47 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
                        }
                        r = l;
                      } else {
-                       var size = js2j.length;
-                       js2j.push(r);
-                       r = size;
+                       r = js2jPush(r);
                      }
                    }
                    if (method !== null) toVM(method, id, t, r, null);
                    else return t + ':' + r;
                }
+               function frame(r, out) {
+                   var t = typeof r, k;
+                   if (t === 'function') t = 'object';
+                   if (t === 'undefined' || r === null) {
+                     out.push('n');
+                   } else if (t === 'number') {
+                     out.push('d', r, ';');
+                   } else if (t === 'boolean') {
+                     out.push(r ? 't' : 'f');
+                   } else if (t === 'object') {
+                     if (r['native']) {
+                       out.push('j', r.id, ';');
+                     } else if ((k = typedKind(r))) {
+                       var s = typedEncode(r);
+                       out.push('x', k, s.length, ':', s);
+                     } else if (Object.prototype.toString.call(r) === '[object Array]') {
+                       out.push('a', r.length, ';');
+                       for (var i = 0; i < r.length; i++) {
+                         frame(r[i], out);
+                       }
+                     } else {
+                       out.push('o', js2jPush(r), ';');
+                     }
+                   } else {
+                     var s = '' + r;
+                     out.push('s', s.length, ':', s);
+                   }
+               }
+               function toJavaFrame(method, id, r) {
+                   var out = [];
+                   frame(r, out);
+                   var f = out.join('');
+                   if (method !== null) toVM(method, id, 'frame', f, null);
+                   else return f;
+               }
                var impl = {};
                impl.key = @1;
                global.ds = function(key) {
@@ -151,7 +248,7 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
                  }
                  return impl;
                };
-               impl.toJava = toJava;
+               impl.toJava = @3 ? toJavaFrame : toJava;
                impl.rg = function(id, fn) {
                  fncns[id] = fn;
                };
@@ -167,9 +264,17 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
                    if (n) toVM('r', id, 'error', '' + err + ' at:\\n' + err.stack, null, null);
                  }
                };
+               impl.ta = typedDecode;
                impl.o = function(i) {
                  return js2j[i];
                };
+               impl.f = function(arr) {
+                 for (var i = 0; i < arr.length; i++) {
+                   var at = arr[i];
+                   delete js2j[at];
+                   js2jFree.push(at);
+                 }
+               };
                impl.j = function(n,v) {
                 var r = new jobject(n,v);
                 if (arguments.length > 2) {
@@ -206,7 +311,7 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
                         log(Level.FINE, "callbackReady with {0}", clbk);
                         loadJS(Strings.begin(clbk).toString());
                         log(Level.FINE, "checking OK state");
-                        loadJS(Strings.init(key, clbk).toString());
+                        loadJS(Strings.init(key, clbk, compact, typedArrays).toString());
                     }
                 });
             }
@@ -270,12 +375,18 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
         return new GFn(code, names, null);
     }
 
+    /** Weak reference to an exported object. Used as a key in the identity
+     * map and as the value of weakly exported objects. Once the object is
+     * collected, the key is enqueued and both mappings are removed.
+     */
     private static final class Key extends WeakReference<Object> {
-        private int hash;
+        private final int hash;
+        private final int id;
 
-        public Key(Object obj) {
-            super(obj);
+        Key(Object obj, int id, ReferenceQueue<Object> queue) {
+            super(obj, queue);
             this.hash = System.identityHashCode(obj);
+            this.id = id;
         }
 
         @Override
@@ -287,53 +398,84 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
 
         @Override
         public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
             if (obj instanceof Key) {
                 Key other = (Key)obj;
                 if (hash != other.hash) {
                     return false;
                 }
-                return true;
+                final Object mine = get();
+                return mine != null && mine == other.get();
             }
             return false;
         }
     }
 
-    private Map<Key,Integer> ids = new HashMap<Key, Integer>();
-    int identityHashCode(Object o) {
-        Key k = new Key(o);
-        Integer val = ids.get(k);
-        if (val == null) {
-            int s = ids.size();
-            ids.put(k, s);
-            return s;
-        }
-        return val;
-    }
+    /** @GuardedBy("lock()") */
+    private final Map<Key,Key> ids = new HashMap<Key,Key>();
+    /** @GuardedBy("lock()") */
+    private final IdMap exported = new IdMap();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<Object>();
+    /** @GuardedBy("lock()") */
+    private int nextId;
 
     final int registerObject(Object o, boolean weak, boolean[] justAdded, String[] valueOf) {
         if (o instanceof Enum && valueOf != null) {
             valueOf[0] = o.toString();
         }
-        int id = identityHashCode(o);
-        for (;;) {
-            Object exp = findObject(id);
-            if (o == exp) {
-                return id;
+        synchronized (lock()) {
+            expungeCollected();
+            Key k = ids.get(new Key(o, -1, null));
+            if (k != null) {
+                return k.id;
             }
-            if (exp == null) {
-                if (justAdded != null) {
-                    justAdded[0] = true;
-                }
-                exported.add(new Exported(id, weak, o));
-                return id;
+            final int id = nextId++;
+            k = new Key(o, id, collected);
+            ids.put(k, k);
+            if (justAdded != null) {
+                justAdded[0] = true;
+            }
+            if (weak) {
+                exported.put(id, k);
+                keepKnockoutAlive(o);
+            } else {
+                exported.put(id, o);
             }
-            throw new IllegalStateException("Collision!");
+            return id;
         }
     }
 
     final Object findObject(int id) {
-        Exported obj = exported.floor(new Exported(id, false, null));
-        return obj == null || obj.id != id ? null : obj.get();
+        synchronized (lock()) {
+            Object obj = exported.get(id);
+            return obj instanceof Key ? ((Key) obj).get() : obj;
+        }
+    }
+
+    /** Removes objects that have been garbage collected from the identity
+     * map as well as from the map of exported objects.
+     */
+    private void expungeCollected() {
+        assert Thread.holdsLock(lock());
+        for (;;) {
+            Key k = (Key) collected.poll();
+            if (k == null) {
+                break;
+            }
+            ids.remove(k);
+            if (exported.get(k.id) == k) {
+                exported.remove(k.id);
+            }
+        }
+    }
+
+    final int exportedCount() {
+        synchronized (lock()) {
+            expungeCollected();
+            return exported.size();
+        }
     }
 
     @Texts({
@@ -407,12 +549,17 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
         "v_object=object",
         "v_array=array",
         "v_boolean=boolean",
-        "v_error=error"
+        "v_error=error",
+        "v_frame=frame",
+        "v_typed=typed"
     })
     final Object valueOf(String typeof, String res) {
         if (Strings.v_null().equals(typeof)) { // NOI18N
             return null;
         }
+        if (Strings.v_frame().equals(typeof)) { // NOI18N
+            return valueOfFrame(res);
+        }
         if (Strings.v_number().equals(typeof)) { // NOI18N
             return Double.valueOf(res);
         }
@@ -420,7 +567,7 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
             return findObject(Integer.parseInt(res));
         }
         if (Strings.v_object().equals(typeof)) { // NOI18N
-            return new JSObject(Integer.parseInt(res));
+            return jsObject(Integer.parseInt(res));
         }
         if (Strings.v_array().equals(typeof)) { // NOI18N
             int at = res.indexOf(':');
@@ -435,6 +582,9 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
             }
             return arr;
         }
+        if (Strings.v_typed().equals(typeof)) { // NOI18N
+            return TypedArrays.decode(res.charAt(0), res.substring(1));
+        }
         if (Strings.v_boolean().equals(typeof)) { // NOI18N
             return Boolean.valueOf(res);
         }
@@ -449,9 +599,124 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
         return valueOf(typeAndValue.substring(0, colon), typeAndValue.substring(colon + 1));
     }
 
+    /** Decodes value encoded by the compact protocol. Each value is
+     * a single character tag optionally followed by its payload:
+     * <ul>
+     *   <li>{@code n} - {@code null}</li>
+     *   <li>{@code t}, {@code f} - boolean values</li>
+     *   <li>{@code d<number>;} - a number</li>
+     *   <li>{@code j<id>;} - Java object exported to JavaScript</li>
+     *   <li>{@code o<id>;} - JavaScript object</li>
+     *   <li>{@code a<length>;} followed by {@code length} values - an array</li>
+     *   <li>{@code s<length>:<chars>} - a string</li>
+     *   <li>{@code x<kind><length>:<base64>} - a typed array converted to
+     *     a primitive array, see {@link ProtoPresenterBuilder#typedArrays(boolean)}</li>
+     * </ul>
+     *
+     * @param frame the encoded value
+     * @return decoded Java value
+     */
+    final Object valueOfFrame(String frame) {
+        FrameReader r = new FrameReader(frame);
+        Object value = r.next();
+        if (r.at != frame.length()) {
+            throw new IllegalStateException("Unexpected data at " + r.at + " in " + frame);
+        }
+        return value;
+    }
+
+    private final class FrameReader {
+        private final String frame;
+        int at;
+
+        FrameReader(String frame) {
+            this.frame = frame;
+        }
+
+        Object next() {
+            final char tag = frame.charAt(at++);
+            switch (tag) {
+                case 'n': return null;
+                case 't': return Boolean.TRUE;
+                case 'f': return Boolean.FALSE;
+                case 'd': return number();
+                case 'j': return findObject(integer(';'));
+                case 'o': return jsObject(integer(';'));
+                case 'a': {
+                    final int size = integer(';');
+                    Object[] arr = new Object[size];
+                    for (int i = 0; i < size; i++) {
+                        arr[i] = next();
+                    }
+                    return arr;
+                }
+                case 's': {
+                    final int len = integer(':');
+                    final int from = at;
+                    at += len;
+                    return frame.substring(from, at);
+                }
+                case 'x': {
+                    final char kind = frame.charAt(at++);
+                    final int len = integer(':');
+                    final int from = at;
+                    at += len;
+                    return TypedArrays.decode(kind, frame.substring(from, at));
+                }
+                default:
+                    throw new IllegalStateException("Unknown tag " + tag + " at " + (at - 1) + " in " + frame);
+            }
+        }
+
+        private int integer(char end) {
+            int value = 0;
+            for (;;) {
+                char ch = frame.charAt(at++);
+                if (ch == end) {
+                    return value;
+                }
+                if (ch < '0' || ch > '9') {
+                    throw new IllegalStateException("Expecting digit at " + (at - 1) + " in " + frame);
+                }
+                value = value * 10 + (ch - '0');
+            }
+        }
+
+        private Double number() {
+            final int from = at;
+            boolean negative = false;
+            long value = 0;
+            int digits = 0;
+            boolean simple = true;
+            for (int i = 0;; i++) {
+                char ch = frame.charAt(at++);
+                if (ch == ';') {
+                    break;
+                }
+                if (ch >= '0' && ch <= '9' && digits < 16) {
+                    value = value * 10 + (ch - '0');
+                    digits++;
+                } else if (ch == '-' && i == 0) {
+                    negative = true;
+                } else {
+                    simple = false;
+                }
+            }
+            if (simple && digits > 0) {
+                // negating the double keeps the sign of -0
+                return negative ? -(double) value : (double) value;
+            }
+            return Double.valueOf(frame.substring(from, at - 1));
+        }
+    }
+
     final void encodeObject(Object a, boolean weak, StringBuilder sb, int[] vmId) {
+        char kind;
         if (a == null) {
             sb.append(Strings.v_null());
+        } else if (typedArrays && (kind = TypedArrays.kind(a)) != 0) {
+            sb.append("ds(").append(key).append(").ta('").append(kind).append("','");
+            sb.append(TypedArrays.encode(a)).append("')");
         } else if (a.getClass().isArray()) {
             int len = Array.getLength(a);
             sb.append('[');
@@ -526,33 +791,37 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
     private class CallJavaMethod extends Frame {
         Boolean done;
 
-        final Method method;
+        final Callback method;
         final Object thiz;
         final Object[] params;
         Object result;
 
-        CallJavaMethod(int id, Frame prev, Method method, Object thiz, Object[] params) {
+        CallJavaMethod(int id, Frame prev, Callback method, Object thiz, Object[] params) {
             super(id, prev);
             assert method != null;
             this.method = method;
             this.thiz = thiz;
-            this.params = adaptParams(method, Arrays.asList(params));
+            this.params = params;
         }
 
-
-
         @Override
         protected final void inJava() {
             if (done == null) {
                 done = false;
+                Fn.Monitor monitor = Fn.monitor(Generic.this);
+                long now = monitor == null ? 0L : System.nanoTime();
                 try {
                     log(Level.FINE, "Calling {0}", method);
                     result = method.invoke(thiz, params);
                 } catch (Exception ex) {
-                    log(Level.SEVERE, "Cannot invoke " + method + " on " + thiz + " with " + Arrays.toString(params), ex);
+                    Throwable t = ex instanceof InvocationTargetException ? ex.getCause() : ex;
+                    log(Level.SEVERE, "Cannot invoke " + method + " on " + thiz + " with " + Arrays.toString(params), t);
                 } finally {
                     done = true;
                     log(Level.FINE, "Result: {0}", result);
+                    if (monitor != null) {
+                        monitor.calledBack(method.toString(), System.nanoTime() - now);
+                    }
                 }
             }
         }
@@ -571,14 +840,24 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
 
     private final class DeferJavaScript extends Frame {
         private final StringBuilder sb;
+        private int calls;
 
         DeferJavaScript(int id, Frame prev, StringBuilder sb) {
             super(id, prev);
             this.sb = sb;
+            this.calls = 1;
         }
 
         void append(StringBuilder sb) {
             this.sb.append(sb);
+            this.calls++;
+        }
+
+        void flushed() {
+            Fn.Monitor monitor = Fn.monitor(Generic.this);
+            if (monitor != null) {
+                monitor.flushed(calls, sb.length());
+            }
         }
 
         @Override
@@ -666,24 +945,13 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
             assert vm != null;
             final Object obj = thizId == null || "null".equals(thizId)
                     ? null : valueOf("java", thizId);
-            Method method = null;
-            for (Method m : vm.getClass().getMethods()) {
-                if (m.getName().equals(fnName)) {
-                    method = m;
-                    break;
-                }
-            }
+            final Callback method = Callback.find(vm.getClass(), fnName);
             assert method != null;
-            List<Object> params = new ArrayList<Object>();
-            if (obj != null) {
-                params.add(obj);
-            }
-            final Object args = valueOf(encParams);
+            final Object args = compact ? valueOfFrame(encParams) : valueOf(encParams);
             if (!(args instanceof Object[])) {
                 throw new IllegalStateException("Expecting array: " + args);
             }
-            params.addAll(Arrays.asList((Object[]) args));
-            Object[] converted = adaptParams(method, params);
+            Object[] converted = method.adaptParams(obj, (Object[]) args);
             for (;;) {
                 Frame top = topMostCall();
                 if (top instanceof DeferJavaScript) {
@@ -693,7 +961,7 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
                     }
                 }
                 boolean first = top == null || (top instanceof CallJavaMethod && Boolean.TRUE.equals(((CallJavaMethod)top).done));
-                log(Level.FINE, "jc: {0}@{1}args: {2} is first: {3}, now: {4}", new Object[]{method.getName(), vm, params, first, topMostCall()});
+                log(Level.FINE, "jc: {0}@{1}args: {2} is first: {3}, now: {4}", new Object[]{fnName, vm, Arrays.asList(converted), first, topMostCall()});
                 CallJavaMethod newItem = registerCall(new CallJavaMethod(nextCallId(), top, method, vm, converted));
                 return javaresult();
             }
@@ -708,6 +976,7 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
                 if (def instanceof DeferJavaScript) {
                     final StringBuilder sb = ((DeferJavaScript) def).sb;
 
+                    ((DeferJavaScript) def).flushed();
                     sb.insert(0, "javascript:");
                     registerCall(def.prev);
                     return sb.toString();
@@ -758,6 +1027,9 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
 
     final void deferExec(StringBuilder sb) {
         synchronized (lock()) {
+            StringBuilder released = new StringBuilder();
+            appendReleased(released);
+            sb.insert(0, released);
             Frame c = topMostCall();
             if (c instanceof DeferJavaScript) {
                 ((DeferJavaScript) c).append(sb);
@@ -818,6 +1090,7 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
         boolean load;
         Frame top = topMostCall();
         if (top instanceof DeferJavaScript) {
+            ((DeferJavaScript) top).flushed();
             ((DeferJavaScript) top).sb.append(fn);
             fn = ((DeferJavaScript) top).sb.toString();
             top = top.prev;
@@ -856,13 +1129,80 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
         return ret;
     }
 
-    private static Object[] adaptParams(Method toCall, List<Object> args) {
-        final Object[] arr = new Object[args.size()];
-        final Class<?>[] types = toCall.getParameterTypes();
-        for (int i = 0; i < arr.length; i++) {
-            arr[i] = adaptType(types[i], args.get(i));
+    /** Java method callable from JavaScript. Resolved once per
+     * {@code $JsCallbacks$} class and name, together with adapters
+     * of its parameters.
+     */
+    private static final class Callback {
+        private static final ClassValue<Map<String,Callback>> CALLBACKS = new ClassValue<Map<String,Callback>>() {
+            @Override
+            protected Map<String, Callback> computeValue(Class<?> type) {
+                Map<String,Callback> map = new HashMap<String,Callback>();
+                for (Method m : type.getMethods()) {
+                    if (m.getDeclaringClass() == Object.class) {
+                        continue;
+                    }
+                    if (!map.containsKey(m.getName())) {
+                        map.put(m.getName(), new Callback(m));
+                    }
+                }
+                return map;
+            }
+        };
+
+        private final Method method;
+        private final Class<?>[] types;
+        private final MethodHandle handle;
+
+        private Callback(Method method) {
+            this.method = method;
+            this.types = method.getParameterTypes();
+            MethodHandle h;
+            try {
+                h = MethodHandles.publicLookup().unreflect(method);
+                h = h.asType(MethodType.genericMethodType(types.length + 1));
+                h = h.asSpreader(Object[].class, types.length);
+            } catch (IllegalAccessException ex) {
+                h = null;
+            }
+            this.handle = h;
+        }
+
+        static Callback find(Class<?> type, String name) {
+            return CALLBACKS.get(type).get(name);
+        }
+
+        final Object[] adaptParams(Object thiz, Object[] args) {
+            final int offset = thiz == null ? 0 : 1;
+            final Object[] arr = new Object[args.length + offset];
+            if (thiz != null) {
+                arr[0] = adaptType(types[0], thiz);
+            }
+            for (int i = 0; i < args.length; i++) {
+                arr[i + offset] = adaptType(types[i + offset], args[i]);
+            }
+            return arr;
+        }
+
+        final Object invoke(Object thiz, Object[] params) throws Exception {
+            if (handle == null || params.length != types.length) {
+                return method.invoke(thiz, params);
+            }
+            try {
+                return handle.invokeExact(thiz, params);
+            } catch (Exception ex) {
+                throw ex;
+            } catch (Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new InvocationTargetException(ex);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return method.toString();
         }
-        return arr;
     }
 
     private static Object adaptType(Class<?> type, Object value) {
@@ -879,6 +1219,65 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
         return value;
     }
 
+    /** @GuardedBy("lock()") */
+    private final Set<JSHandle> handles = new HashSet<JSHandle>();
+    private final ReferenceQueue<JSObject> unusedHandles = new ReferenceQueue<JSObject>();
+
+    final JSObject jsObject(int index) {
+        JSObject obj = new JSObject(index);
+        synchronized (lock()) {
+            handles.add(new JSHandle(obj, unusedHandles));
+        }
+        return obj;
+    }
+
+    /** Appends script to release JavaScript objects whose Java counterparts
+     * have been garbage collected. The slots in JavaScript are then reused
+     * for new objects. The release is put in front of the deferred script
+     * on its own line, so neither a trailing comment nor an exception in
+     * the script can skip it.
+     */
+    @Texts({
+        "releaseBegin=\nds(@1).f([",
+        "releaseEnd=]);\n"
+    })
+    private void appendReleased(StringBuilder sb) {
+        assert Thread.holdsLock(lock());
+        String sep = null;
+        for (;;) {
+            JSHandle h = (JSHandle) unusedHandles.poll();
+            if (h == null) {
+                break;
+            }
+            handles.remove(h);
+            if (sep == null) {
+                sb.append(Strings.releaseBegin(key));
+                sep = ",";
+            } else {
+                sb.append(sep);
+            }
+            sb.append(h.index);
+        }
+        if (sep != null) {
+            sb.append(Strings.releaseEnd());
+        }
+    }
+
+    final int jsObjectCount() {
+        synchronized (lock()) {
+            return handles.size();
+        }
+    }
+
+    private static final class JSHandle extends PhantomReference<JSObject> {
+        private final int index;
+
+        JSHandle(JSObject referent, ReferenceQueue<? super JSObject> q) {
+            super(referent, q);
+            this.index = referent.index;
+        }
+    }
+
     private static final class JSObject {
         private final int index;
 
@@ -990,42 +1389,105 @@ abstract class Generic implements Fn.Presenter, Fn.KeepAlive, Flushable {
         }
     }
 
-    private static final class Exported implements Comparable<Exported> {
-        private final int id;
-        private final Object obj;
-        private final boolean ref;
+    private static void keepKnockoutAlive(Object obj) {
+        WeakHolder.clean();
+        if (obj instanceof Reference) {
+            Reference<?> myRef = (Reference<?>) obj;
+            if (obj.getClass().getName().equals("org.netbeans.html.ko4j.Knockout")) {
+                // workaround for #255677
+                WeakHolder h = new WeakHolder(myRef.get(), obj);
+                h.register();
+            }
+        }
+    }
 
-        Exported(int id, boolean ref, Object obj) {
-            this.id = id;
-            this.obj = ref ? createReferenceFor(obj) : obj;
-            this.ref = ref;
-            WeakHolder.clean();
+    /** Map from {@code int} ids to exported objects. Uses open addressing
+     * with linear probing to avoid boxing of the keys.
+     */
+    private static final class IdMap {
+        private int[] keys = new int[16];
+        private Object[] values = new Object[16];
+        private int size;
+
+        Object get(int key) {
+            final int mask = keys.length - 1;
+            for (int i = index(key, mask);; i = (i + 1) & mask) {
+                Object v = values[i];
+                if (v == null) {
+                    return null;
+                }
+                if (keys[i] == key) {
+                    return v;
+                }
+            }
         }
 
-        protected Object get() {
-            if (ref) {
-                return ((Reference<?>)obj).get();
-            } else {
-                return obj;
+        void put(int key, Object value) {
+            assert value != null;
+            if ((size + 1) * 4 > keys.length * 3) {
+                resize(keys.length * 2);
+            }
+            final int mask = keys.length - 1;
+            for (int i = index(key, mask);; i = (i + 1) & mask) {
+                if (values[i] == null) {
+                    keys[i] = key;
+                    values[i] = value;
+                    size++;
+                    return;
+                }
+                if (keys[i] == key) {
+                    values[i] = value;
+                    return;
+                }
             }
         }
 
-        @Override
-        public int compareTo(Exported o) {
-            return id - o.id;
-        }
-
-        private static Object createReferenceFor(Object obj) {
-            Reference<Object> ref = new WeakReference<Object>(obj);
-            if (obj instanceof Reference) {
-                Reference<?> myRef = (Reference<?>) obj;
-                if (obj.getClass().getName().equals("org.netbeans.html.ko4j.Knockout")) {
-                    // workaround for #255677
-                    WeakHolder h = new WeakHolder(myRef.get(), obj);
-                    h.register();
+        void remove(int key) {
+            final int mask = keys.length - 1;
+            int i = index(key, mask);
+            for (;; i = (i + 1) & mask) {
+                if (values[i] == null) {
+                    return;
+                }
+                if (keys[i] == key) {
+                    break;
+                }
+            }
+            values[i] = null;
+            size--;
+            // shift following entries of the same cluster back
+            for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+                int home = index(keys[j], mask);
+                boolean move = i <= j ? (home <= i || home > j) : (home <= i && home > j);
+                if (move) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    values[j] = null;
+                    i = j;
                 }
             }
-            return ref;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void resize(int capacity) {
+            int[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new int[capacity];
+            values = new Object[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != null) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int index(int key, int mask) {
+            int h = key * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
         }
     }
 
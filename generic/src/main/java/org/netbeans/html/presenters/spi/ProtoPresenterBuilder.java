@@ -36,6 +36,8 @@ public final class ProtoPresenterBuilder {
     private Preparator onReady;
     private boolean sync;
     private boolean eval;
+    private boolean compact;
+    private boolean typedArrays;
     private String type;
     private String app;
     private Displayer displayer;
@@ -132,6 +134,44 @@ public final class ProtoPresenterBuilder {
         return this;
     }
 
+    /** Selects the encoding of values sent from JavaScript to Java.
+     * By default values are encoded as {@code type:value} strings, with arrays
+     * recursively prefixed by the length of each element. The compact
+     * protocol encodes each value as a single character tag followed by
+     * its length-prefixed payload, which can be decoded in a single pass
+     * without intermediate strings. The transport remains the same - all
+     * values are still passed as strings to
+     * {@link ProtoPresenter#js2java(java.lang.String, java.lang.String, java.lang.String, java.lang.String, java.lang.String)}.
+     *
+     * @param compact {@code true} to use the compact protocol
+     * @return this builder
+     * @since 1.8
+     */
+    public ProtoPresenterBuilder compactProtocol(boolean compact) {
+        this.compact = compact;
+        return this;
+    }
+
+    /** Maps primitive arrays to JavaScript typed arrays. When turned on,
+     * {@code double[]}, {@code float[]}, {@code int[]}, {@code short[]} and
+     * {@code byte[]} are passed to JavaScript as {@code Float64Array},
+     * {@code Float32Array}, {@code Int32Array}, {@code Int16Array} and
+     * {@code Int8Array} and typed arrays of these kinds are returned back
+     * as primitive Java arrays. The content is transferred in bulk as
+     * <em>base64</em> encoded bytes rather than element by element.
+     * Off by default, as typed arrays aren't regular JavaScript arrays
+     * (for example {@code Array.isArray} returns {@code false} and they
+     * cannot grow).
+     *
+     * @param typedArrays {@code true} to use typed arrays
+     * @return this builder
+     * @since 1.8
+     */
+    public ProtoPresenterBuilder typedArrays(boolean typedArrays) {
+        this.typedArrays = typedArrays;
+        return this;
+    }
+
     /** The type of the presenter (iOS, Android, etc.).
      * @param type string to identify the presenter
     * @return this builder
@@ -237,7 +277,7 @@ public final class ProtoPresenterBuilder {
         private final Object[] data;
 
         GenPresenter(ProtoPresenterBuilder b) {
-            super(b.sync, b.eval, b.type, b.app);
+            super(b.sync, b.eval, b.compact, b.typedArrays, b.type, b.app);
             this.loadScript = b.loadScript;
             this.executor = b.executor;
             this.onReady = b.onReady;
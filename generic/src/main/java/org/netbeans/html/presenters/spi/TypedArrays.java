@@ -0,0 +1,113 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.presenters.spi;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Base64;
+
+/** Bulk conversion of primitive arrays to and from <em>base64</em> encoded
+ * little endian bytes of JavaScript typed arrays. Each supported kind is
+ * identified by a single character: {@code d} for {@code Float64Array},
+ * {@code f} for {@code Float32Array}, {@code i} for {@code Int32Array},
+ * {@code s} for {@code Int16Array} and {@code b} for {@code Int8Array}.
+ */
+final class TypedArrays {
+    private TypedArrays() {
+    }
+
+    /** Finds kind of typed array for given Java array.
+     *
+     * @param arr any array
+     * @return kind of the typed array or {@code 0} if the array isn't supported
+     */
+    static char kind(Object arr) {
+        if (arr instanceof double[]) {
+            return 'd';
+        } else if (arr instanceof float[]) {
+            return 'f';
+        } else if (arr instanceof int[]) {
+            return 'i';
+        } else if (arr instanceof short[]) {
+            return 's';
+        } else if (arr instanceof byte[]) {
+            return 'b';
+        }
+        return 0;
+    }
+
+    static String encode(Object arr) {
+        ByteBuffer bb;
+        if (arr instanceof double[]) {
+            double[] values = (double[]) arr;
+            bb = allocate(values.length * 8);
+            bb.asDoubleBuffer().put(values);
+        } else if (arr instanceof float[]) {
+            float[] values = (float[]) arr;
+            bb = allocate(values.length * 4);
+            bb.asFloatBuffer().put(values);
+        } else if (arr instanceof int[]) {
+            int[] values = (int[]) arr;
+            bb = allocate(values.length * 4);
+            bb.asIntBuffer().put(values);
+        } else if (arr instanceof short[]) {
+            short[] values = (short[]) arr;
+            bb = allocate(values.length * 2);
+            bb.asShortBuffer().put(values);
+        } else {
+            return Base64.getEncoder().encodeToString((byte[]) arr);
+        }
+        return Base64.getEncoder().encodeToString(bb.array());
+    }
+
+    static Object decode(char kind, String base64) {
+        byte[] bytes = Base64.getDecoder().decode(base64);
+        ByteBuffer bb = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        switch (kind) {
+            case 'd': {
+                double[] arr = new double[bytes.length / 8];
+                bb.asDoubleBuffer().get(arr);
+                return arr;
+            }
+            case 'f': {
+                float[] arr = new float[bytes.length / 4];
+                bb.asFloatBuffer().get(arr);
+                return arr;
+            }
+            case 'i': {
+                int[] arr = new int[bytes.length / 4];
+                bb.asIntBuffer().get(arr);
+                return arr;
+            }
+            case 's': {
+                short[] arr = new short[bytes.length / 2];
+                bb.asShortBuffer().get(arr);
+                return arr;
+            }
+            case 'b':
+                return bytes;
+            default:
+                throw new IllegalStateException("Unknown kind of typed array: " + kind);
+        }
+    }
+
+    private static ByteBuffer allocate(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.presenters.spi;
+
+import java.io.StringReader;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import static org.testng.Assert.*;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ExportedTest {
+    private Generic p;
+    @BeforeMethod public void initInstance() {
+        p = new Generic(true, true, false, false, "type", "app") {
+            @Override
+            void handleLog(Level level, String msg, Object... args) {
+            }
+
+            @Override
+            void callbackFn(ProtoPresenterBuilder.OnPrepared onReady) {
+            }
+
+            @Override
+            void loadJS(String js) {
+            }
+
+            @Override
+            void dispatch(Runnable r) {
+            }
+
+            @Override
+            public void displayPage(URL url, Runnable r) {
+            }
+        };
+    }
+
+    @Test public void sameObjectSameId() {
+        Object a = new Object();
+        Object b = new Object();
+        boolean[] added = { false };
+        int idA = p.registerObject(a, true, added, null);
+        assertTrue(added[0], "a was added");
+        added[0] = false;
+        int idB = p.registerObject(b, true, added, null);
+        assertTrue(added[0], "b was added");
+        assertNotEquals(idA, idB, "Different objects, different ids");
+        added[0] = false;
+        assertEquals(p.registerObject(a, true, added, null), idA, "Same id for a");
+        assertFalse(added[0], "a isn't added again");
+        assertSame(p.findObject(idA), a);
+        assertSame(p.findObject(idB), b);
+        assertNull(p.findObject(idB + 10), "Unknown id");
+    }
+
+    @Test public void manyObjects() {
+        List<Object> keep = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            Object o = new Object();
+            keep.add(o);
+            ids.add(p.registerObject(o, false, null, null));
+        }
+        for (int i = 0; i < keep.size(); i++) {
+            assertSame(p.findObject(ids.get(i)), keep.get(i), "Found at " + i);
+        }
+        assertEquals(p.exportedCount(), 10000);
+    }
+
+    @Test public void weakObjectsAreReclaimed() throws Exception {
+        Object strong = new Object();
+        int strongId = p.registerObject(strong, false, null, null);
+        List<Reference<?>> refs = new ArrayList<>();
+        int[] ids = new int[1000];
+        for (int i = 0; i < ids.length; i++) {
+            Object o = new Object();
+            refs.add(new WeakReference<>(o));
+            ids[i] = p.registerObject(o, true, null, null);
+        }
+        for (Reference<?> ref : refs) {
+            assertGC(ref);
+        }
+        for (int i = 0; i < 100 && p.exportedCount() > 1; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(p.exportedCount(), 1, "Only the strongly held object remains");
+        for (int id : ids) {
+            assertNull(p.findObject(id), "Object " + id + " is gone");
+        }
+        assertSame(p.findObject(strongId), strong);
+
+        Object next = new Object();
+        int nextId = p.registerObject(next, true, null, null);
+        for (int id : ids) {
+            assertNotEquals(nextId, id, "Ids of collected objects aren't reused");
+        }
+        assertSame(p.findObject(nextId), next);
+    }
+
+    private static void assertGC(Reference<?> ref) throws InterruptedException {
+        for (int i = 0; i < 100 && ref.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(ref.get(), "Reference has been cleared");
+    }
+
+    @Test public void collectedJavaScriptObjectsAreReleased() throws Exception {
+        Object keep = p.valueOf("object", "3");
+        Reference<?> ref = new WeakReference<>(p.valueOf("object", "5"));
+        assertEquals(p.jsObjectCount(), 2, "Two JavaScript objects");
+        assertGC(ref);
+
+        StringBuilder sb = new StringBuilder("alert('Hi');\n");
+        for (int i = 0; i < 100 && p.jsObjectCount() > 1; i++) {
+            p.deferExec(sb);
+            Thread.sleep(10);
+        }
+        assertEquals(p.jsObjectCount(), 1, "Only one object remains");
+        assertTrue(sb.toString().contains(".f([5]);"), "Release of 5 is requested:\n" + sb);
+        assertFalse(sb.toString().contains(".f([3"), "3 is still in use:\n" + sb);
+        assertEquals(keep.toString(), "[jsobject-3]");
+    }
+
+    @Test public void releaseIsntCommentedOutByLoadedScript() throws Exception {
+        StringBuilder deferred = new StringBuilder("var x = 0;\n");
+        p.deferExec(deferred);
+
+        Reference<?> ref = new WeakReference<>(p.valueOf("object", "7"));
+        assertGC(ref);
+        for (int i = 0; i < 100 && p.jsObjectCount() > 0; i++) {
+            p.loadScript(new StringReader("x++; // comment"));
+            Thread.sleep(10);
+        }
+        assertEquals(p.jsObjectCount(), 0, "Object released");
+        String text = deferred.toString();
+        int release = text.indexOf(".f([7]);");
+        assertTrue(release >= 0, "Release of 7 is requested:\n" + text);
+        int lineStart = text.lastIndexOf('\n', release) + 1;
+        assertTrue(text.substring(lineStart, release).startsWith("ds("), "Release on its own line:\n" + text);
+        assertTrue(text.indexOf("x++; // comment", release) > release, "Release precedes the script:\n" + text);
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.presenters.spi;
+
+import java.net.URL;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+
+public class TypedArrayEncodingTest {
+    @Test public void primitiveArraysRoundTrip() throws Exception {
+        assertRoundTrip(false);
+    }
+
+    @Test public void primitiveArraysRoundTripInFrames() throws Exception {
+        assertRoundTrip(true);
+    }
+
+    @Test public void javaDecodesLittleEndianBase64() {
+        Generic p = create(false, true);
+        assertEquals((double[]) p.valueOf("typed:dAAAAAAAA+D8="), new double[] { 1.5 });
+        assertEquals((int[]) p.valueOfFrame("xi12:AQAAAP7///8="), new int[] { 1, -2 });
+        assertEquals((byte[]) p.valueOfFrame("xb0:"), new byte[0]);
+    }
+
+    @Test public void arraysAreEncodedElementByElementByDefault() {
+        Generic p = create(false, false);
+        StringBuilder sb = new StringBuilder();
+        p.encodeObject(new int[] { 1, -2 }, false, sb, null);
+        assertEquals(sb.toString(), "[1,-2]");
+    }
+
+    private static void assertRoundTrip(boolean compact) throws Exception {
+        Generic p = create(compact, true);
+        ScriptEngine eng = new ScriptEngineManager().getEngineByMimeType("text/javascript");
+        eng.getBindings(ScriptContext.ENGINE_SCOPE).put("polyglot.js.allowAllAccess", true);
+
+        Object[] values = {
+            new double[] { 1.5, -0.25, Double.MAX_VALUE },
+            new float[] { 3.5f, -1f },
+            new int[] { 1, -2, Integer.MAX_VALUE, Integer.MIN_VALUE },
+            new short[] { 7, -7, Short.MIN_VALUE },
+            new byte[] { 0, 1, -1, 127, -128 },
+            new byte[] { 42 },
+            new double[0],
+        };
+        String[] ctors = {
+            "Float64Array", "Float32Array", "Int32Array", "Int16Array",
+            "Int8Array", "Int8Array", "Float64Array"
+        };
+        for (int i = 0; i < values.length; i++) {
+            StringBuilder sb = new StringBuilder();
+            p.encodeObject(values[i], false, sb, null);
+            if (i == 0) {
+                Matcher m = Pattern.compile("ds\\((-?[0-9]+)\\)").matcher(sb);
+                assertTrue(m.find(), "Key found in " + sb);
+                eng.eval("var last; this.clbk = function(m, id, t, r) { last = t + ':' + r; };");
+                eng.eval(Strings.init(m.group(1), "clbk", compact, true).toString());
+                eng.eval("var ds0 = ds(" + m.group(1) + ");");
+            }
+            eng.eval("var arr = " + sb + ";");
+            assertEquals(eng.eval("Object.prototype.toString.call(arr)"), "[object " + ctors[i] + "]", sb.toString());
+            eng.eval("last = null; ds0.toJava('r', 1, arr);");
+            String last = (String) eng.eval("last");
+            int colon = last.indexOf(':');
+            Object back = compact ? p.valueOfFrame(last.substring(colon + 1)) : p.valueOf(last);
+            assertEquals(back.getClass(), values[i].getClass(), last);
+            assertTrue(Objects.deepEquals(back, values[i]), "Same values after " + last);
+        }
+    }
+
+    private static Generic create(boolean compact, boolean typedArrays) {
+        return new Generic(true, true, compact, typedArrays, "type", "app") {
+            @Override
+            void handleLog(Level level, String msg, Object... args) {
+            }
+
+            @Override
+            void callbackFn(ProtoPresenterBuilder.OnPrepared onReady) {
+            }
+
+            @Override
+            void loadJS(String js) {
+            }
+
+            @Override
+            void dispatch(Runnable r) {
+            }
+
+            @Override
+            public void displayPage(URL url, Runnable r) {
+            }
+        };
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.presenters.spi;
+
+import java.net.URL;
+import static org.testng.Assert.*;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ValueOfFrameTest {
+    private Generic p;
+    @BeforeMethod public void initInstance() {
+        p = new Generic(true, true, true, false, "type", "app") {
+            @Override
+            void handleLog(Level level, String msg, Object... args) {
+            }
+
+            @Override
+            void callbackFn(ProtoPresenterBuilder.OnPrepared onReady) {
+            }
+
+            @Override
+            void loadJS(String js) {
+            }
+
+            @Override
+            void dispatch(Runnable r) {
+            }
+
+            @Override
+            public void displayPage(URL url, Runnable r) {
+            }
+        };
+    }
+
+    @Test public void parseSimpleFrame() {
+        Object res = p.valueOf("frame", "a1;d6;");
+        assertTrue(res instanceof Object[], "It is an array: " + res);
+        Object[] arr = (Object[]) res;
+        assertEquals(arr.length, 1, "One array item");
+        assertEquals(arr[0], 6.0, "Value is six");
+    }
+
+    @Test public void parseNestedFrame() {
+        Object res = p.valueOfFrame("a5;s5:a;b:cd-1.5;a2;tfns0:");
+        assertTrue(res instanceof Object[], "It is an array: " + res);
+        Object[] arr = (Object[]) res;
+        assertEquals(arr.length, 5, "Five items");
+        assertEquals(arr[0], "a;b:c", "Separators in strings are preserved");
+        assertEquals(arr[1], -1.5, "Decimal number");
+        assertEquals(arr[2], new Object[] { true, false }, "Nested array");
+        assertNull(arr[3], "null value");
+        assertEquals(arr[4], "", "Empty string");
+    }
+
+    @Test public void parseNumbersInFrame() {
+        assertEquals(p.valueOfFrame("d-42;"), -42.0);
+        assertEquals(p.valueOfFrame("d1e+21;"), 1e21);
+        assertEquals(p.valueOfFrame("dNaN;"), Double.NaN);
+        assertEquals(p.valueOfFrame("d-Infinity;"), Double.NEGATIVE_INFINITY);
+        assertEquals(p.valueOfFrame("d12345678901234567890;"), 12345678901234567890.0);
+        assertEquals(1 / (Double) p.valueOfFrame("d-0;"), Double.NEGATIVE_INFINITY, "Negative zero");
+        assertEquals(1 / (Double) p.valueOfFrame("d0;"), Double.POSITIVE_INFINITY, "Positive zero");
+    }
+
+    @Test public void objectsInFrame() {
+        Object res = p.valueOfFrame("o3;");
+        assertNotNull(res, "JavaScript object found");
+        assertEquals(res.toString(), "[jsobject-3]");
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void trailingDataInFrame() {
+        p.valueOfFrame("tf");
+    }
+}
@@ -26,7 +26,7 @@ import org.testng.annotations.Test;
 public class ValueOfTest {
     private Generic p;
     @BeforeMethod public void initInstance() {
-        p = new Generic(true, true, "type", "app") {
+        p = new Generic(true, true, false, false, "type", "app") {
             @Override
             void handleLog(Level level, String msg, Object... args) {
             }
@@ -0,0 +1,35 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.presenters.spi.test;
+
+import java.util.concurrent.Executors;
+import static org.netbeans.html.presenters.spi.test.GenericTest.createTests;
+import org.testng.annotations.Factory;
+
+public class CompactTest {
+    @Factory public static Object[] compatibilityTests() throws Exception {
+        return createTests(new Compact());
+    }
+
+    private static class Compact extends Testing {
+        public Compact() {
+            super(false, true, Executors.newSingleThreadExecutor());
+        }
+    } // end of Compact
+}
@@ -45,6 +45,12 @@ class Testing {
         this(sync, Executors.newSingleThreadExecutor());
     }
     protected Testing(boolean sync, Executor queue) {
+        this(sync, false, queue);
+    }
+    protected Testing(boolean sync, boolean compact, Executor queue) {
+        this(sync, compact, false, queue);
+    }
+    protected Testing(boolean sync, boolean compact, boolean typedArrays, Executor queue) {
         this.sync = sync;
         this.QUEUE = queue;
         this.presenter = ProtoPresenterBuilder.newBuilder()
@@ -54,6 +60,8 @@ class Testing {
             .loadJavaScript(this::loadJS, sync)
             .displayer(this::displayPage)
             .preparator(this::callbackFn, true)
+            .compactProtocol(compact)
+            .typedArrays(typedArrays)
             .logger(this::log)
             .build();
         GenericTCK.INSTANCE.register(this.presenter, this);
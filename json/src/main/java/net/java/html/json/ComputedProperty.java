@@ -67,6 +67,10 @@ import org.netbeans.html.json.spi.Technology;
  * As soon as one of the properties the derived property method is accessing
  * changes, the method is called again to recompute its new value and the
  * change is notified to the underlying {@linkplain Technology (rendering) technology}.
+ * Since version 1.8 the computed value is remembered until one of the
+ * properties it depends on changes - the method should therefore
+ * only depend on its arguments. Methods taking the whole model
+ * as their only argument are called on each access.
  * <p>
  * Method's return type defines the type of the derived property. It may be
  * any primitive type, {@link String}, {@link Enum enum type} or a 
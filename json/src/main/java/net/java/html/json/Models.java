@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
+import org.netbeans.html.json.impl.Batch;
 import org.netbeans.html.json.impl.JSON;
 import org.netbeans.html.json.impl.SimpleList;
 import org.netbeans.html.json.spi.Technology;
@@ -167,6 +168,32 @@ public final class Models {
         JSON.applyBindings(model, targetId);
     }
 
+    /** Executes given code in a batch. Changes made to
+     * {@link Model models} bound to the <code>context</code> while
+     * the <code>code</code> is running aren't propagated to the
+     * {@link Technology technology} immediately. They are collected,
+     * repeated changes of the same property of the same model are merged,
+     * and all of them are delivered at once when the <code>code</code>
+     * finishes. Use this method when performing bulk updates:
+     * <pre>
+     * Models.batch(ctx, () -&gt; {
+     *   for (Person p : people) {
+     *     p.setFirstName(p.getFirstName().trim());
+     *     p.setLastName(p.getLastName().trim());
+     *   }
+     * });
+     * </pre>
+     * Batches can be nested, the changes are then delivered when the
+     * outermost batch finishes.
+     *
+     * @param context the context of the models to modify
+     * @param code the code to execute
+     * @since 1.8
+     */
+    public static void batch(BrwsrCtx context, Runnable code) {
+        Batch.run(context, code);
+    }
+
     /** Wrap provided values into mutable list.
      *
      * @param <T> type of the values and resulting list
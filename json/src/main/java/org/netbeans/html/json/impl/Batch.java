@@ -0,0 +1,169 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.json.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.java.html.BrwsrCtx;
+import org.netbeans.html.json.spi.Proto;
+
+/** Collects notifications about changed properties while
+ * {@link net.java.html.json.Models#batch(net.java.html.BrwsrCtx, java.lang.Runnable)}
+ * is running and delivers them at once when it is over.
+ *
+ * @author Jaroslav Tulach
+ */
+public final class Batch {
+    private static final ThreadLocal<Batch> CURRENT = new ThreadLocal<Batch>();
+
+    private final BrwsrCtx ctx;
+    private final Batch outer;
+    private final Map<Change,Change> changes = new HashMap<Change,Change>();
+    private final List<Change> order = new ArrayList<Change>();
+
+    private Batch(BrwsrCtx ctx, Batch outer) {
+        this.ctx = ctx;
+        this.outer = outer;
+    }
+
+    public static void run(BrwsrCtx ctx, Runnable code) {
+        if (find(ctx) != null) {
+            code.run();
+            return;
+        }
+        final Batch b = new Batch(ctx, CURRENT.get());
+        CURRENT.set(b);
+        try {
+            code.run();
+        } finally {
+            CURRENT.set(b.outer);
+            if (!b.order.isEmpty()) {
+                ctx.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        b.deliver();
+                    }
+                });
+            }
+        }
+    }
+
+    /** Records a change, if there is a batch for the context active.
+     *
+     * @return <code>true</code> if the change has been recorded and
+     *   shall be delivered later, <code>false</code> if it should be
+     *   delivered immediately
+     */
+    public static boolean record(Proto proto, String name, Object oldValue, Object newValue) {
+        Batch b = find(proto.getContext());
+        if (b == null) {
+            return false;
+        }
+        Change c = new Change(proto, name, oldValue, newValue);
+        Change prev = b.changes.get(c);
+        if (prev == null) {
+            b.changes.put(c, c);
+            b.order.add(c);
+        } else {
+            prev.merge(c);
+        }
+        return true;
+    }
+
+    private static Batch find(BrwsrCtx ctx) {
+        for (Batch b = CURRENT.get(); b != null; b = b.outer) {
+            if (b.ctx == ctx) {
+                return b;
+            }
+        }
+        return null;
+    }
+
+    final void deliver() {
+        Batch prev = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            for (int i = 0; i < order.size(); i++) {
+                Change c = order.get(i);
+                PropertyBindingAccessor.notifyProtoObservers(c.proto, c.name);
+            }
+        } finally {
+            CURRENT.set(prev);
+        }
+        List<Bindings> bindings = new ArrayList<Bindings>(order.size());
+        List<Change> delivered = new ArrayList<Change>(order.size());
+        for (Change c : order) {
+            Bindings b = PropertyBindingAccessor.getBindings(c.proto, false, null);
+            if (b != null) {
+                if (c.isUnknown()) {
+                    c.newValue = PropertyBindingAccessor.cachedProtoValue(c.proto, c.name);
+                }
+                bindings.add(b);
+                delivered.add(c);
+            }
+        }
+        Bindings.valuesHaveMutated(bindings, delivered);
+    }
+
+    static final class Change {
+        final Proto proto;
+        final String name;
+        Object oldValue;
+        Object newValue;
+
+        Change(Proto proto, String name, Object oldValue, Object newValue) {
+            this.proto = proto;
+            this.name = name;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        final boolean isUnknown() {
+            return oldValue == null && newValue == null;
+        }
+
+        final void merge(Change later) {
+            if (isUnknown()) {
+                return;
+            }
+            if (later.isUnknown()) {
+                oldValue = null;
+                newValue = null;
+            } else {
+                newValue = later.newValue;
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(proto) * 31 + name.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Change) {
+                Change other = (Change) obj;
+                return proto == other.proto && name.equals(other.name);
+            }
+            return false;
+        }
+    }
+}
@@ -18,6 +18,7 @@
  */
 package org.netbeans.html.json.impl;
 
+import java.util.List;
 import net.java.html.BrwsrCtx;
 import org.netbeans.html.json.spi.FunctionBinding;
 import org.netbeans.html.json.spi.PropertyBinding;
@@ -88,6 +89,51 @@ public final class Bindings<Data> {
         }
     }
     
+    final boolean isArrayMutated() {
+        return bp instanceof Technology.ArrayMutated;
+    }
+
+    final boolean arrayHasMutated(String propertyName, int index, int removed, Object[] added) {
+        if (bp instanceof Technology.ArrayMutated) {
+            Technology.ArrayMutated<Data> am = (Technology.ArrayMutated<Data>) bp;
+            return am.arrayHasMutated(data, propertyName, index, removed, bp.wrapArray(added));
+        }
+        return false;
+    }
+
+    static void valuesHaveMutated(List<Bindings> bindings, List<Batch.Change> changes) {
+        int from = 0;
+        while (from < bindings.size()) {
+            final Technology<?> tech = bindings.get(from).bp;
+            int to = from + 1;
+            while (to < bindings.size() && bindings.get(to).bp == tech) {
+                to++;
+            }
+            if (tech instanceof Technology.BatchMutated && to - from > 1) {
+                final int len = to - from;
+                Object[] data = new Object[len];
+                String[] names = new String[len];
+                Object[] oldValues = new Object[len];
+                Object[] newValues = new Object[len];
+                for (int i = 0; i < len; i++) {
+                    Bindings<?> b = bindings.get(from + i);
+                    Batch.Change c = changes.get(from + i);
+                    data[i] = b.data;
+                    names[i] = c.name;
+                    oldValues[i] = JSON.find(c.oldValue, b);
+                    newValues[i] = JSON.find(c.newValue, b);
+                }
+                ((Technology.BatchMutated<?>) tech).valuesHaveMutated(data, names, oldValues, newValues);
+            } else {
+                for (int i = from; i < to; i++) {
+                    Batch.Change c = changes.get(i);
+                    bindings.get(i).valueHasMutated(c.name, c.oldValue, c.newValue);
+                }
+            }
+            from = to;
+        }
+    }
+
     public void applyBindings(String id) {
         if (bp instanceof Technology.ApplyId) {
             Technology.ApplyId<Data> ai = (Technology.ApplyId<Data>) bp;
@@ -63,7 +63,15 @@ public final class JSON {
         }
     }
     public static void extract(BrwsrCtx c, Object value, String[] props, Object[] values) {
+        if (value instanceof JSONParser.Obj) {
+            ((JSONParser.Obj) value).extract(props, values);
+            return;
+        }
         Transfer t = findTransfer(c);
+        if (value instanceof Prefetch.Item) {
+            ((Prefetch.Item) value).extract(t, props, values);
+            return;
+        }
         t.extract(value, props, values);
     }
 
@@ -88,26 +96,84 @@ public final class JSON {
         }
         if (value instanceof String) {
             String s = (String)value;
-            int len = s.length();
-            StringBuilder sb = new StringBuilder(len + 10);
-            sb.append('"');
-            for (int i = 0; i < len; i++) {
-                char ch = s.charAt(i);
-                switch (ch) {
-                    case '\"': sb.append("\\\""); break;
-                    case '\n': sb.append("\\n"); break;
-                    case '\r': sb.append("\\r"); break;
-                    case '\t': sb.append("\\t"); break;
-                    case '\\': sb.append("\\\\"); break;
-                    default: sb.append(ch);
-                }
+            StringBuilder sb = new StringBuilder(s.length() + 10);
+            try {
+                writeString(s, sb);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
             }
-            sb.append('"');
             return sb.toString();
         }
         return value.toString();
     }
 
+    public static void writeJSON(Object value, Appendable out) throws IOException {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        if (value instanceof String) {
+            writeString((String) value, out);
+            return;
+        }
+        if (value instanceof Enum || value instanceof Character) {
+            writeString(value.toString(), out);
+            return;
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            out.append(value.toString());
+            return;
+        }
+        if (value instanceof JSONList) {
+            ((JSONList<?>) value).writeTo(out);
+            return;
+        }
+        Proto.Type<Object> type = (Proto.Type<Object>) ModelTypes.MODELS.find(value.getClass())[0];
+        if (type != null) {
+            PropertyBindingAccessor.writeModel(type, value, out);
+            return;
+        }
+        out.append(value.toString());
+    }
+
+    /** Writes body of a {@link org.netbeans.html.json.spi.JSONCall}.
+     * Models and lists are written as JSON, other values as their
+     * <code>toString()</code>.
+     */
+    public static void writeData(Object data, Appendable out) throws IOException {
+        if (data instanceof JSONList) {
+            ((JSONList<?>) data).writeTo(out);
+            return;
+        }
+        Proto.Type<Object> type = (Proto.Type<Object>) ModelTypes.MODELS.find(data.getClass())[0];
+        if (type != null) {
+            PropertyBindingAccessor.writeModel(type, data, out);
+            return;
+        }
+        out.append(data.toString());
+    }
+
+    private static void writeString(String s, Appendable out) throws IOException {
+        int len = s.length();
+        out.append('"');
+        int from = 0;
+        for (int i = 0; i < len; i++) {
+            String esc;
+            switch (s.charAt(i)) {
+                case '\"': esc = "\\\""; break;
+                case '\n': esc = "\\n"; break;
+                case '\r': esc = "\\r"; break;
+                case '\t': esc = "\\t"; break;
+                case '\\': esc = "\\\\"; break;
+                default: continue;
+            }
+            out.append(s, from, i).append(esc);
+            from = i + 1;
+        }
+        out.append(s, from, len);
+        out.append('"');
+    }
+
     public static String toString(BrwsrCtx c, Object obj, String prop) {
         obj = getProperty(c, obj, prop);
         return obj == null ? null : obj.toString();
@@ -394,12 +460,16 @@ public final class JSON {
     public static <T> T readStream(BrwsrCtx c, Class<T> modelClazz, InputStream data, Collection<? super T> collectTo)
     throws IOException {
         Transfer tr = findTransfer(c);
+        if (tr instanceof Transfer.Streaming) {
+            return readTokens(c, modelClazz, ((Transfer.Streaming) tr).tokens(data), collectTo);
+        }
         Object rawJSON = tr.toJSON((InputStream)data);
         if (rawJSON instanceof Object[]) {
             final Object[] arr = (Object[])rawJSON;
             if (collectTo != null) {
-                for (int i = 0; i < arr.length; i++) {
-                    collectTo.add(read(c, modelClazz, arr[i]));
+                final Object[] items = Prefetch.wrap(tr, arr);
+                for (int i = 0; i < items.length; i++) {
+                    collectTo.add(read(c, modelClazz, items[i]));
                 }
                 return null;
             }
@@ -414,6 +484,45 @@ public final class JSON {
         }
         return res;
     }
+    private static <T> T readTokens(BrwsrCtx c, Class<T> modelClazz, Transfer.Tokens tokens, Collection<? super T> collectTo)
+    throws IOException {
+        if (!tokens.nextArray()) {
+            if (collectTo != null) {
+                collectTo.add(null);
+            }
+            return null;
+        }
+        if (!tokens.hasNext()) {
+            if (collectTo != null) {
+                return null;
+            }
+            throw new EOFException("Recieved an empty array");
+        }
+        do {
+            T res = read(c, modelClazz, tokens);
+            if (collectTo == null) {
+                return res;
+            }
+            collectTo.add(res);
+        } while (tokens.hasNext());
+        return null;
+    }
+
+    public static <T> T read(BrwsrCtx c, Class<T> modelClazz, Transfer.Tokens data) throws IOException {
+        Proto.Type<?> from = modelClazz == String.class ? null : findType(modelClazz);
+        if (from == null) {
+            return read(c, modelClazz, data.nextValue());
+        }
+        return modelClazz.cast(PropertyBindingAccessor.readFrom(from, c, data));
+    }
+
+    public static <T> void readArray(BrwsrCtx c, Class<T> modelClazz, Object[] data, T[] dest) {
+        Object[] items = Prefetch.wrap(findTransfer(c), data);
+        for (int i = 0; i < items.length && i < dest.length; i++) {
+            dest[i] = read(c, modelClazz, items[i]);
+        }
+    }
+
     public static <T> T read(BrwsrCtx c, Class<T> modelClazz, Object data) {
         if (data == null) {
             return null;
@@ -450,7 +559,7 @@ public final class JSON {
     }
 
     private static final class EmptyTech
-    implements Technology<Object>, Transfer, WSTransfer<Void> {
+    implements Technology<Object>, Transfer.Streaming, WSTransfer<Void> {
         private static final EmptyTech EMPTY = new EmptyTech();
 
         @Override
@@ -498,7 +607,12 @@ public final class JSON {
 
         @Override
         public Object toJSON(InputStream is) throws IOException {
-            throw new IOException("Not supported");
+            return JSONParser.parse(is);
+        }
+
+        @Override
+        public Transfer.Tokens tokens(InputStream is) throws IOException {
+            return JSONParser.tokens(is);
         }
 
         @Override
@@ -18,11 +18,15 @@
  */
 package org.netbeans.html.json.impl;
 
+import java.io.IOException;
 import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.Iterator;
+import java.util.List;
 import org.netbeans.html.json.spi.Proto;
+import org.netbeans.html.json.spi.Technology;
 
 /**
  *
@@ -33,6 +37,9 @@ public final class JSONList<T> extends SimpleList<T> {
     private final String name;
     private final String[] deps;
     private final int index;
+    private Splice splices;
+    private int spliceCount;
+    private boolean synced;
 
     public JSONList(Proto proto, String name, int changeIndex, String... deps) {
         this.proto = proto;
@@ -65,7 +72,9 @@ public final class JSONList<T> extends SimpleList<T> {
     @Override
     public boolean add(T e) {
         prepareChange();
+        int at = size();
         boolean ret = super.add(e);
+        recordSplice(at, 0, e);
         notifyChange();
         return ret;
     }
@@ -73,7 +82,9 @@ public final class JSONList<T> extends SimpleList<T> {
     @Override
     public boolean addAll(Collection<? extends T> c) {
         prepareChange();
+        int at = size();
         boolean ret = super.addAll(c);
+        recordSplice(at, 0, c.toArray());
         notifyChange();
         return ret;
     }
@@ -82,6 +93,7 @@ public final class JSONList<T> extends SimpleList<T> {
     public boolean addAll(int index, Collection<? extends T> c) {
         prepareChange();
         boolean ret = super.addAll(index, c);
+        recordSplice(index, 0, c.toArray());
         notifyChange();
         return ret;
     }
@@ -90,13 +102,18 @@ public final class JSONList<T> extends SimpleList<T> {
         prepareChange();
         super.clear();
         super.addAll(c);
+        resetSplices(false);
         notifyChange();
     }
 
     @Override
     public boolean remove(Object o) {
         prepareChange();
+        int at = indexOf(o);
         boolean ret = super.remove(o);
+        if (ret) {
+            recordSplice(at, 1);
+        }
         notifyChange();
         return ret;
     }
@@ -104,7 +121,9 @@ public final class JSONList<T> extends SimpleList<T> {
     @Override
     public void clear() {
         prepareChange();
+        int len = size();
         super.clear();
+        recordSplice(0, len);
         notifyChange();
     }
 
@@ -118,6 +137,7 @@ public final class JSONList<T> extends SimpleList<T> {
 
     public void sort(Comparator<? super T> c) {
         super.sort(c);
+        resetSplices(false);
         notifyChange();
     }
 
@@ -125,6 +145,7 @@ public final class JSONList<T> extends SimpleList<T> {
     public boolean retainAll(Collection<?> c) {
         prepareChange();
         boolean ret = super.retainAll(c);
+        resetSplices(false);
         notifyChange();
         return ret;
     }
@@ -133,6 +154,7 @@ public final class JSONList<T> extends SimpleList<T> {
     public T set(int index, T element) {
         prepareChange();
         T ret = super.set(index, element);
+        recordSplice(index, 1, element);
         notifyChange();
         return ret;
     }
@@ -141,6 +163,7 @@ public final class JSONList<T> extends SimpleList<T> {
     public void add(int index, T element) {
         prepareChange();
         super.add(index, element);
+        recordSplice(index, 0, element);
         notifyChange();
     }
 
@@ -148,6 +171,7 @@ public final class JSONList<T> extends SimpleList<T> {
     public T remove(int index) {
         prepareChange();
         T ret = super.remove(index);
+        recordSplice(index, 1);
         notifyChange();
         return ret;
     }
@@ -155,28 +179,35 @@ public final class JSONList<T> extends SimpleList<T> {
     @Override
     void clearImpl(int from, int to) {
         super.clearImpl(from, to);
+        recordSplice(from, to - from);
         notifyChange();
     }
 
     @Override
     public String toString() {
-        Iterator<T> it = iterator();
-        if (!it.hasNext()) {
+        if (isEmpty()) {
             return "[]";
         }
-        String sep = "";
         StringBuilder sb = new StringBuilder();
-        sb.append('[');
-        while (it.hasNext()) {
-            T t = it.next();
-            sb.append(sep);
-            sb.append(JSON.toJSON(t));
-            sep = ",";
+        try {
+            writeTo(sb);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
         }
-        sb.append(']');
         return sb.toString();
     }
 
+    void writeTo(Appendable out) throws IOException {
+        out.append('[');
+        String sep = "";
+        for (T t : this) {
+            out.append(sep);
+            JSON.writeJSON(t, out);
+            sep = ",";
+        }
+        out.append(']');
+    }
+
     private void prepareChange() {
         if (index == Integer.MIN_VALUE) {
             try {
@@ -188,15 +219,23 @@ public final class JSONList<T> extends SimpleList<T> {
     }
 
     private void notifyChange() {
+        PropertyBindingAccessor.forgetProtoValues(proto, name);
+        for (String dependant : deps) {
+            PropertyBindingAccessor.forgetProtoValues(proto, dependant);
+        }
         proto.getContext().execute(new Runnable() {
             @Override
             public void run() {
-                proto.valueHasMutated(name);
                 Bindings m = PropertyBindingAccessor.getBindings(proto, false, null);
+                if (m != null && flushSplices(m)) {
+                    PropertyBindingAccessor.notifyProtoObservers(proto, name);
+                } else {
+                    proto.valueHasMutated(name);
+                }
+                for (String dependant : deps) {
+                    proto.valueHasMutated(dependant);
+                }
                 if (m != null) {
-                    for (String dependant : deps) {
-                        m.valueHasMutated(dependant, null, null);
-                    }
                     if (index >= 0) {
                         PropertyBindingAccessor.notifyProtoChange(proto, index);
                     }
@@ -222,6 +261,91 @@ public final class JSONList<T> extends SimpleList<T> {
     }
 
     final Object koData() {
-        return koData(this, PropertyBindingAccessor.getBindings(proto, true, null));
+        Bindings m = PropertyBindingAccessor.getBindings(proto, true, null);
+        Object data = koData(this, m);
+        resetSplices(m.isArrayMutated());
+        return data;
+    }
+
+    /** Records a structural change of the list, so it can later be
+     * delivered to a {@link Technology.ArrayMutated technology} without
+     * sending the whole list again. Changes are only recorded when the
+     * technology has already read the list.
+     */
+    private synchronized void recordSplice(int at, int removed, Object... added) {
+        if (!synced || (removed == 0 && added.length == 0)) {
+            return;
+        }
+        Splice last = splices;
+        while (last != null && last.next != null) {
+            last = last.next;
+        }
+        if (last != null && removed == 0 && at == last.index + last.added.size()) {
+            last.added.addAll(Arrays.asList(added));
+            return;
+        }
+        if (++spliceCount > MAX_SPLICES) {
+            resetSplices(false);
+            return;
+        }
+        Splice s = new Splice(at, removed, added);
+        if (last == null) {
+            splices = s;
+        } else {
+            last.next = s;
+        }
+    }
+
+    private synchronized void resetSplices(boolean sync) {
+        splices = null;
+        spliceCount = 0;
+        synced = sync;
+    }
+
+    /** Delivers recorded changes to the technology.
+     *
+     * @return {@code true} if the technology is up to date,
+     *   {@code false} if it needs to re-read the whole list
+     */
+    private boolean flushSplices(Bindings m) {
+        Splice s;
+        synchronized (this) {
+            if (!synced) {
+                return false;
+            }
+            s = splices;
+            splices = null;
+            spliceCount = 0;
+        }
+        while (s != null) {
+            Object[] arr = s.added.toArray();
+            for (int i = 0; i < arr.length; i++) {
+                Object r = JSON.find(arr[i], m);
+                if (r != null) {
+                    arr[i] = r;
+                }
+            }
+            if (!m.arrayHasMutated(name, s.index, s.removed, arr)) {
+                resetSplices(false);
+                return false;
+            }
+            s = s.next;
+        }
+        return true;
+    }
+
+    private static final int MAX_SPLICES = 32;
+
+    private static final class Splice {
+        final int index;
+        final int removed;
+        final List<Object> added;
+        Splice next;
+
+        Splice(int index, int removed, Object[] added) {
+            this.index = index;
+            this.removed = removed;
+            this.added = new ArrayList<Object>(Arrays.asList(added));
+        }
     }
 }
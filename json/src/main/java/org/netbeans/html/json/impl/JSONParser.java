@@ -0,0 +1,501 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.json.impl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.netbeans.html.json.spi.Transfer;
+
+/** Streaming JSON parser written in Java. Reads the stream once and
+ * produces lightweight Java values: {@link Obj} for JSON objects,
+ * <code>Object[]</code> for arrays, {@link String}, {@link Number},
+ * {@link Boolean} and <code>null</code>. Can also be used as
+ * {@link Transfer.Tokens pull parser}.
+ *
+ * @author Jaroslav Tulach
+ */
+final class JSONParser implements Transfer.Tokens {
+    private final Reader reader;
+    private final char[] buf = new char[8192];
+    private final StringBuilder sb = new StringBuilder();
+    private int pos;
+    private int len;
+    /** value of last number read by scanNumber if it fits into a long */
+    private long integralValue;
+    /** state of objects and arrays the tokens are inside of */
+    private int depth;
+    private boolean[] started = new boolean[16];
+    private boolean[] single = new boolean[16];
+
+    private JSONParser(Reader reader) {
+        this.reader = reader;
+    }
+
+    static Transfer.Tokens tokens(InputStream is) throws IOException {
+        return new JSONParser(new InputStreamReader(is, "UTF-8"));
+    }
+
+    static Object parse(InputStream is) throws IOException {
+        return parse(new InputStreamReader(is, "UTF-8"));
+    }
+
+    static Object parse(Reader r) throws IOException {
+        JSONParser p = new JSONParser(r);
+        int ch = p.skipWhitespace();
+        if (ch == -1) {
+            throw new EOFException("No JSON data");
+        }
+        Object ret = p.value(ch);
+        if (p.skipWhitespace() != -1) {
+            throw p.error("Unexpected data after JSON value");
+        }
+        return ret;
+    }
+
+    private int next() throws IOException {
+        if (pos == len) {
+            len = reader.read(buf, 0, buf.length);
+            pos = 0;
+            if (len <= 0) {
+                len = 0;
+                return -1;
+            }
+        }
+        return buf[pos++];
+    }
+
+    private int skipWhitespace() throws IOException {
+        for (;;) {
+            int ch = next();
+            switch (ch) {
+                case ' ': case '\t': case '\n': case '\r':
+                    continue;
+                default:
+                    return ch;
+            }
+        }
+    }
+
+    private Object value(int ch) throws IOException {
+        switch (ch) {
+            case '{': return object();
+            case '[': return array();
+            case '"': return string();
+            case 't': literal("rue"); return Boolean.TRUE;
+            case 'f': literal("alse"); return Boolean.FALSE;
+            case 'n': literal("ull"); return null;
+            default:
+                if (ch == '-' || (ch >= '0' && ch <= '9')) {
+                    return number(ch);
+                }
+                throw error("Unexpected character " + describe(ch));
+        }
+    }
+
+    private Obj object() throws IOException {
+        Obj obj = new Obj();
+        int ch = skipWhitespace();
+        if (ch == '}') {
+            return obj;
+        }
+        for (;;) {
+            if (ch != '"') {
+                throw error("Expecting property name but found " + describe(ch));
+            }
+            String key = string();
+            ch = skipWhitespace();
+            if (ch != ':') {
+                throw error("Expecting : but found " + describe(ch));
+            }
+            obj.add(key, value(skipWhitespace()));
+            ch = skipWhitespace();
+            if (ch == '}') {
+                return obj;
+            }
+            if (ch != ',') {
+                throw error("Expecting , or } but found " + describe(ch));
+            }
+            ch = skipWhitespace();
+        }
+    }
+
+    private Object[] array() throws IOException {
+        int ch = skipWhitespace();
+        if (ch == ']') {
+            return new Object[0];
+        }
+        List<Object> arr = new ArrayList<Object>();
+        for (;;) {
+            arr.add(value(ch));
+            ch = skipWhitespace();
+            if (ch == ']') {
+                return arr.toArray();
+            }
+            if (ch != ',') {
+                throw error("Expecting , or ] but found " + describe(ch));
+            }
+            ch = skipWhitespace();
+        }
+    }
+
+    private String string() throws IOException {
+        sb.setLength(0);
+        for (;;) {
+            int start = pos;
+            while (pos < len) {
+                char ch = buf[pos];
+                if (ch == '"' || ch == '\\') {
+                    break;
+                }
+                pos++;
+            }
+            sb.append(buf, start, pos - start);
+            int ch = next();
+            switch (ch) {
+                case '"':
+                    return sb.toString();
+                case '\\':
+                    sb.append(escape());
+                    break;
+                case -1:
+                    throw new EOFException("Unterminated string");
+                default:
+                    // buffer was exhausted, next() has read more
+                    pos--;
+            }
+        }
+    }
+
+    private char escape() throws IOException {
+        int ch = next();
+        switch (ch) {
+            case '"': return '"';
+            case '\\': return '\\';
+            case '/': return '/';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(next(), 16);
+                    if (digit == -1) {
+                        throw error("Wrong unicode escape");
+                    }
+                    code = code * 16 + digit;
+                }
+                return (char) code;
+            default:
+                throw error("Wrong escape " + describe(ch));
+        }
+    }
+
+    private Number number(int first) throws IOException {
+        if (scanNumber(first)) {
+            if (integralValue == (int) integralValue) {
+                return (int) integralValue;
+            }
+            return integralValue;
+        }
+        return doubleValue();
+    }
+
+    /** Reads a number. Short integral numbers are computed directly,
+     * others are left in the {@link #sb} buffer.
+     *
+     * @return <code>true</code> if the number is in {@link #integralValue}
+     */
+    private boolean scanNumber(int first) throws IOException {
+        sb.setLength(0);
+        sb.append((char) first);
+        boolean negative = first == '-';
+        long value = negative ? 0 : first - '0';
+        boolean integral = true;
+        for (;;) {
+            int ch = next();
+            if (ch >= '0' && ch <= '9') {
+                value = value * 10 + (ch - '0');
+                sb.append((char) ch);
+            } else if (ch == '.' || ch == 'e' || ch == 'E' || ch == '+' || ch == '-') {
+                integral = false;
+                sb.append((char) ch);
+            } else {
+                if (ch != -1) {
+                    pos--;
+                }
+                break;
+            }
+        }
+        if (sb.length() >= 19 || (negative && sb.length() == 1)) {
+            integral = false;
+        }
+        integralValue = negative ? -value : value;
+        return integral;
+    }
+
+    private double doubleValue() throws IOException {
+        try {
+            return Double.parseDouble(sb.toString());
+        } catch (NumberFormatException ex) {
+            throw error("Wrong number " + sb);
+        }
+    }
+
+    private void literal(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            if (next() != rest.charAt(i)) {
+                throw error("Unexpected literal");
+            }
+        }
+    }
+
+    //
+    // Transfer.Tokens
+    //
+
+    private int nextValueStart() throws IOException {
+        int ch = skipWhitespace();
+        if (ch == -1) {
+            throw new EOFException("Expecting a value");
+        }
+        return ch;
+    }
+
+    private void enter(boolean singleValue) {
+        depth++;
+        if (depth == started.length) {
+            started = Arrays.copyOf(started, depth * 2);
+            single = Arrays.copyOf(single, depth * 2);
+        }
+        started[depth] = false;
+        single[depth] = singleValue;
+    }
+
+    @Override
+    public boolean nextObject() throws IOException {
+        int ch = nextValueStart();
+        if (ch == '{') {
+            enter(false);
+            return true;
+        }
+        value(ch);
+        return false;
+    }
+
+    @Override
+    public String nextName() throws IOException {
+        int ch = skipWhitespace();
+        if (ch == '}') {
+            depth--;
+            return null;
+        }
+        if (started[depth]) {
+            if (ch != ',') {
+                throw error("Expecting , or } but found " + describe(ch));
+            }
+            ch = skipWhitespace();
+        }
+        started[depth] = true;
+        if (ch != '"') {
+            throw error("Expecting property name but found " + describe(ch));
+        }
+        String name = string();
+        ch = skipWhitespace();
+        if (ch != ':') {
+            throw error("Expecting : but found " + describe(ch));
+        }
+        return name;
+    }
+
+    @Override
+    public boolean nextArray() throws IOException {
+        int ch = nextValueStart();
+        if (ch == '[') {
+            enter(false);
+            return true;
+        }
+        if (ch == 'n') {
+            literal("ull");
+            return false;
+        }
+        pos--;
+        enter(true);
+        return true;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        if (single[depth]) {
+            if (started[depth]) {
+                depth--;
+                return false;
+            }
+            started[depth] = true;
+            return true;
+        }
+        int ch = skipWhitespace();
+        if (ch == ']') {
+            depth--;
+            return false;
+        }
+        if (started[depth]) {
+            if (ch != ',') {
+                throw error("Expecting , or ] but found " + describe(ch));
+            }
+        } else {
+            if (ch == -1) {
+                throw new EOFException("Expecting ]");
+            }
+            pos--;
+            started[depth] = true;
+        }
+        return true;
+    }
+
+    @Override
+    public Object nextValue() throws IOException {
+        return value(nextValueStart());
+    }
+
+    @Override
+    public String nextString() throws IOException {
+        int ch = nextValueStart();
+        if (ch == '"') {
+            return string();
+        }
+        return JSON.stringValue(value(ch));
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+        int ch = nextValueStart();
+        if (ch == '-' || (ch >= '0' && ch <= '9')) {
+            return scanNumber(ch) ? integralValue : (long) doubleValue();
+        }
+        Object v = value(ch);
+        return v == null ? 0 : JSON.numberValue(v).longValue();
+    }
+
+    @Override
+    public double nextDouble() throws IOException {
+        int ch = nextValueStart();
+        if (ch == '-' || (ch >= '0' && ch <= '9')) {
+            return scanNumber(ch) ? integralValue : doubleValue();
+        }
+        Object v = value(ch);
+        return v == null ? 0 : JSON.numberValue(v).doubleValue();
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException {
+        return JSON.boolValue(nextValue());
+    }
+
+    private IOException error(String msg) {
+        return new IOException(msg);
+    }
+
+    private static String describe(int ch) {
+        return ch == -1 ? "end of data" : "'" + (char) ch + "'";
+    }
+
+    /** JSON object read by the parser. Remembers its properties
+     * in the order they appeared in the stream.
+     */
+    static final class Obj {
+        private String[] keys = new String[8];
+        private Object[] values = new Object[8];
+        private int size;
+
+        void add(String key, Object value) {
+            if (size == keys.length) {
+                String[] newKeys = new String[size * 2];
+                System.arraycopy(keys, 0, newKeys, 0, size);
+                keys = newKeys;
+                Object[] newValues = new Object[size * 2];
+                System.arraycopy(values, 0, newValues, 0, size);
+                values = newValues;
+            }
+            keys[size] = key;
+            values[size] = value;
+            size++;
+        }
+
+        /** Fills values of requested properties. Models usually ask for
+         * properties in the order they were written, so the search for
+         * the next property starts right after the previously found one.
+         */
+        void extract(String[] props, Object[] ret) {
+            int at = 0;
+            for (int i = 0; i < props.length; i++) {
+                ret[i] = null;
+                for (int j = 0; j < size; j++) {
+                    int index = (at + j) % size;
+                    if (keys[index].equals(props[i])) {
+                        ret[i] = values[index];
+                        at = index + 1;
+                        break;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            toString(sb, this);
+            return sb.toString();
+        }
+
+        private static void toString(StringBuilder sb, Object value) {
+            if (value instanceof Obj) {
+                Obj obj = (Obj) value;
+                sb.append('{');
+                for (int i = 0; i < obj.size; i++) {
+                    if (i > 0) {
+                        sb.append(',');
+                    }
+                    sb.append(JSON.toJSON(obj.keys[i])).append(':');
+                    toString(sb, obj.values[i]);
+                }
+                sb.append('}');
+            } else if (value instanceof Object[]) {
+                Object[] arr = (Object[]) value;
+                sb.append('[');
+                for (int i = 0; i < arr.length; i++) {
+                    if (i > 0) {
+                        sb.append(',');
+                    }
+                    toString(sb, arr[i]);
+                }
+                sb.append(']');
+            } else {
+                sb.append(JSON.toJSON(value));
+            }
+        }
+    }
+}
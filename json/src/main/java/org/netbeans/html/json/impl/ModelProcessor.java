@@ -447,7 +447,11 @@ public final class ModelProcessor extends AbstractProcessor {
                 w.append("    }\n");
                 w.append(onReceiveType);
                 w.append("    @Override public " + className + " read(net.java.html.BrwsrCtx c, Object json) { return new " + className + "(c, json); }\n");
+                w.append("    @Override public " + className + " read(net.java.html.BrwsrCtx c, org.netbeans.html.json.spi.Transfer.Tokens json) throws java.io.IOException {\n");
+                w.append("      return json.nextObject() ? new " + className + "(c, json) : null;\n");
+                w.append("    }\n");
                 w.append("    @Override public " + className + " cloneTo(" + className + " o, net.java.html.BrwsrCtx c) { return o.clone(c); }\n");
+                writeWriteTo(className, props, w);
                 w.append("  }\n");
                 w.append("  private ").append(className).append("(net.java.html.BrwsrCtx c, Object json) {\n");
                 w.append("    this(c);\n");
@@ -541,6 +545,7 @@ public final class ModelProcessor extends AbstractProcessor {
                 w.append("  private static Object[] useAsArray(Object o) {\n");
                 w.append("    return o instanceof Object[] ? ((Object[])o) : o == null ? new Object[0] : new Object[] { o };\n");
                 w.append("  }\n");
+                writeReadTokens(className, props, w);
                 writeToString(props, w);
                 writeClone(className, props, w);
                 String targetId = findTargetId(e);
@@ -714,7 +719,11 @@ public final class ModelProcessor extends AbstractProcessor {
                     Collection<String[]> dependants = deps.get(p.name());
                     if (dependants != null) {
                         for (String[] pair : dependants) {
-                            w.write("    proto.valueHasMutated(\"" + pair[0] + "\", null, " + pair[1] + "());\n");
+                            if (pair[2] != null) {
+                                w.write("    proto.valueHasMutated(\"" + pair[0] + "\");\n");
+                            } else {
+                                w.write("    proto.valueHasMutated(\"" + pair[0] + "\", null, " + pair[1] + "());\n");
+                            }
                         }
                     }
                 }
@@ -758,12 +767,13 @@ public final class ModelProcessor extends AbstractProcessor {
 
     private boolean generateComputedProperties(
         String className,
-        Writer w, Prprt[] fixedProps,
+        Writer out, Prprt[] fixedProps,
         Collection<? extends Element> arr, Collection<GetSet> props,
         Map<String,Collection<String[]>> deps
     ) throws IOException {
         boolean ok = true;
         NEXT_ANNOTATION: for (Element e : arr) {
+            Writer w = out;
             if (e.getKind() != ElementKind.METHOD) {
                 continue;
             }
@@ -833,13 +843,13 @@ public final class ModelProcessor extends AbstractProcessor {
 
             String[] gs = toGetSet(sn, tn, array);
 
-            w.write("  public " + tn);
-            if (array) {
-                w.write("<" + toCheck + ">");
-            }
-            w.write(" " + gs[0] + "() {\n");
+            final String rn = array ? tn + "<" + toCheck + ">" : tn;
+            final int index = props.size();
+            w = new StringWriter();
             int arg = 0;
             boolean deep = false;
+            boolean models = false;
+            final List<String[]> dependencies = new ArrayList<>();
 
             final List<? extends VariableElement> methodParameters = ee.getParameters();
 
@@ -858,12 +868,14 @@ public final class ModelProcessor extends AbstractProcessor {
                     final TypeMirror pt = pe.asType();
                     if (isModel(pt)) {
                         deep = true;
+                        models = true;
                     }
                     final String dt = fqn(pt, ee);
                     if (dt.startsWith("java.util.List") && pt instanceof DeclaredType) {
                         final List<? extends TypeMirror> ptArgs = ((DeclaredType)pt).getTypeArguments();
                         if (ptArgs.size() == 1 && isModel(ptArgs.get(0))) {
                             deep = true;
+                            models = true;
                         }
                     }
                     String[] call = toGetSet(dn, dt, false);
@@ -875,7 +887,9 @@ public final class ModelProcessor extends AbstractProcessor {
                         depends = new LinkedHashSet<String[]>();
                         deps.put(dn, depends);
                     }
-                    depends.add(new String[] { sn, gs[0] });
+                    final String[] dependency = { sn, gs[0], null };
+                    depends.add(dependency);
+                    dependencies.add(dependency);
                 }
             } else {
                 VariableElement firstProp = methodParameters.get(0);
@@ -893,6 +907,7 @@ public final class ModelProcessor extends AbstractProcessor {
                     continue NEXT_ANNOTATION;
                 }
                 w.write("    " + simpleName + " arg" + (++arg) + " = this;\n");
+                models = true;
             }
             w.write("    try {\n");
             if (tp != null) {
@@ -903,19 +918,40 @@ public final class ModelProcessor extends AbstractProcessor {
             } else {
                 w.write("      proto.acquireLock();\n");
             }
-            w.write("      return " + fqn(ee.getEnclosingElement().asType(), ee) + '.' + e.getSimpleName() + "(");
+            // remember the value only when all its changes are notified
+            final boolean cache = deep || !models;
+            w.write("      return ");
+            if (cache) {
+                w.write("proto.cacheValue(" + index + ", ");
+            }
+            w.write(fqn(ee.getEnclosingElement().asType(), ee) + '.' + e.getSimpleName() + "(");
             String sep = "";
             for (int i = 1; i <= arg; i++) {
                 w.write(sep);
                 w.write("arg" + i);
                 sep = ", ";
             }
-            w.write(");\n");
+            w.write(cache ? "));\n" : ");\n");
             w.write("    } finally {\n");
             w.write("      proto.releaseLock();\n");
             w.write("    }\n");
             w.write("  }\n");
 
+            final String body = w.toString();
+            w = out;
+            w.write("  public " + rn + " " + gs[0] + "() {\n");
+            if (cache) {
+                String bt = findBoxedType(rn);
+                w.write("    Object cached = proto.getCachedValue(" + index + ");\n");
+                w.write("    if (cached != TYPE) {\n");
+                w.write("      return (" + (bt == null ? rn : bt) + ")cached;\n");
+                w.write("    }\n");
+                for (String[] dependency : dependencies) {
+                    dependency[2] = "cached";
+                }
+            }
+            w.write(body);
+
             if (write == null) {
                 props.add(new GetSet(
                     propertyName,
@@ -1790,15 +1826,91 @@ public final class ModelProcessor extends AbstractProcessor {
         return models.values().contains(e.getSimpleName().toString());
     }
 
+    private void writeReadTokens(String className, Prprt[] props, Writer w) throws IOException {
+        w.append("  private ").append(className).append("(net.java.html.BrwsrCtx c, org.netbeans.html.json.spi.Transfer.Tokens json) throws java.io.IOException {\n");
+        w.append("    this(c);\n");
+        w.append("    for (;;) {\n");
+        w.append("      String name = json.nextName();\n");
+        w.append("      if (name == null) {\n");
+        w.append("        return;\n");
+        w.append("      }\n");
+        w.append("      switch (name) {\n");
+        for (Prprt p : props) {
+            boolean[] isModel = { false };
+            boolean[] isEnum = { false };
+            boolean isPrimitive[] = { false };
+            String type = checkType(p, isModel, isEnum, isPrimitive);
+            String pn = p.name();
+            w.append("        case \"").append(pn).append("\":\n");
+            if (p.array()) {
+                w.append("          if (json.nextArray()) while (json.hasNext()) {\n");
+                if (isEnum[0]) {
+                    w.append("            String s = json.nextString();\n");
+                    w.append("            this.prop_").append(pn).append(".add(s == null ? null : ");
+                    w.append(type).append(".valueOf(s));\n");
+                } else if ("char".equals(type)) {
+                    w.append("            Object ch = json.nextValue();\n");
+                    w.append("            this.prop_").append(pn).append(".add(ch == null ? 0 : TYPE.charValue(ch));\n");
+                } else {
+                    w.append("            this.prop_").append(pn).append(".add(");
+                    w.append(tokenValue(type, isModel[0])).append(");\n");
+                }
+                w.append("          }\n");
+            } else if (isEnum[0]) {
+                w.append("          try {\n");
+                w.append("            String s = json.nextString();\n");
+                w.append("            this.prop_").append(pn).append(" = s == null ? null : ");
+                w.append(type).append(".valueOf(s);\n");
+                w.append("          } catch (IllegalArgumentException ex) {\n");
+                w.append("            ex.printStackTrace();\n");
+                w.append("          }\n");
+            } else if ("char".equals(type)) {
+                w.append("          Object ch = json.nextValue();\n");
+                w.append("          this.prop_").append(pn).append(" = ch == null ? 0 : TYPE.charValue(ch);\n");
+            } else {
+                w.append("          this.prop_").append(pn).append(" = ");
+                w.append(tokenValue(type, isModel[0])).append(";\n");
+            }
+            w.append("          break;\n");
+        }
+        w.append("        default:\n");
+        w.append("          json.nextValue();\n");
+        w.append("      }\n");
+        w.append("    }\n");
+        w.append("  }\n");
+    }
+
+    private static String tokenValue(String type, boolean isModel) {
+        if (isModel) {
+            return "proto.read(" + type + ".class, json)";
+        }
+        switch (type) {
+            case "boolean": return "json.nextBoolean()";
+            case "long": return "json.nextLong()";
+            case "int": case "short": case "byte": return "(" + type + ") json.nextLong()";
+            case "double": return "json.nextDouble()";
+            case "float": return "(float) json.nextDouble()";
+            case "java.lang.String": return "json.nextString()";
+            default: return "(" + type + ") json.nextValue()";
+        }
+    }
+
     private void writeToString(Prprt[] props, Writer w) throws IOException {
         w.write("  public String toString() {\n");
         w.write("    StringBuilder sb = new StringBuilder();\n");
-        w.write("    sb.append('{');\n");
-        String sep = "";
+        w.write("    try {\n");
+        w.write("      TYPE.writeTo(this, sb);\n");
+        w.write("    } catch (java.io.IOException ex) {\n");
+        w.write("      throw new IllegalStateException(ex);\n");
+        w.write("    }\n");
+        w.write("    return sb.toString();\n");
+        w.write("  }\n");
+    }
+    private void writeWriteTo(String className, Prprt[] props, Writer w) throws IOException {
+        w.write("    @Override public void writeTo(" + className + " data, Appendable out) throws java.io.IOException {\n");
+        String sep = "{";
         for (Prprt p : props) {
-            w.write(sep);
-            w.append("    sb.append('\"').append(\"" + p.name() + "\")");
-                w.append(".append('\"').append(\":\");\n");
+            w.append("      out.append(\"" + sep + "\\\"" + p.name() + "\\\":\");\n");
             String tn = typeName(p);
             String[] gs = toGetSet(p.name(), tn, p.array());
             boolean isModel[] = { false };
@@ -1806,17 +1918,16 @@ public final class ModelProcessor extends AbstractProcessor {
             boolean isPrimitive[] = { false };
             checkType(p, isModel, isEnum, isPrimitive);
             if (isModel[0]) {
-                w.append("    sb.append(TYPE.toJSON(thisToNull(this.prop_");
-                w.append(p.name()).append(")));\n");
+                w.append("      writeJSON(data.thisToNull(data.prop_");
+                w.append(p.name()).append("), out);\n");
             } else {
-                w.append("    sb.append(TYPE.toJSON(");
-                w.append(gs[0]).append("()));\n");
+                w.append("      writeJSON(data.");
+                w.append(gs[0]).append("(), out);\n");
             }
-            sep =    "    sb.append(',');\n";
+            sep = ",";
         }
-        w.write("    sb.append('}');\n");
-        w.write("    return sb.toString();\n");
-        w.write("  }\n");
+        w.write("      out.append(\"" + (props.length == 0 ? "{" : "") + "}\");\n");
+        w.write("    }\n");
     }
     private void writeClone(String className, Prprt[] props, Writer w) throws IOException {
         w.write("  public " + className + " clone() {\n");
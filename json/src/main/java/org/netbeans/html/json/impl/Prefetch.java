@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.json.impl;
+
+import java.util.Arrays;
+import org.netbeans.html.json.spi.Transfer;
+
+/** Array of raw JSON objects about to be converted to models. When the
+ * first of them is asked for its properties, the same properties are
+ * {@link Transfer.BatchExtract extracted} from all of them at once.
+ *
+ * @author Jaroslav Tulach
+ */
+final class Prefetch {
+    private final Object[] raw;
+    private String[] props;
+    private Object[] values;
+
+    private Prefetch(Object[] raw) {
+        this.raw = raw;
+    }
+
+    /** Replaces elements of the array by objects that remember their
+     * position in the array.
+     *
+     * @param t the transfer to use for extraction
+     * @param arr raw JSON objects
+     * @return the original array or new array with the same length
+     */
+    static Object[] wrap(Transfer t, Object[] arr) {
+        if (!(t instanceof Transfer.BatchExtract) || arr.length < 2 || arr[0] instanceof JSONParser.Obj) {
+            return arr;
+        }
+        Prefetch all = new Prefetch(arr);
+        Object[] ret = new Object[arr.length];
+        for (int i = 0; i < arr.length; i++) {
+            ret[i] = arr[i] == null ? null : new Item(all, i);
+        }
+        return ret;
+    }
+
+    private Object[] valuesFor(Transfer t, String[] names) {
+        if (props == null) {
+            props = names.clone();
+            values = new Object[raw.length * names.length];
+            ((Transfer.BatchExtract) t).extract(raw, props, values);
+            return values;
+        }
+        return Arrays.equals(props, names) ? values : null;
+    }
+
+    static final class Item {
+        private final Prefetch all;
+        private final int index;
+
+        Item(Prefetch all, int index) {
+            this.all = all;
+            this.index = index;
+        }
+
+        void extract(Transfer t, String[] props, Object[] values) {
+            Object[] arr = all.valuesFor(t, props);
+            if (arr == null) {
+                t.extract(all.raw[index], props, values);
+            } else {
+                System.arraycopy(arr, index * props.length, values, 0, props.length);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(all.raw[index]);
+        }
+    }
+}
@@ -18,10 +18,12 @@
  */
 package org.netbeans.html.json.impl;
 
+import java.io.IOException;
 import net.java.html.BrwsrCtx;
 import org.netbeans.html.json.spi.JSONCall;
 import org.netbeans.html.json.spi.PropertyBinding;
 import org.netbeans.html.json.spi.Proto;
+import org.netbeans.html.json.spi.Transfer;
 
 /**
  *
@@ -49,9 +51,14 @@ public abstract class PropertyBindingAccessor {
 
     protected abstract Bindings bindings(Proto proto, boolean initialize, Object copyFrom);
     protected abstract void notifyChange(Proto proto, int propIndex);
+    protected abstract void notifyObservers(Proto proto, String propName);
+    protected abstract void forgetValues(Proto proto, String propName);
+    protected abstract Object cachedValue(Proto proto, String propName);
     protected abstract Proto findProto(Proto.Type<?> type, Object object);
     protected abstract <Model> Model cloneTo(Proto.Type<Model> type, Model model, BrwsrCtx c);
     protected abstract Object read(Proto.Type<?> from, BrwsrCtx c, Object data);
+    protected abstract Object read(Proto.Type<?> from, BrwsrCtx c, Transfer.Tokens data) throws IOException;
+    protected abstract <Model> void writeTo(Proto.Type<Model> type, Model model, Appendable out) throws IOException;
 
     static Bindings getBindings(Proto proto, boolean initialize, Object copyFrom) {
         return DEFAULT.bindings(proto, initialize, copyFrom);
@@ -61,6 +68,18 @@ public abstract class PropertyBindingAccessor {
         DEFAULT.notifyChange(proto, propIndex);
     }
 
+    static void notifyProtoObservers(Proto proto, String propName) {
+        DEFAULT.notifyObservers(proto, propName);
+    }
+
+    static void forgetProtoValues(Proto proto, String propName) {
+        DEFAULT.forgetValues(proto, propName);
+    }
+
+    static Object cachedProtoValue(Proto proto, String propName) {
+        return DEFAULT.cachedValue(proto, propName);
+    }
+
     static <M> PropertyBinding create(
         Proto.Type<M> access, Bindings<?> bindings, String name, int index, M model , byte propertyType
     ) {
@@ -82,4 +101,10 @@ public abstract class PropertyBindingAccessor {
     static Object readFrom(Proto.Type<?> from, BrwsrCtx c, Object data) {
         return DEFAULT.read(from, c, data);
     }
+    static Object readFrom(Proto.Type<?> from, BrwsrCtx c, Transfer.Tokens data) throws IOException {
+        return DEFAULT.read(from, c, data);
+    }
+    static <Model> void writeModel(Proto.Type<Model> type, Model model, Appendable out) throws IOException {
+        DEFAULT.writeTo(type, model, out);
+    }
 }
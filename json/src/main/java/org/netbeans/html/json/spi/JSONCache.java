@@ -0,0 +1,211 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.json.spi;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.netbeans.html.context.spi.Contexts;
+
+/** Cache of results of <code>GET</code> requests initiated by
+ * {@link net.java.html.json.OnReceive} methods. Register an instance
+ * into the {@link Contexts.Builder context} to turn the caching on:
+ * <pre>
+ * {@link Contexts#newBuilder(java.lang.Object...) Contexts.newBuilder()}.
+ *     {@link Contexts.Builder#register(java.lang.Class, java.lang.Object, int) register}(JSONCache.class, new JSONCache(64, 60000), 1)
+ * </pre>
+ * The cache sits in front of {@link Transfer#loadJSON(org.netbeans.html.json.spi.JSONCall)}.
+ * Requests with the same {@link JSONCall#composeURL(java.lang.String) URL},
+ * method and {@link JSONCall#getHeaders() headers} received less than
+ * <code>timeToLive</code> milliseconds ago are answered from the cache without
+ * contacting the {@link Transfer} at all. Older entries are revalidated:
+ * if the {@link Transfer} reported <code>ETag</code> or <code>Last-Modified</code>
+ * {@link JSONCall#notifyHeader(java.lang.String, java.lang.String) headers}
+ * of the previous response, the request is sent with
+ * <code>If-None-Match</code> and <code>If-Modified-Since</code> headers and
+ * a {@link JSONCall#notifyNotModified() not modified} reply is answered
+ * by the cached result. Requests with data and JSONP requests
+ * aren't cached.
+ * <p>
+ * Identical requests made while the first one is still running aren't sent
+ * again - they wait and receive the same result. A cache with
+ * <code>maxEntries</code> set to <code>0</code> only merges such concurrent
+ * requests and keeps no results.
+ *
+ * @author Jaroslav Tulach
+ * @since 1.8
+ */
+public final class JSONCache {
+    private final Map<String, Result> entries;
+    private final Map<String, Request> pending = new HashMap<String, Request>();
+    private final long timeToLive;
+
+    /** Creates new cache.
+     *
+     * @param maxEntries maximal number of results to keep - the least
+     *   recently used ones are discarded first
+     * @param timeToLive number of milliseconds a result is used without
+     *   asking the server again
+     */
+    public JSONCache(final int maxEntries, long timeToLive) {
+        this.entries = new LinkedHashMap<String, Result>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.timeToLive = TimeUnit.MILLISECONDS.toNanos(timeToLive);
+    }
+
+    /** Discards all cached results.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    void loadJSON(Transfer t, JSONCall call) {
+        if (call.isJSONP() || call.isDoOutput() || (
+            call.getMethod() != null && !"GET".equalsIgnoreCase(call.getMethod()) // NOI18N
+        )) {
+            t.loadJSON(call);
+            return;
+        }
+        final String headers = call.getHeaders();
+        final String key = "GET " + call.composeURL(null) + '\n' + headers; // NOI18N
+        Result e;
+        Request r;
+        synchronized (entries) {
+            e = entries.get(key);
+            if (e == null || System.nanoTime() - e.time >= timeToLive) {
+                r = pending.get(key);
+                if (r != null) {
+                    r.waiting.add(call);
+                    return;
+                }
+                r = new Request(key, e);
+                pending.put(key, r);
+            } else {
+                r = null;
+            }
+        }
+        if (r == null) {
+            call.notifySuccess(e.value);
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        if (headers != null) {
+            sb.append(headers);
+        }
+        if (e != null) {
+            appendHeader(sb, "If-None-Match", e.etag); // NOI18N
+            appendHeader(sb, "If-Modified-Since", e.lastModified); // NOI18N
+        }
+        try {
+            t.loadJSON(new JSONCall(call, sb.length() == 0 ? null : sb.toString(), r));
+        } catch (RuntimeException ex) {
+            for (JSONCall waiting : r.finished()) {
+                waiting.notifyError(ex);
+            }
+            throw ex;
+        }
+    }
+
+    private static void appendHeader(StringBuilder sb, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        if (sb.length() > 0 && sb.charAt(sb.length() - 1) != '\n') {
+            sb.append('\n');
+        }
+        sb.append(name).append(": ").append(value); // NOI18N
+    }
+
+    private static final class Result {
+        final Object value;
+        final String etag;
+        final String lastModified;
+        volatile long time;
+
+        Result(Object value, String etag, String lastModified) {
+            this.value = value;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.time = System.nanoTime();
+        }
+    }
+
+    /** State of a request that goes through the cache.
+     */
+    final class Request {
+        private final String key;
+        private final Result previous;
+        private final List<JSONCall> waiting = new ArrayList<JSONCall>();
+        private String etag;
+        private String lastModified;
+
+        Request(String key, Result previous) {
+            this.key = key;
+            this.previous = previous;
+        }
+
+        void header(String name, String value) {
+            if ("ETag".equalsIgnoreCase(name)) { // NOI18N
+                etag = value;
+            } else if ("Last-Modified".equalsIgnoreCase(name)) { // NOI18N
+                lastModified = value;
+            }
+        }
+
+        Object notModified() {
+            if (previous == null) {
+                return null;
+            }
+            previous.time = System.nanoTime();
+            synchronized (entries) {
+                if (!entries.containsKey(key)) {
+                    entries.put(key, previous);
+                }
+            }
+            return previous.value;
+        }
+
+        void received(Object value) {
+            Result e = new Result(value, etag, lastModified);
+            synchronized (entries) {
+                entries.put(key, e);
+            }
+        }
+
+        List<JSONCall> finished() {
+            synchronized (entries) {
+                if (pending.get(key) != this) {
+                    return Collections.emptyList();
+                }
+                pending.remove(key);
+                return waiting;
+            }
+        }
+    }
+}
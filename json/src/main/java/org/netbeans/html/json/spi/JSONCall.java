@@ -20,7 +20,10 @@ package org.netbeans.html.json.spi;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import net.java.html.BrwsrCtx;
+import org.netbeans.html.json.impl.JSON;
 import org.netbeans.html.json.impl.RcvrJSON;
 
 /** Description of a JSON call request that is supposed to be processed
@@ -36,6 +39,7 @@ public final class JSONCall {
     private final String method;
     private final Object data;
     private final BrwsrCtx ctx;
+    private final JSONCache.Request cache;
 
     JSONCall(
         BrwsrCtx ctx, RcvrJSON whenDone,
@@ -49,6 +53,18 @@ public final class JSONCall {
         this.urlAfter = urlAfter;
         this.method = method;
         this.data = data;
+        this.cache = null;
+    }
+
+    JSONCall(JSONCall call, String headers, JSONCache.Request cache) {
+        this.ctx = call.ctx;
+        this.whenDone = call.whenDone;
+        this.headers = headers;
+        this.urlBefore = call.urlBefore;
+        this.urlAfter = call.urlAfter;
+        this.method = call.method;
+        this.data = call.data;
+        this.cache = cache;
     }
 
     /** Do we have some data to send? Can the {@link #writeData(java.io.OutputStream)} method be
@@ -64,7 +80,13 @@ public final class JSONCall {
         if (this.data == null) {
             throw new IOException("No data!");
         }
-        os.write(this.data.toString().getBytes("UTF-8"));
+        if (this.data instanceof String) {
+            os.write(((String) this.data).getBytes("UTF-8"));
+        } else {
+            Writer w = new OutputStreamWriter(os, "UTF-8");
+            JSON.writeData(this.data, w);
+            w.flush();
+        }
         os.flush();
     }
 
@@ -98,6 +120,9 @@ public final class JSONCall {
     }
 
     public void notifySuccess(Object result) {
+        if (cache != null && result != null) {
+            cache.received(result);
+        }
         if (result == null) {
             dispatch(RcvrJSON.MsgEvnt.createOpen());
         } else {
@@ -113,7 +138,43 @@ public final class JSONCall {
         }
     }
 
+    /** Reports a header of the response. Transfers that can inspect
+     * response headers may report the <code>ETag</code> and
+     * <code>Last-Modified</code> ones before calling
+     * {@link #notifySuccess(java.lang.Object)}. They are then used by
+     * {@link JSONCache} to revalidate cached results.
+     *
+     * @param name name of the header
+     * @param value value of the header
+     * @since 1.8
+     */
+    public void notifyHeader(String name, String value) {
+        if (cache != null) {
+            cache.header(name, value);
+        }
+    }
+
+    /** Reports that the server replied <em>not modified</em> to a conditional
+     * request. The result cached by {@link JSONCache} is then delivered
+     * as if {@link #notifySuccess(java.lang.Object)} was called.
+     *
+     * @since 1.8
+     */
+    public void notifyNotModified() {
+        Object value = cache == null ? null : cache.notModified();
+        if (value == null) {
+            notifyError(new IOException("Not modified: " + composeURL(isJSONP() ? "" : null))); // NOI18N
+        } else {
+            dispatch(RcvrJSON.MsgEvnt.createMessage(value));
+        }
+    }
+
     private void dispatch(final RcvrJSON.MsgEvnt ev) {
+        if (cache != null) {
+            for (JSONCall waiting : cache.finished()) {
+                waiting.dispatch(ev);
+            }
+        }
         ctx.execute(new Runnable() {
             @Override
             public void run() {
@@ -123,6 +184,15 @@ public final class JSONCall {
     }
 
     public String getMessage() {
-        return this.data.toString();
+        if (this.data instanceof String) {
+            return (String) this.data;
+        }
+        StringBuilder sb = new StringBuilder();
+        try {
+            JSON.writeData(this.data, sb);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return sb.toString();
     }
 }
@@ -18,95 +18,151 @@
  */
 package org.netbeans.html.json.spi;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.netbeans.html.json.impl.SimpleList;
 
-/**
+/** Tracks dependencies of computed properties.
+ * Each thread keeps its own stack of properties being computed. When no
+ * property is being computed (the usual case) accessing a value requires
+ * no locking at all. Otherwise the dependencies are recorded into
+ * observers associated with each {@link Proto} guarded by its own monitor.
  *
  * @author Jaroslav Tulach
  */
 final class Observers {
-    private static final List<Watcher> GLOBAL = SimpleList.asList();
+    private static final AtomicInteger COMPUTING = new AtomicInteger();
+    private static final ThreadLocal<Stack> STACK = new ThreadLocal<Stack>() {
+        @Override
+        protected Stack initialValue() {
+            return new Stack();
+        }
+    };
     private final List<Watcher> watchers = SimpleList.asList();
-    private final List<Ref> observers = SimpleList.asList();
+    private final Set<Ref> observers = new HashSet<Ref>();
+    private Observers.Usages usages;
+    private int purgeAt = 16;
 
     Observers() {
-        assert Thread.holdsLock(GLOBAL);
     }
-    
-    static Usages beginComputing(Proto p, String name, Usages usages) {
-        synchronized (GLOBAL) {
-            final Watcher nw = new Watcher(p, name);
-            GLOBAL.add(nw);
-            return Usages.register(name, nw, usages);
+
+    static void beginComputing(Proto p, String name) {
+        final Watcher nw = new Watcher(p, name);
+        Observers mine = p.observers(true);
+        synchronized (mine) {
+            mine.usages = Usages.register(name, nw, mine.usages);
         }
+        STACK.get().push(nw);
+        COMPUTING.incrementAndGet();
     }
-    
+
     static void verifyUnlocked(Proto p) {
-        synchronized (GLOBAL) {
-            for (Watcher w : GLOBAL) {
-                if (w.proto == p) {
-                    if (w.owner == Thread.currentThread()) {
-                        throw new IllegalStateException("Re-entrant attempt to access " + p.toStr());
-                    }
-                }
+        if (COMPUTING.get() == 0) {
+            return;
+        }
+        final Stack stack = STACK.get();
+        for (int i = 0; i < stack.size; i++) {
+            if (stack.items[i].proto == p) {
+                throw new IllegalStateException("Re-entrant attempt to access " + p.toStr());
             }
-        }        
+        }
     }
 
     static void accessingValue(Proto p, String propName) {
-        synchronized (GLOBAL) {
-            for (Watcher w : GLOBAL) {
-                Observers mine = p.observers(true);
-                mine.add(w, new Ref(w, propName));
+        if (COMPUTING.get() == 0) {
+            return;
+        }
+        final Stack stack = STACK.get();
+        if (stack.size == 0) {
+            return;
+        }
+        Observers mine = p.observers(true);
+        synchronized (mine) {
+            for (int i = 0; i < stack.size; i++) {
+                mine.add(new Ref(stack.items[i], propName));
             }
         }
     }
-    
+
     static void finishComputing(Proto p) {
-        synchronized (GLOBAL) {
-            boolean found = false;
-            ListIterator<Watcher> it = GLOBAL.listIterator(GLOBAL.size());
-            while (it.hasPrevious()) {
-                Watcher w = it.previous();
-                if (w.proto == p && w.owner == Thread.currentThread()) {
-                    if (w.prop != null) {
-                        Observers mine = p.observers(true);
-                        mine.add(w);
-                    }
-                    found = true;
-                    it.remove();
-                    break;
+        Watcher w = STACK.get().remove(p);
+        if (w == null) {
+            throw new IllegalStateException("Cannot find " + p + " in " + STACK.get());
+        }
+        COMPUTING.decrementAndGet();
+        if (w.prop != null) {
+            Observers mine = p.observers(true);
+            synchronized (mine) {
+                mine.add(w);
+            }
+        }
+    }
+
+    private static final class Stack {
+        Watcher[] items = new Watcher[8];
+        int size;
+
+        void push(Watcher w) {
+            if (size == items.length) {
+                Watcher[] arr = new Watcher[size * 2];
+                System.arraycopy(items, 0, arr, 0, size);
+                items = arr;
+            }
+            items[size++] = w;
+        }
+
+        Watcher remove(Proto p) {
+            for (int i = size - 1; i >= 0; i--) {
+                Watcher w = items[i];
+                if (w.proto == p) {
+                    System.arraycopy(items, i + 1, items, i, size - i - 1);
+                    items[--size] = null;
+                    return w;
                 }
             }
-            if (!found) {
-                throw new IllegalStateException("Cannot find " + p + " in " + GLOBAL);
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("[");
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(items[i]);
             }
+            return sb.append("]").toString();
         }
     }
-    
-    private static final class Ref {
+
+    static final class Ref {
         private final Watcher ref;
         private final String prop;
-        
+
         public Ref(Watcher ref, String prop) {
             this.ref = ref;
             this.prop = prop;
         }
-        
+
         final Watcher watcher() {
             Watcher w = get();
             if (w == null) {
                 return null;
             }
-            final Observers o = w.proto.observers(false);
+            final Proto p = w.proto;
+            final Observers o = p == null ? null : p.observers(false);
             if (o == null) {
                 return null;
             }
-            if (o.find(w.prop) == w) {
-                return w;
+            synchronized (o) {
+                if (o.find(w.prop) == w) {
+                    return w;
+                }
             }
             return null;
         }
@@ -114,6 +170,20 @@ final class Observers {
         Watcher get() {
             return ref.proto == null ? null : ref;
         }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(ref) * 31 + prop.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Ref) {
+                Ref other = (Ref) obj;
+                return ref == other.ref && prop.equals(other.prop);
+            }
+            return false;
+        }
     }
 
     private Watcher find(String prop) {
@@ -128,7 +198,8 @@ final class Observers {
         return null;
     }
 
-        final void add(Watcher w) {
+    final void add(Watcher w) {
+        assert Thread.holdsLock(this);
         for (int i = 0; i < watchers.size(); i++) {
             Watcher ith = watchers.get(i);
             if (w.prop == null) {
@@ -145,64 +216,103 @@ final class Observers {
     }
 
     static final void valueHasMutated(Proto p, String propName) {
-        List<Watcher> mutated = SimpleList.asList();
-        synchronized (GLOBAL) {
-            Observers mine = p.observers(false);
-            if (mine == null) {
-                return;
+        valueHasMutated(candidates(p, propName));
+    }
+
+    /** Notifies observers found by {@link #forgetDependants(org.netbeans.html.json.spi.Proto, java.lang.String)}.
+     */
+    static final void valueHasMutated(List<Ref> candidates) {
+        if (candidates == null) {
+            return;
+        }
+        for (Ref ref : candidates) {
+            Watcher w = ref.watcher();
+            if (w != null) {
+                w.valueHasMutated();
+            }
+        }
+    }
+
+    /** Forgets {@link Proto#cacheValue(int, java.lang.Object) remembered values}
+     * of all properties that (even indirectly) depend on the given one.
+     * Called synchronously when the property changes, so the stale values
+     * aren't returned before the change notifications get delivered.
+     *
+     * @return observers directly depending on the property to notify later
+     *   or <code>null</code>
+     */
+    static final List<Ref> forgetDependants(Proto p, String propName) {
+        List<Ref> direct = candidates(p, propName);
+        if (direct == null) {
+            return null;
+        }
+        List<Ref> todo = new ArrayList<Ref>(direct);
+        Set<Watcher> visited = new HashSet<Watcher>();
+        while (!todo.isEmpty()) {
+            Watcher w = todo.remove(todo.size() - 1).watcher();
+            if (w == null || !visited.add(w)) {
+                continue;
+            }
+            Proto wp = w.proto;
+            if (wp == null) {
+                continue;
+            }
+            wp.forgetValue(w.prop);
+            List<Ref> next = candidates(wp, w.prop);
+            if (next != null) {
+                todo.addAll(next);
             }
+        }
+        return direct;
+    }
+
+    private static List<Ref> candidates(Proto p, String propName) {
+        Observers mine = p.observers(false);
+        if (mine == null) {
+            return null;
+        }
+        List<Ref> candidates = null;
+        synchronized (mine) {
             Iterator<Ref> it = mine.observers.iterator();
             while (it.hasNext()) {
                 Ref ref = it.next();
-                Watcher w = ref.watcher();
-                if (w == null || w.proto == null) {
+                if (ref.get() == null) {
                     it.remove();
                     continue;
                 }
                 if (ref.prop.equals(propName)) {
-                    mutated.add(w);
+                    if (candidates == null) {
+                        candidates = new ArrayList<Ref>();
+                    }
+                    candidates.add(ref);
                 }
             }
         }
-        for (Watcher w : mutated) {
-            w.valueHasMutated();
-        }
+        return candidates;
     }
 
-    void add(Watcher w, Ref r) {
-        Thread.holdsLock(GLOBAL);
-        if (w == null) {
-            return;
-        }
-        Iterator<Ref> it = observers.iterator();
-        while (it.hasNext()) {
-            Ref ref = it.next();
-            if (r == ref) {
-                return;
-            }
-            final Watcher rw = ref.get();
-            if (rw == null) {
-                it.remove();
-                continue;
-            }
-            if (rw == w && ref.prop.equals(r.prop)) {
-                return;
+    private void add(Ref r) {
+        assert Thread.holdsLock(this);
+        if (observers.add(r) && observers.size() >= purgeAt) {
+            Iterator<Ref> it = observers.iterator();
+            while (it.hasNext()) {
+                if (it.next().get() == null) {
+                    it.remove();
+                }
             }
+            purgeAt = Math.max(16, observers.size() * 2);
         }
-        observers.add(r);
     }
-    
+
     private static final class Watcher {
-        Proto proto;
-        final Thread owner;
+        volatile Proto proto;
         final String prop;
 
         Watcher(Proto proto, String prop) {
-            this.owner = Thread.currentThread();
             this.proto = proto;
             this.prop = prop;
         }
-        
+
         @Override
         public String toString() {
             return "Watcher: " + proto + ", " + prop;
@@ -215,7 +325,7 @@ final class Observers {
         void valueHasMutated() {
             Proto p = proto;
             if (p != null) {
-                p.valueHasMutated(prop);
+                p.valueHasMutated(prop, false);
             }
         }
     }
@@ -18,6 +18,7 @@
  */
 package org.netbeans.html.json.spi;
 
+import java.io.IOException;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
 import net.java.html.BrwsrCtx;
@@ -55,6 +56,21 @@ public abstract class PropertyBinding {
                 proto.onChange(propIndex);
             }
 
+            @Override
+            protected void notifyObservers(Proto proto, String propName) {
+                proto.observersHaveMutated(propName);
+            }
+
+            @Override
+            protected void forgetValues(Proto proto, String propName) {
+                proto.forgetValues(propName);
+            }
+
+            @Override
+            protected Object cachedValue(Proto proto, String propName) {
+                return proto.cachedValue(propName);
+            }
+
             @Override
             protected Proto findProto(Proto.Type<?> type, Object object) {
                 return type.protoFor(object);
@@ -70,6 +86,16 @@ public abstract class PropertyBinding {
                 return from.read(c, data);
             }
 
+            @Override
+            protected Object read(Proto.Type<?> from, BrwsrCtx c, Transfer.Tokens data) throws IOException {
+                return from.read(c, data);
+            }
+
+            @Override
+            protected <Model> void writeTo(Proto.Type<Model> type, Model model, Appendable out) throws IOException {
+                type.writeTo(model, out);
+            }
+
             @Override
             protected <M> PropertyBinding newBinding(
                 Proto.Type<M> access, Bindings<?> bindings, String name, int index, M model, byte propertyType) {
@@ -18,6 +18,7 @@
  */
 package org.netbeans.html.json.spi;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 import net.java.html.BrwsrCtx;
@@ -25,6 +26,8 @@ import net.java.html.json.ComputedProperty;
 import net.java.html.json.Model;
 import net.java.html.json.Models;
 import net.java.html.json.Property;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.impl.Batch;
 import org.netbeans.html.json.impl.Bindings;
 import org.netbeans.html.json.impl.JSON;
 import org.netbeans.html.json.impl.JSON.WS;
@@ -50,8 +53,9 @@ public final class Proto {
     private final Type type;
     private final net.java.html.BrwsrCtx context;
     private org.netbeans.html.json.impl.Bindings ko;
-    private Observers observers;
-    private Observers.Usages usages;
+    private volatile Observers observers;
+    private volatile Object[] cache;
+    private final Object cacheLock = new Object();
 
     Proto(Object obj, Type type, BrwsrCtx context) {
         this.obj = obj;
@@ -90,7 +94,7 @@ public final class Proto {
      * @since 0.9
      */
     public void acquireLock(String propName) throws IllegalStateException {
-        usages = Observers.beginComputing(this, propName, usages);
+        Observers.beginComputing(this, propName);
     }
 
     /** A property on this proto object is about to be accessed. Verifies
@@ -122,6 +126,54 @@ public final class Proto {
         Observers.finishComputing(this);
     }
 
+    /** Obtains value of a {@link ComputedProperty derived property}
+     * remembered by {@link #cacheValue(int, java.lang.Object)}. The value
+     * is forgotten when the {@link #valueHasMutated(java.lang.String) property
+     * changes}. If there is a value, the access is recorded like in case of
+     * {@link #accessProperty(java.lang.String)}.
+     *
+     * @param index index of the property as used during
+     *   {@link Type#registerProperty(java.lang.String, int, boolean, boolean) registration}
+     * @return the remembered value or the {@link Type} of this proto object
+     *   if there is no value and the property needs to be computed
+     * @since 1.8
+     */
+    public Object getCachedValue(int index) {
+        Object v;
+        synchronized (cacheLock) {
+            if (cache == null) {
+                cache = new Object[type.properties.size()];
+            }
+            v = cache[index];
+            if (v == null || v == STALE || v instanceof Computing) {
+                cache[index] = new Computing(Thread.currentThread());
+                return type;
+            }
+        }
+        Observers.accessingValue(this, ((PropertyInfo) type.properties.get(index)).name);
+        return v == NULL ? null : v;
+    }
+
+    /** Remembers computed value of a {@link ComputedProperty derived property}.
+     * The value is remembered only if the property hasn't changed since
+     * {@link #getCachedValue(int)} has been called by the same thread.
+     *
+     * @param <T> type of the value
+     * @param index index of the property as used during
+     *   {@link Type#registerProperty(java.lang.String, int, boolean, boolean) registration}
+     * @param value the computed value
+     * @return the <code>value</code>
+     * @since 1.8
+     */
+    public <T> T cacheValue(int index, T value) {
+        synchronized (cacheLock) {
+            if (cache != null && cache[index] instanceof Computing && ((Computing) cache[index]).owner == Thread.currentThread()) {
+                cache[index] = value == null ? NULL : value;
+            }
+        }
+        return value;
+    }
+
     /** Whenever model changes a property. It should notify the
      * associated technology by calling this method.
      * Since 0.8.3: This method may be called by any thread - it reschedules
@@ -131,13 +183,31 @@ public final class Proto {
      * @param propName name of the changed property
      */
     public void valueHasMutated(final String propName) {
+        valueHasMutated(propName, true);
+    }
+
+    final void valueHasMutated(final String propName, final boolean recompute) {
+        final List<Observers.Ref> dependants;
+        if (recompute) {
+            dependants = forgetValues(propName);
+        } else {
+            forgetValue(propName);
+            dependants = null;
+        }
+        if (Batch.record(this, propName, null, null)) {
+            return;
+        }
         context.execute(new Runnable() {
             @Override
             public void run() {
                 if (ko != null) {
-                    ko.valueHasMutated(propName, null, null);
+                    ko.valueHasMutated(propName, null, recompute ? cachedValue(propName) : null);
+                }
+                if (recompute) {
+                    Observers.valueHasMutated(dependants);
+                } else {
+                    Observers.valueHasMutated(Proto.this, propName);
                 }
-                Observers.valueHasMutated(Proto.this, propName);
             }
         });
     }
@@ -159,13 +229,17 @@ public final class Proto {
     public void valueHasMutated(
         final String propName, final Object oldValue, final Object newValue
     ) {
+        final List<Observers.Ref> dependants = forgetValues(propName);
+        if (Batch.record(this, propName, oldValue, newValue)) {
+            return;
+        }
         context.execute(new Runnable() {
             @Override
             public void run() {
                 if (ko != null) {
                     ko.valueHasMutated(propName, oldValue, newValue);
                 }
-                Observers.valueHasMutated(Proto.this, propName);
+                Observers.valueHasMutated(dependants);
             }
         });
     }
@@ -273,6 +347,20 @@ public final class Proto {
         return JSON.read(context, modelClass, data);
     }
 
+    /** Reads the next value from a {@link Transfer.Streaming streaming
+     * transfer} and converts it to an instance of a model class.
+     *
+     * @param <T> type of the model class
+     * @param modelClass the model class
+     * @param data tokens positioned before the value to read
+     * @return newly created instance of the model class or <code>null</code>
+     * @throws IOException if the data can't be read
+     * @since 1.8
+     */
+    public <T> T read(Class<T> modelClass, Transfer.Tokens data) throws IOException {
+        return JSON.read(context, modelClass, data);
+    }
+
     /** Initializes asynchronous JSON connection to specified URL. Delegates
      * to {@link #loadJSON(int, java.lang.String, java.lang.String, java.lang.String, java.lang.Object, java.lang.Object...) }
      * with no extra parameters.
@@ -351,7 +439,12 @@ public final class Proto {
             context, new Rcvr(), headers, urlBefore, urlAfter, method, data
         );
         Transfer t = JSON.findTransfer(context);
-        t.loadJSON(call);
+        JSONCache cache = Contexts.find(context, JSONCache.class);
+        if (cache != null) {
+            cache.loadJSON(t, call);
+        } else {
+            t.loadJSON(call);
+        }
     }
 
     /** Opens new WebSocket connection to the specified URL.
@@ -511,15 +604,89 @@ public final class Proto {
         return ko;
     }
 
+    /** Forgets remembered value of the property and of all computed
+     * properties depending on it.
+     *
+     * @param propName name of the changed property
+     * @return observers directly depending on the property or <code>null</code>
+     */
+    final List<Observers.Ref> forgetValues(String propName) {
+        forgetValue(propName);
+        return Observers.forgetDependants(this, propName);
+    }
+
+    final void forgetValue(String propName) {
+        final Object[] c = cache;
+        if (c == null) {
+            return;
+        }
+        int index = type.indexOf(propName);
+        if (index < 0 || index >= c.length) {
+            return;
+        }
+        synchronized (cacheLock) {
+            if (c[index] != null) {
+                c[index] = STALE;
+            }
+        }
+    }
+
+    /** Recomputes a {@link #getCachedValue(int) remembered value} of a
+     * property that has changed.
+     *
+     * @param propName name of the property
+     * @return the new value or <code>null</code> if the property
+     *   isn't remembered
+     */
+    final Object cachedValue(String propName) {
+        final Object[] c = cache;
+        if (c == null) {
+            return null;
+        }
+        int index = type.indexOf(propName);
+        if (index < 0 || index >= c.length) {
+            return null;
+        }
+        synchronized (cacheLock) {
+            if (c[index] == null) {
+                return null;
+            }
+        }
+        return type.getValue(obj, index);
+    }
+
+    final void observersHaveMutated(String propName) {
+        Observers.valueHasMutated(this, propName);
+    }
+
     final void onChange(int index) {
         type.onChange(obj, index);
     }
 
     final Observers observers(boolean create) {
-        if (create && observers == null) {
-            observers = new Observers();
+        Observers o = observers;
+        if (o == null && create) {
+            synchronized (Observers.class) {
+                o = observers;
+                if (o == null) {
+                    observers = o = new Observers();
+                }
+            }
+        }
+        return o;
+    }
+
+    private static final Object NULL = new Object();
+    private static final Object STALE = new Object();
+
+    /** Marks a value being computed by the {@link #owner} thread.
+     */
+    private static final class Computing {
+        final Thread owner;
+
+        Computing(Thread owner) {
+            this.owner = owner;
         }
-        return observers;
     }
 
     private static class PropertyInfo {
@@ -541,6 +708,7 @@ public final class Proto {
     public static abstract class Type<Model> {
         final Class<? extends Model> clazz;
         final java.util.List<PropertyInfo> properties;
+        private final java.util.Map<String, Integer> indexes = new java.util.HashMap<String, Integer>();
         final java.util.List<String> functions;
 
         /** Constructor for subclasses generated by the annotation processor
@@ -595,6 +763,12 @@ public final class Proto {
             assert properties.get(index) == null;
             byte t = (byte) ((readOnly ? 1 : 0) | (constant ? 2 : 0));
             properties.set(index, new PropertyInfo(name, t));
+            indexes.put(name, index);
+        }
+
+        final int indexOf(String name) {
+            Integer index = indexes.get(name);
+            return index == null ? -1 : index;
         }
 
         /** Registers function of given name at given index.
@@ -670,6 +844,25 @@ public final class Proto {
          */
         protected abstract Model read(BrwsrCtx c, Object json);
 
+        /** Reads the next JSON value from a {@link Transfer.Streaming streaming
+         * transfer} and converts it to our model class. The default
+         * implementation reads the {@link Transfer.Tokens#nextValue() value}
+         * and passes it to {@link #read(net.java.html.BrwsrCtx, java.lang.Object)}.
+         * Generated classes override the method to read their properties
+         * directly.
+         *
+         * @param c the browser context to work in
+         * @param json tokens positioned before the value to read
+         * @return new instance of model class filled by the data or
+         *   <code>null</code> if the value is <code>null</code>
+         * @throws IOException if the data can't be read
+         * @since 1.8
+         */
+        protected Model read(BrwsrCtx c, Transfer.Tokens json) throws IOException {
+            Object raw = json.nextValue();
+            return raw == null ? null : read(c, raw);
+        }
+
         /** Called when a {@link #registerProperty(java.lang.String, int, boolean) registered property}
          * changes its value.
          *
@@ -720,6 +913,21 @@ public final class Proto {
             onMessage(model, index, type, data);
         }
 
+        /** Writes JSON representation of the model into provided output.
+         * Nested models and lists are written into the same output without
+         * creating intermediate strings. The default implementation appends
+         * {@link Object#toString()} of the model, generated classes override
+         * the method.
+         *
+         * @param model the instance of the model class
+         * @param out the output to write the JSON text to
+         * @throws IOException if writing to the output fails
+         * @since 1.8
+         */
+        protected void writeTo(Model model, Appendable out) throws IOException {
+            out.append(String.valueOf(model));
+        }
+
         //
         // Various support methods the generated classes use
         //
@@ -734,9 +942,7 @@ public final class Proto {
          * @param dest array to be filled with read type instances
          */
         public <T> void copyJSON(BrwsrCtx context, Object[] src, Class<T> destType, T[] dest) {
-            for (int i = 0; i < src.length && i < dest.length; i++) {
-                dest[i] = org.netbeans.html.json.impl.JSON.read(context, destType, src[i]);
-            }
+            org.netbeans.html.json.impl.JSON.readArray(context, destType, src, dest);
         }
 
         /** Compares two objects that can be converted to integers.
@@ -793,6 +999,19 @@ public final class Proto {
             return JSON.toJSON(obj);
         }
 
+        /** Writes JSON value of an object into provided output. Produces
+         * the same text as {@link #toJSON(java.lang.Object)}, but models
+         * and lists of models are written directly into the output.
+         *
+         * @param obj the object to convert
+         * @param out the output to write the JSON text to
+         * @throws IOException if writing to the output fails
+         * @since 1.8
+         */
+        public final void writeJSON(Object obj, Appendable out) throws IOException {
+            JSON.writeJSON(obj, out);
+        }
+
         /** Converts the value to string.
          *
          * @param val the value
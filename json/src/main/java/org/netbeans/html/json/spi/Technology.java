@@ -213,4 +213,58 @@ public interface Technology<Data> {
          */
         public Object toJavaScript(D data);
     }
+
+    /** Technologies that can update an array property incrementally
+     * may implement this interface. When elements of a {@link java.util.List}
+     * property are added, removed or replaced, the technology receives
+     * just the changed range instead of being asked to re-read the whole
+     * list via {@link #valueHasMutated(java.lang.Object, java.lang.String)}.
+     * The semantics follows JavaScript's <code>Array.splice</code>.
+     *
+     * @param <D> the internal data for the technology
+     * @since 1.8
+     */
+    public static interface ArrayMutated<D> extends Technology<D> {
+        /** Elements of an array property have changed.
+         *
+         * @param data technology's own representation of the model
+         * @param propertyName name of the model property that changed
+         * @param index position of the first changed element
+         * @param removed number of elements removed at <code>index</code>
+         * @param added elements inserted at <code>index</code> as
+         *    returned from {@link #wrapArray(java.lang.Object[])}
+         * @return <code>true</code> if the change has been applied,
+         *    <code>false</code> if the technology cannot handle it - then
+         *    the regular {@link #valueHasMutated(java.lang.Object, java.lang.String)}
+         *    notification is delivered instead
+         */
+        public boolean arrayHasMutated(D data, String propertyName, int index, int removed, Object added);
+    }
+
+    /** Technologies that can process many property changes at once may
+     * implement this interface. When models are modified inside of
+     * {@link Models#batch(net.java.html.BrwsrCtx, java.lang.Runnable)},
+     * the changes are collected, duplicates are removed and the technology
+     * is notified about all of them by a single call to this method instead
+     * of calling {@link ValueMutated#valueHasMutated(java.lang.Object, java.lang.String, java.lang.Object, java.lang.Object)}
+     * for each change separately.
+     *
+     * @param <D> the internal data for the technology
+     * @since 1.8
+     */
+    public static interface BatchMutated<D> extends ValueMutated<D> {
+        /** Properties of models have changed. All the arrays have the
+         * same length. Values at the same index describe one change the
+         * same way as parameters of
+         * {@link ValueMutated#valueHasMutated(java.lang.Object, java.lang.String, java.lang.Object, java.lang.Object)}
+         * do.
+         *
+         * @param data technology's own representations of the models
+         *    (instances of <code>D</code>)
+         * @param propertyNames names of the model properties that changed
+         * @param oldValues previous values of the properties
+         * @param newValues new values of the properties
+         */
+        public void valuesHaveMutated(Object[] data, String[] propertyNames, Object[] oldValues, Object[] newValues);
+    }
 }
@@ -68,5 +68,130 @@ public interface Transfer {
      * @param call description of the call to make
      */
     public void loadJSON(JSONCall call);
-    
+
+    /** Extension of {@link Transfer} that can inspect properties of
+     * many objects at once. Used when an array of JSON objects (for example
+     * the result of {@link #toJSON(java.io.InputStream)}) is converted to
+     * an array of models sharing the same list of properties. Implementations
+     * that need to cross a language boundary for each inspection can then do
+     * so just once for the whole array.
+     *
+     * @since 1.8
+     */
+    public static interface BatchExtract extends Transfer {
+        /** Called to inspect the same properties on many objects.
+         *
+         * @param objs the objects to inspect
+         * @param props the names of properties to check on each of the objects
+         * @param values array of length <code>objs.length * props.length</code>
+         *   to be filled by values of the properties - value of property
+         *   <code>props[j]</code> of object <code>objs[i]</code> is
+         *   expected at index <code>i * props.length + j</code>. If a property
+         *   is not defined, a <code>null</code> value should be stored in the array
+         */
+        public void extract(Object[] objs, String[] props, Object[] values);
+    }
+
+    /** Extension of {@link Transfer} that can read a stream as a sequence
+     * of JSON tokens. Models generated by the annotation processor
+     * then read their properties directly from the {@link Tokens} without
+     * creating intermediate JSON objects. Transfers that don't implement
+     * this interface are processed via {@link #toJSON(java.io.InputStream)}
+     * and {@link #extract(java.lang.Object, java.lang.String[], java.lang.Object[])}.
+     *
+     * @since 1.8
+     */
+    public static interface Streaming extends Transfer {
+        /** Prepares a pull parser over the content of the stream.
+         *
+         * @param is input stream to read data from
+         * @return tokens positioned before the first JSON value in the stream
+         * @throws IOException if something goes wrong
+         */
+        public Tokens tokens(InputStream is) throws IOException;
+    }
+
+    /** Pull parser over a JSON text provided by
+     * {@link Streaming#tokens(java.io.InputStream)}. Each of the
+     * <code>next</code> methods consumes one JSON value, except
+     * {@link #nextName()} and {@link #hasNext()} which move inside
+     * an object or an array.
+     *
+     * @since 1.8
+     */
+    public static interface Tokens {
+        /** Moves into a JSON object.
+         *
+         * @return <code>true</code> if the next value is an object - its
+         *   properties are then available via {@link #nextName()}. Returns
+         *   <code>false</code> and skips the value otherwise
+         * @throws IOException if the data can't be read
+         */
+        public boolean nextObject() throws IOException;
+
+        /** Reads name of the next property of the current object. The value
+         * of the property has to be consumed by one of the <code>next</code>
+         * methods before asking for another name.
+         *
+         * @return name of the property or <code>null</code> when there are
+         *   no more properties in the current object
+         * @throws IOException if the data can't be read
+         */
+        public String nextName() throws IOException;
+
+        /** Moves into a JSON array. A value which isn't an array is treated
+         * as an array with a single element.
+         *
+         * @return <code>false</code> if the value is <code>null</code>,
+         *   <code>true</code> if the elements are available via {@link #hasNext()}
+         * @throws IOException if the data can't be read
+         */
+        public boolean nextArray() throws IOException;
+
+        /** Checks whether the current array has more elements. Each element
+         * has to be consumed by one of the <code>next</code> methods before
+         * asking again.
+         *
+         * @return <code>true</code> if there is another element
+         * @throws IOException if the data can't be read
+         */
+        public boolean hasNext() throws IOException;
+
+        /** Reads the next value as an object. JSON objects are represented
+         * in a way acceptable by {@link Transfer#extract(java.lang.Object, java.lang.String[], java.lang.Object[])},
+         * arrays as <code>Object[]</code>.
+         *
+         * @return the value
+         * @throws IOException if the data can't be read
+         */
+        public Object nextValue() throws IOException;
+
+        /** Reads the next value as a string.
+         *
+         * @return the string or <code>null</code>
+         * @throws IOException if the data can't be read
+         */
+        public String nextString() throws IOException;
+
+        /** Reads the next value as an integral number.
+         *
+         * @return the number, <code>0</code> if the value is <code>null</code>
+         * @throws IOException if the data can't be read
+         */
+        public long nextLong() throws IOException;
+
+        /** Reads the next value as a floating point number.
+         *
+         * @return the number, <code>0</code> if the value is <code>null</code>
+         * @throws IOException if the data can't be read
+         */
+        public double nextDouble() throws IOException;
+
+        /** Reads the next value as a boolean.
+         *
+         * @return the value, <code>false</code> if the value is <code>null</code>
+         * @throws IOException if the data can't be read
+         */
+        public boolean nextBoolean() throws IOException;
+    }
 }
@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.java.html.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.java.html.BrwsrCtx;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.spi.JSONCall;
+import org.netbeans.html.json.spi.Transfer;
+import static org.testng.Assert.assertEquals;
+import org.testng.annotations.Test;
+
+public class BatchExtractTest {
+    @Test public void arrayIsExtractedAtOnce() throws IOException {
+        BulkTransfer t = new BulkTransfer();
+        List<Person> people = parsePeople(t);
+
+        assertPeople(people);
+        assertEquals(t.bulk, 1, "One bulk extraction");
+        assertEquals(t.single, 0, "No single extractions");
+    }
+
+    @Test public void plainTransferExtractsOneByOne() throws IOException {
+        PlainTransfer t = new PlainTransfer();
+        List<Person> people = parsePeople(t);
+
+        assertPeople(people);
+        assertEquals(t.bulk, 0, "No bulk extraction");
+        assertEquals(t.single, 3, "Each object extracted");
+    }
+
+    private static List<Person> parsePeople(Transfer t) throws IOException {
+        BrwsrCtx c = Contexts.newBuilder().register(Transfer.class, t, 1).build();
+        List<Person> people = new ArrayList<Person>();
+        Models.parse(c, Person.class, new ByteArrayInputStream(new byte[0]), people);
+        return people;
+    }
+
+    private static void assertPeople(List<Person> people) {
+        assertEquals(people.size(), 3, "Three people: " + people);
+        assertEquals(people.get(0).getFirstName(), "Jarda");
+        assertEquals(people.get(0).getSex(), Sex.MALE);
+        assertEquals(people.get(1).getFirstName(), "Hana");
+        assertEquals(people.get(1).getSex(), Sex.FEMALE);
+        assertEquals(people.get(2).getFirstName(), "Jirka");
+        assertEquals(people.get(2).getLastName(), null);
+    }
+
+    private static Map<String,Object> person(String first, String last, Sex sex) {
+        Map<String,Object> m = new HashMap<String,Object>();
+        m.put("firstName", first);
+        m.put("lastName", last);
+        m.put("sex", sex == null ? null : sex.name());
+        return m;
+    }
+
+    private static class PlainTransfer implements Transfer {
+        int single;
+        int bulk;
+
+        @Override
+        public void extract(Object obj, String[] props, Object[] values) {
+            single++;
+            extract((Map<?,?>) obj, props, values, 0);
+        }
+
+        static void extract(Map<?,?> map, String[] props, Object[] values, int at) {
+            for (int j = 0; j < props.length; j++) {
+                values[at + j] = map.get(props[j]);
+            }
+        }
+
+        @Override
+        public Object toJSON(InputStream is) throws IOException {
+            return new Object[] {
+                person("Jarda", "Tulach", Sex.MALE),
+                person("Hana", "Tulachova", Sex.FEMALE),
+                person("Jirka", null, null),
+            };
+        }
+
+        @Override
+        public void loadJSON(JSONCall call) {
+        }
+    }
+
+    private static final class BulkTransfer extends PlainTransfer
+    implements Transfer.BatchExtract {
+        @Override
+        public void extract(Object[] objs, String[] props, Object[] values) {
+            bulk++;
+            for (int i = 0; i < objs.length; i++) {
+                extract((Map<?,?>) objs[i], props, values, i * props.length);
+            }
+        }
+    }
+}
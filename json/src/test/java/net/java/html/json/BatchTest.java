@@ -0,0 +1,193 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.java.html.json;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.java.html.BrwsrCtx;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.spi.FunctionBinding;
+import org.netbeans.html.json.spi.PropertyBinding;
+import org.netbeans.html.json.spi.Technology;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class BatchTest {
+    private BatchTechnology t;
+    private BrwsrCtx c;
+
+    @BeforeMethod public void initTechnology() {
+        t = new BatchTechnology();
+        c = Contexts.newBuilder().register(Technology.class, t, 1).build();
+    }
+
+    @Test public void changesAreDeliveredImmediatelyWithoutBatch() {
+        Person p = Models.bind(new Person(), c);
+        Models.applyBindings(p);
+        p.setFirstName("Jarda");
+        assertTrue(t.single.contains("firstName=Jarda"), "Delivered: " + t.single);
+        assertEquals(t.batches.size(), 0);
+    }
+
+    @Test public void changesAreCollectedAndMerged() {
+        final Person p1 = Models.bind(new Person(), c);
+        final Person p2 = Models.bind(new Person(), c);
+        Models.applyBindings(p1);
+        Models.applyBindings(p2);
+
+        Models.batch(c, new Runnable() {
+            @Override
+            public void run() {
+                p1.setFirstName("Jarda");
+                p1.setFirstName("Jaroslav");
+                p1.setLastName("Tulach");
+                p2.setFirstName("Jirka");
+                assertEquals(t.single.size(), 0, "Nothing delivered yet: " + t.single);
+                assertEquals(t.batches.size(), 0, "Nothing delivered yet: " + t.batches);
+            }
+        });
+
+        assertEquals(t.single.size(), 0, "No single notification: " + t.single);
+        assertEquals(t.batches.size(), 1, "One batch: " + t.batches);
+        List<String> changes = t.batches.get(0);
+        assertEquals(count(changes, "firstName=Jaroslav"), 1, "Merged into last value: " + changes);
+        assertEquals(count(changes, "firstName=Jarda"), 0, "Merged into last value: " + changes);
+        assertEquals(count(changes, "lastName=Tulach"), 1, "Once: " + changes);
+        assertEquals(count(changes, "firstName=Jirka"), 1, "Once: " + changes);
+        assertEquals(count(changes, "fullName=Jaroslav Tulach"), 1, "Dependent property once: " + changes);
+    }
+
+    @Test public void nestedBatchDeliversAtTheEnd() {
+        final Person p = Models.bind(new Person(), c);
+        Models.applyBindings(p);
+
+        Models.batch(c, new Runnable() {
+            @Override
+            public void run() {
+                p.setFirstName("Jarda");
+                Models.batch(c, new Runnable() {
+                    @Override
+                    public void run() {
+                        p.setLastName("Tulach");
+                    }
+                });
+                assertEquals(t.batches.size(), 0, "Nothing delivered yet: " + t.batches);
+                p.setSex(Sex.MALE);
+            }
+        });
+
+        assertEquals(t.batches.size(), 1, "One batch: " + t.batches);
+        List<String> changes = t.batches.get(0);
+        assertEquals(count(changes, "firstName=Jarda"), 1, "First: " + changes);
+        assertEquals(count(changes, "lastName=Tulach"), 1, "Nested: " + changes);
+        assertEquals(count(changes, "sex=MALE"), 1, "After nested: " + changes);
+    }
+
+    @Test public void changesAreDeliveredWhenBatchThrows() {
+        final Person p = Models.bind(new Person(), c);
+        Models.applyBindings(p);
+
+        try {
+            Models.batch(c, new Runnable() {
+                @Override
+                public void run() {
+                    p.setFirstName("Jarda");
+                    throw new IllegalStateException("Failure in the batch");
+                }
+            });
+            fail("The exception should be propagated");
+        } catch (IllegalStateException ex) {
+            assertEquals(ex.getMessage(), "Failure in the batch");
+        }
+
+        assertEquals(t.batches.size(), 1, "Changes made before the failure delivered: " + t.batches);
+        assertEquals(count(t.batches.get(0), "firstName=Jarda"), 1, "Delivered: " + t.batches);
+    }
+
+    private static int count(List<String> changes, String what) {
+        int cnt = 0;
+        for (String s : changes) {
+            if (s.equals(what)) {
+                cnt++;
+            }
+        }
+        return cnt;
+    }
+
+    private static final class BatchTechnology implements Technology.BatchMutated<Object> {
+        final List<String> single = new ArrayList<String>();
+        final List<List<String>> batches = new ArrayList<List<String>>();
+
+        @Override
+        public void valuesHaveMutated(Object[] data, String[] propertyNames, Object[] oldValues, Object[] newValues) {
+            List<String> changes = new ArrayList<String>();
+            for (int i = 0; i < data.length; i++) {
+                changes.add(propertyNames[i] + "=" + newValues[i]);
+            }
+            batches.add(changes);
+        }
+
+        @Override
+        public void valueHasMutated(Object data, String propertyName, Object oldValue, Object newValue) {
+            single.add(propertyName + "=" + newValue);
+        }
+
+        @Override
+        public void valueHasMutated(Object data, String propertyName) {
+            valueHasMutated(data, propertyName, null, null);
+        }
+
+        @Override
+        public Object wrapModel(Object model) {
+            return Arrays.asList(model);
+        }
+
+        @Override
+        public <M> M toModel(Class<M> modelClass, Object data) {
+            return modelClass.cast(((List<?>) data).get(0));
+        }
+
+        @Override
+        public void bind(PropertyBinding b, Object model, Object data) {
+            b.getValue();
+        }
+
+        @Override
+        public void expose(FunctionBinding fb, Object model, Object d) {
+        }
+
+        @Override
+        public void applyBindings(Object data) {
+        }
+
+        @Override
+        public Object wrapArray(Object[] arr) {
+            return arr;
+        }
+
+        @Override
+        public void runSafe(Runnable r) {
+            r.run();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package net.java.html.json;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import net.java.html.BrwsrCtx;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.spi.FunctionBinding;
+import org.netbeans.html.json.spi.PropertyBinding;
+import org.netbeans.html.json.spi.Technology;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Model(className = "Cart", properties = {
+    @Property(name = "owner", type = String.class),
+    @Property(name = "discount", type = int.class),
+    @Property(name = "prices", type = int.class, array = true),
+    @Property(name = "items", type = CartItem.class, array = true)
+})
+public class ComputedCacheTest {
+    static int sums;
+    static int totals;
+    static int labels;
+
+    @ComputedProperty static int sum(List<Integer> prices, int discount) {
+        sums++;
+        int sum = 0;
+        for (Integer p : prices) {
+            sum += p;
+        }
+        return sum - discount;
+    }
+
+    @ComputedProperty static int total(List<CartItem> items) {
+        totals++;
+        int total = 0;
+        for (CartItem i : items) {
+            total += i.getPrice();
+        }
+        return total;
+    }
+
+    @ComputedProperty static String label(Cart cart) {
+        labels++;
+        return cart.getOwner() + ": " + cart.getDiscount();
+    }
+
+    @Model(className = "CartItem", properties = {
+        @Property(name = "price", type = int.class)
+    })
+    static class CartItemCntrl {
+    }
+
+    @BeforeMethod public void resetCounters() {
+        sums = 0;
+        totals = 0;
+        labels = 0;
+    }
+
+    @Test public void valueIsComputedOnce() {
+        Cart c = new Cart("Jarda", 5, 10, 20);
+        assertEquals(c.getSum(), 25);
+        assertEquals(c.getSum(), 25);
+        assertEquals(sums, 1, "Computed just once");
+    }
+
+    @Test public void changeOfPropertyForgetsTheValue() {
+        Cart c = new Cart("Jarda", 5, 10, 20);
+        assertEquals(c.getSum(), 25);
+        c.setDiscount(10);
+        c.setDiscount(15);
+        assertEquals(sums, 1, "Not recomputed without a technology");
+        assertEquals(c.getSum(), 15);
+        assertEquals(sums, 2, "Recomputed on read");
+    }
+
+    @Test public void changeOfListForgetsTheValue() {
+        Cart c = new Cart("Jarda", 0, 10, 20);
+        assertEquals(c.getSum(), 30);
+        c.getPrices().add(5);
+        assertEquals(c.getSum(), 35);
+        c.getPrices().clear();
+        assertEquals(c.getSum(), 0);
+        assertEquals(sums, 3, "Recomputed after each change");
+    }
+
+    @Test public void changeOfDeepPropertyForgetsTheValue() {
+        CartItem first = new CartItem(3);
+        Cart c = new Cart("Jarda", 0);
+        c.getItems().add(first);
+        c.getItems().add(new CartItem(4));
+        assertEquals(c.getTotal(), 7);
+        assertEquals(c.getTotal(), 7);
+        assertEquals(totals, 1, "Computed once");
+        first.setPrice(10);
+        assertEquals(c.getTotal(), 14);
+        assertEquals(totals, 2, "Recomputed after change of an item");
+    }
+
+    @Test public void dependantsAreForgottenBeforeAsynchronousNotification() {
+        final List<Runnable> pending = new ArrayList<Runnable>();
+        BrwsrCtx ctx = Contexts.newBuilder().register(Executor.class, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                pending.add(command);
+            }
+        }, 1).build();
+        CartItem first = Models.bind(new CartItem(3), ctx);
+        Cart c = Models.bind(new Cart("Jarda", 0, 10, 20), ctx);
+        c.getItems().add(first);
+        assertEquals(c.getTotal(), 3);
+        assertEquals(c.getSum(), 30);
+
+        first.setPrice(10);
+        assertEquals(c.getTotal(), 10, "Deep change visible before notifications are delivered");
+        c.getPrices().add(5);
+        assertEquals(c.getSum(), 35, "List change visible before notifications are delivered");
+        assertTrue(!pending.isEmpty(), "Notifications are pending");
+
+        runAll(pending);
+        assertEquals(c.getTotal(), 10);
+        assertEquals(c.getSum(), 35);
+    }
+
+    @Test public void dependantsAreForgottenInBatch() {
+        final BrwsrCtx ctx = Contexts.newBuilder().build();
+        final CartItem first = Models.bind(new CartItem(3), ctx);
+        final Cart c = Models.bind(new Cart("Jarda", 0, 10, 20), ctx);
+        c.getItems().add(first);
+        assertEquals(c.getTotal(), 3);
+        assertEquals(c.getSum(), 30);
+        Models.batch(ctx, new Runnable() {
+            @Override
+            public void run() {
+                first.setPrice(10);
+                assertEquals(c.getTotal(), 10, "Deep change visible in the batch");
+                c.getPrices().add(5);
+                assertEquals(c.getSum(), 35, "List change visible in the batch");
+            }
+        });
+        assertEquals(c.getTotal(), 10);
+        assertEquals(c.getSum(), 35);
+    }
+
+    private static void runAll(List<Runnable> pending) {
+        while (!pending.isEmpty()) {
+            pending.remove(0).run();
+        }
+    }
+
+    @Test public void untrackedPropertyIsAlwaysComputed() {
+        Cart c = new Cart("Jarda", 1);
+        assertEquals(c.getLabel(), "Jarda: 1");
+        c.setOwner("Jirka");
+        assertEquals(c.getLabel(), "Jirka: 1");
+        assertEquals(labels, 2, "No caching when the dependencies aren't known");
+    }
+
+    @Test public void technologyGetsNewValue() {
+        ValueTechnology t = new ValueTechnology();
+        BrwsrCtx ctx = Contexts.newBuilder().register(Technology.class, t, 1).build();
+        Cart c = Models.bind(new Cart("Jarda", 0, 1, 2), ctx);
+        Models.applyBindings(c);
+        assertEquals(sums, 1, "Read when bound");
+
+        c.setDiscount(1);
+        assertTrue(t.changes.contains("sum=2"), "New value delivered: " + t.changes);
+        assertEquals(sums, 2, "Computed once again");
+        assertEquals(c.getSum(), 2);
+        assertEquals(sums, 2, "Remembered");
+    }
+
+    private static final class ValueTechnology implements Technology.ValueMutated<Object> {
+        final List<String> changes = new ArrayList<String>();
+
+        @Override
+        public void valueHasMutated(Object data, String propertyName, Object oldValue, Object newValue) {
+            changes.add(propertyName + "=" + newValue);
+        }
+
+        @Override
+        public void valueHasMutated(Object data, String propertyName) {
+            valueHasMutated(data, propertyName, null, null);
+        }
+
+        @Override
+        public Object wrapModel(Object model) {
+            return Arrays.asList(model);
+        }
+
+        @Override
+        public <M> M toModel(Class<M> modelClass, Object data) {
+            return modelClass.cast(((List<?>) data).get(0));
+        }
+
+        @Override
+        public void bind(PropertyBinding b, Object model, Object data) {
+            if (b.getPropertyName().equals("sum")) {
+                b.getValue();
+            }
+        }
+
+        @Override
+        public void expose(FunctionBinding fb, Object model, Object d) {
+        }
+
+        @Override
+        public void applyBindings(Object data) {
+        }
+
+        @Override
+        public Object wrapArray(Object[] arr) {
+            return arr;
+        }
+
+        @Override
+        public void runSafe(Runnable r) {
+            r.run();
+        }
+    }
+}
@@ -23,6 +23,7 @@ import net.java.html.json.Model;
 import net.java.html.json.OnReceive;
 import net.java.html.json.Person;
 import net.java.html.json.Property;
+import net.java.html.json.Sex;
 
 /**
  *
@@ -74,6 +75,11 @@ public class EmployeeImpl {
         e.setPerson(p.get(0));
     }
 
+    @OnReceive(url = "{url}", method = "PUT", data = Sex.class)
+    static void updateSex(Employee e, Person p) {
+        e.setPerson(p);
+    }
+
     @OnReceive(url = "{url}", method = "WebSocket", data = Person.class)
     static void socketPersonalities(Employee e, List<Person> p) {
         e.setPerson(p.get(0));
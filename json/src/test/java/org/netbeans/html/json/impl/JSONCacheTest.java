@@ -0,0 +1,162 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.json.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.java.html.BrwsrCtx;
+import net.java.html.json.Models;
+import net.java.html.json.Person;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.spi.JSONCache;
+import org.netbeans.html.json.spi.JSONCall;
+import org.netbeans.html.json.spi.Transfer;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+public class JSONCacheTest {
+    @Test public void freshResultIsServedFromCache() {
+        ETagTrans t = new ETagTrans();
+        BrwsrCtx ctx = Contexts.newBuilder().
+            register(Transfer.class, t, 1).
+            register(JSONCache.class, new JSONCache(10, 60000), 1).
+            build();
+        Employee e = Models.bind(new Employee(), ctx);
+
+        e.changePersonalities(1, 2.0, "3", new Person());
+        assertEquals(e.getCall().getData().get(0).getFirstName(), "Jarda");
+        e.setCall(null);
+        e.changePersonalities(2, 3.0, "4", new Person());
+
+        assertEquals(t.headers.size(), 1, "Only one request sent");
+        assertNotNull(e.getCall(), "Result delivered from cache");
+        assertEquals(e.getCall().getI(), 2);
+        assertEquals(e.getCall().getData().get(0).getFirstName(), "Jarda");
+    }
+
+    @Test public void staleResultIsRevalidated() {
+        ETagTrans t = new ETagTrans();
+        BrwsrCtx ctx = Contexts.newBuilder().
+            register(Transfer.class, t, 1).
+            register(JSONCache.class, new JSONCache(10, 0), 1).
+            build();
+        Employee e = Models.bind(new Employee(), ctx);
+
+        e.changePersonalities(1, 2.0, "3", new Person());
+        assertNull(t.headers.get(0), "No conditional headers at first");
+
+        e.setCall(null);
+        t.notModified = true;
+        e.changePersonalities(2, 3.0, "4", new Person());
+
+        assertEquals(t.headers.size(), 2, "Asked again");
+        assertTrue(t.headers.get(1).contains("If-None-Match: \"v1\""), t.headers.get(1));
+        assertNotNull(e.getCall(), "Result delivered after not modified reply");
+        assertEquals(e.getCall().getData().get(0).getFirstName(), "Jarda");
+    }
+
+    @Test public void requestsWithDataAreNotCached() {
+        ETagTrans t = new ETagTrans();
+        BrwsrCtx ctx = Contexts.newBuilder().
+            register(Transfer.class, t, 1).
+            register(JSONCache.class, new JSONCache(10, 60000), 1).
+            build();
+        Employee e = Models.bind(new Employee(), ctx);
+
+        e.updatePersonalities("some/url", new Person(), 1, 2.0, "3", null);
+        e.updatePersonalities("some/url", new Person(), 1, 2.0, "3", null);
+
+        assertEquals(t.headers.size(), 2, "Both requests sent");
+    }
+
+    @Test public void concurrentRequestsShareOneCall() {
+        ETagTrans t = new ETagTrans();
+        t.later = new ArrayList<JSONCall>();
+        BrwsrCtx ctx = Contexts.newBuilder().
+            register(Transfer.class, t, 1).
+            register(JSONCache.class, new JSONCache(0, 60000), 1).
+            build();
+        Employee[] all = new Employee[3];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = Models.bind(new Employee(), ctx);
+            all[i].setCall(null);
+            all[i].changePersonalities(i, 2.0, "3", new Person());
+        }
+        assertEquals(t.later.size(), 1, "Only one request sent");
+        assertNull(all[0].getCall(), "No reply yet");
+
+        t.reply(t.later.get(0));
+        for (int i = 0; i < all.length; i++) {
+            assertNotNull(all[i].getCall(), "Reply delivered to " + i);
+            assertEquals(all[i].getCall().getI(), i, "Own parameters kept");
+            assertEquals(all[i].getCall().getData().get(0).getFirstName(), "Jarda");
+        }
+
+        all[0].setCall(null);
+        all[0].changePersonalities(5, 2.0, "3", new Person());
+        assertEquals(t.later.size(), 2, "Nothing cached, asked again");
+    }
+
+    private static final class ETagTrans implements Transfer {
+        final List<String> headers = new ArrayList<String>();
+        boolean notModified;
+        List<JSONCall> later;
+
+        @Override
+        public void extract(Object obj, String[] props, Object[] values) {
+            Map<?,?> map = (Map<?,?>) obj;
+            for (int i = 0; i < props.length; i++) {
+                values[i] = map.get(props[i]);
+            }
+        }
+
+        @Override
+        public Object toJSON(InputStream is) throws IOException {
+            throw new IOException();
+        }
+
+        @Override
+        public void loadJSON(JSONCall call) {
+            headers.add(call.getHeaders());
+            if (later != null) {
+                later.add(call);
+                return;
+            }
+            reply(call);
+        }
+
+        void reply(JSONCall call) {
+            if (notModified) {
+                call.notifyNotModified();
+                return;
+            }
+            Map<String, String> result = new HashMap<String, String>();
+            result.put("firstName", "Jarda");
+            call.notifyHeader("ETag", "\"v1\"");
+            call.notifySuccess(result);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.json.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import net.java.html.BrwsrCtx;
+import net.java.html.json.Models;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.spi.FunctionBinding;
+import org.netbeans.html.json.spi.PropertyBinding;
+import org.netbeans.html.json.spi.Technology;
+import static org.testng.Assert.assertEquals;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class JSONListSpliceTest implements Technology.ArrayMutated<Object> {
+    private PropertyBinding names;
+    private final List<Object> mirror = new ArrayList<Object>();
+    private int splices;
+    private int mutated;
+    private boolean refuse;
+
+    @BeforeMethod public void clear() {
+        names = null;
+        mirror.clear();
+        splices = 0;
+        mutated = 0;
+        refuse = false;
+    }
+
+    @Test public void changesAreDeliveredAsSplices() {
+        JSNLst list = createAndRead();
+
+        list.getNames().add("a");
+        list.getNames().add("b");
+        list.getNames().addAll(Arrays.asList("c", "d"));
+        assertMirror(list, 3, 0);
+
+        list.getNames().set(1, "B");
+        list.getNames().add(0, "first");
+        list.getNames().remove("c");
+        list.getNames().remove(0);
+        assertMirror(list, 7, 0);
+
+        list.getNames().removeAll(Arrays.asList("a", "d"));
+        assertMirror(list, 9, 0);
+
+        list.getNames().clear();
+        assertMirror(list, 10, 0);
+    }
+
+    @Test public void reorderingRereadsWholeList() {
+        JSNLst list = createAndRead();
+        list.getNames().addAll(Arrays.asList("c", "b", "a"));
+        assertMirror(list, 1, 0);
+
+        Collections.sort(list.getNames());
+        assertEquals(mutated, 1, "Full change notified");
+        read();
+        assertMirror(list, 1, 1);
+
+        list.getNames().add("d");
+        assertMirror(list, 2, 1);
+    }
+
+    @Test public void refusedSpliceFallsBackToValueHasMutated() {
+        JSNLst list = createAndRead();
+        refuse = true;
+        list.getNames().add("a");
+        assertEquals(mutated, 1, "Full change notified");
+        list.getNames().add("b");
+        assertEquals(mutated, 2, "No splices until the list is read again");
+        assertEquals(splices, 1, "Only one attempt to splice");
+
+        refuse = false;
+        read();
+        list.getNames().add("c");
+        assertMirror(list, 2, 2);
+    }
+
+    private JSNLst createAndRead() {
+        BrwsrCtx c = Contexts.newBuilder().register(Technology.class, this, 1).build();
+        JSNLst list = Models.bind(new JSNLst(), c);
+        Models.applyBindings(list);
+        read();
+        return list;
+    }
+
+    private void read() {
+        mirror.clear();
+        mirror.addAll(Arrays.asList((Object[]) names.getValue()));
+    }
+
+    private void assertMirror(JSNLst list, int expectedSplices, int expectedMutated) {
+        assertEquals(mirror, list.getNames(), "Technology sees the same list");
+        assertEquals(splices, expectedSplices, "Splices delivered");
+        assertEquals(mutated, expectedMutated, "Full change notifications");
+    }
+
+    @Override
+    public boolean arrayHasMutated(Object data, String propertyName, int index, int removed, Object added) {
+        assertEquals(propertyName, "names");
+        splices++;
+        if (refuse) {
+            return false;
+        }
+        for (int i = 0; i < removed; i++) {
+            mirror.remove(index);
+        }
+        mirror.addAll(index, Arrays.asList((Object[]) added));
+        return true;
+    }
+
+    @Override
+    public Object wrapModel(Object model) {
+        return this;
+    }
+
+    @Override
+    public <M> M toModel(Class<M> modelClass, Object data) {
+        return modelClass.cast(data);
+    }
+
+    @Override
+    public void bind(PropertyBinding b, Object model, Object data) {
+        if (b.getPropertyName().equals("names")) {
+            names = b;
+        }
+    }
+
+    @Override
+    public void valueHasMutated(Object data, String propertyName) {
+        if (propertyName.equals("names")) {
+            mutated++;
+        }
+    }
+
+    @Override
+    public void expose(FunctionBinding fb, Object model, Object d) {
+    }
+
+    @Override
+    public void applyBindings(Object data) {
+    }
+
+    @Override
+    public Object wrapArray(Object[] arr) {
+        return arr;
+    }
+
+    @Override
+    public void runSafe(Runnable r) {
+        r.run();
+    }
+}
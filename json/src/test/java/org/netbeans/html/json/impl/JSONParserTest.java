@@ -0,0 +1,232 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.json.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.java.html.BrwsrCtx;
+import net.java.html.json.Models;
+import net.java.html.json.People;
+import net.java.html.json.Person;
+import net.java.html.json.Sex;
+import net.java.html.json.Types;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.spi.JSONCall;
+import org.netbeans.html.json.spi.Transfer;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import org.testng.annotations.Test;
+
+public class JSONParserTest {
+    @Test public void parsesValues() throws IOException {
+        Object[] arr = (Object[]) parse("[ 1, -2.5, 3e2, 12345678901, true, false, null, \"x\", [], {} ]");
+        assertEquals(arr.length, 10);
+        assertEquals(arr[0], 1);
+        assertEquals(arr[1], -2.5);
+        assertEquals(arr[2], 300.0);
+        assertEquals(arr[3], 12345678901L);
+        assertEquals(arr[4], Boolean.TRUE);
+        assertEquals(arr[5], Boolean.FALSE);
+        assertNull(arr[6]);
+        assertEquals(arr[7], "x");
+        assertEquals(((Object[]) arr[8]).length, 0);
+        assertEquals(arr[9].toString(), "{}");
+    }
+
+    @Test public void parsesEscapes() throws IOException {
+        assertEquals(parse("\"a\\\"b\\\\c\\/d\\n\\t\\u0041\""), "a\"b\\c/d\n\tA");
+    }
+
+    @Test public void longStringsCrossBuffers() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append((char) ('a' + i % 26));
+            if (i % 1000 == 0) {
+                sb.append("\\n");
+            }
+        }
+        String text = (String) parse("{ \"text\": \"" + sb + "\" }", "text");
+        assertEquals(text, sb.toString().replace("\\n", "\n"));
+    }
+
+    @Test public void extractsInAnyOrder() throws IOException {
+        JSONParser.Obj obj = (JSONParser.Obj) parse("{ \"a\": 1, \"b\": 2, \"c\": 3 }");
+        Object[] values = new Object[4];
+        obj.extract(new String[] { "c", "missing", "a", "b" }, values);
+        assertEquals(values[0], 3);
+        assertNull(values[1]);
+        assertEquals(values[2], 1);
+        assertEquals(values[3], 2);
+    }
+
+    @Test public void objectPrintsAsJSON() throws IOException {
+        final String json = "{\"name\":\"J\\\"s\",\"list\":[1,null,{\"x\":true}]}";
+        assertEquals(parse(json).toString(), json);
+    }
+
+    @Test public void reportsErrors() throws IOException {
+        assertError("{ \"a\" 1 }");
+        assertError("[ 1, 2 ");
+        assertError("{ \"a\": tru }");
+        assertError("\"unterminated");
+        assertError("[] []");
+        try {
+            parse("   ");
+            fail("Empty stream");
+        } catch (EOFException ex) {
+            // OK
+        }
+    }
+
+    @Test public void modelsCanBeParsedWithoutTechnology() throws IOException {
+        BrwsrCtx c = Contexts.newBuilder().build();
+        String json = "{ \"nicknames\": [ \"a\", \"b\" ], \"age\": [ 42, 43 ], \"sex\": [ \"MALE\" ], "
+            + "\"info\": [ { \"firstName\": \"Jarda\", \"lastName\": \"Tulach\", \"sex\": \"MALE\" }, "
+            + "{ \"lastName\": \"Nobody\" } ] }";
+        People p = Models.parse(c, People.class, new ByteArrayInputStream(json.getBytes("UTF-8")));
+
+        assertEquals(p.getNicknames(), Arrays.asList("a", "b"));
+        assertEquals(p.getAge(), Arrays.asList(42, 43));
+        assertEquals(p.getSex().get(0), Sex.MALE);
+        assertEquals(p.getInfo().size(), 2);
+        assertEquals(p.getInfo().get(0).getFullName(), "Jarda Tulach");
+        assertNull(p.getInfo().get(1).getFirstName());
+        assertEquals(p.getInfo().get(1).getLastName(), "Nobody");
+    }
+
+    @Test public void arrayIsParsedIntoList() throws IOException {
+        BrwsrCtx c = Contexts.newBuilder().build();
+        String json = "[ { \"firstName\": \"A\" }, null, { \"firstName\": \"B\" } ]";
+        List<Person> people = new ArrayList<Person>();
+        Models.parse(c, Person.class, new ByteArrayInputStream(json.getBytes("UTF-8")), people);
+        assertEquals(people.size(), 3);
+        assertEquals(people.get(0).getFirstName(), "A");
+        assertNull(people.get(1));
+        assertEquals(people.get(2).getFirstName(), "B");
+    }
+
+    @Test public void primitiveTypesAreConverted() throws IOException {
+        BrwsrCtx c = Contexts.newBuilder().build();
+        String json = "{ \"intX\": 1, \"byteX\": 2, \"shortX\": 3, \"longX\": 12345678901, "
+            + "\"floatX\": 0.5, \"doubleX\": 7, \"StringX\": \"s\", \"boolX\": true }";
+        Types t = Models.parse(c, Types.class, new ByteArrayInputStream(json.getBytes("UTF-8")));
+        assertEquals(t.getIntX(), 1);
+        assertEquals(t.getByteX(), 2);
+        assertEquals(t.getShortX(), 3);
+        assertEquals(t.getLongX(), 12345678901L);
+        assertEquals(t.getFloatX(), 0.5f);
+        assertEquals(t.getDoubleX(), 7.0);
+        assertEquals(t.getStringX(), "s");
+        assertTrue(t.isBoolX());
+    }
+
+    @Test public void modelsReadTokensDirectly() throws IOException {
+        DirectTransfer t = new DirectTransfer();
+        BrwsrCtx c = Contexts.newBuilder().register(Transfer.class, t, 1).build();
+        String json = "[ { \"unknown\": { \"x\": [ 1, { \"y\": null } ] }, \"nicknames\": \"solo\", "
+            + "\"age\": [ 1.7, \"2\", null ], \"sex\": null, \"info\": { \"firstName\": \"Jarda\" } }, "
+            + "null, { \"nicknames\": [] } ]";
+        List<People> all = new ArrayList<People>();
+        Models.parse(c, People.class, new ByteArrayInputStream(json.getBytes("UTF-8")), all);
+
+        assertEquals(t.tokens, 1, "Tokens requested once");
+        assertEquals(all.size(), 3);
+        People p = all.get(0);
+        assertEquals(p.getNicknames(), Arrays.asList("solo"), "Single value is an array");
+        assertEquals(p.getAge(), Arrays.asList(1, 2, 0));
+        assertTrue(p.getSex().isEmpty(), "null is an empty array");
+        assertEquals(p.getInfo().size(), 1);
+        assertEquals(p.getInfo().get(0).getFirstName(), "Jarda");
+        assertNull(all.get(1));
+        assertTrue(all.get(2).getNicknames().isEmpty());
+    }
+
+    @Test public void primitiveTypesAreConvertedFromTokens() throws IOException {
+        BrwsrCtx c = Contexts.newBuilder().register(Transfer.class, new DirectTransfer(), 1).build();
+        String json = "{ \"intX\": 1.7, \"byteX\": \"2\", \"longX\": null, \"floatX\": 1, "
+            + "\"doubleX\": -1.5e2, \"charX\": 65, \"StringX\": 42, \"boolX\": true }";
+        Types t = Models.parse(c, Types.class, new ByteArrayInputStream(json.getBytes("UTF-8")));
+        assertEquals(t.getIntX(), 1);
+        assertEquals(t.getByteX(), 2);
+        assertEquals(t.getLongX(), 0L);
+        assertEquals(t.getFloatX(), 1.0f);
+        assertEquals(t.getDoubleX(), -150.0);
+        assertEquals(t.getCharX(), 'A');
+        assertEquals(t.getStringX(), "42");
+        assertTrue(t.isBoolX());
+    }
+
+    @Test public void nullCharInArrayIsZero() throws IOException {
+        BrwsrCtx c = Contexts.newBuilder().register(Transfer.class, new DirectTransfer(), 1).build();
+        String json = "{ \"chars\": [ 65, null, 66 ] }";
+        Builder b = Models.parse(c, Builder.class, new ByteArrayInputStream(json.getBytes("UTF-8")));
+        assertEquals(b.getChars(), Arrays.asList('A', (char) 0, 'B'));
+    }
+
+    private static Object parse(String json) throws IOException {
+        return JSONParser.parse(new StringReader(json));
+    }
+
+    private static Object parse(String json, String prop) throws IOException {
+        Object[] values = { null };
+        ((JSONParser.Obj) parse(json)).extract(new String[] { prop }, values);
+        return values[0];
+    }
+
+    private static final class DirectTransfer implements Transfer.Streaming {
+        int tokens;
+
+        @Override
+        public Transfer.Tokens tokens(InputStream is) throws IOException {
+            tokens++;
+            return JSONParser.tokens(is);
+        }
+
+        @Override
+        public void extract(Object obj, String[] props, Object[] values) {
+            fail("No extraction needed: " + obj);
+        }
+
+        @Override
+        public Object toJSON(InputStream is) throws IOException {
+            throw new IOException("No JSON objects needed");
+        }
+
+        @Override
+        public void loadJSON(JSONCall call) {
+        }
+    }
+
+    private static void assertError(String json) {
+        try {
+            parse(json);
+            fail("Should fail: " + json);
+        } catch (IOException ex) {
+            // OK
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.json.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import net.java.html.BrwsrCtx;
+import net.java.html.json.Models;
+import net.java.html.json.Person;
+import net.java.html.json.Sex;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.spi.JSONCall;
+import org.netbeans.html.json.spi.Transfer;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+public class WriteToTest {
+    @Test public void nestedModelsAreWrittenAsJSON() {
+        Person p = new Person("Ja\"rda", "Tu\\lach", Sex.MALE);
+        Call c = new Call(1, 2.5, "line\nbreak", p, new Person("A", null, null), new Person());
+        Employee e = new Employee();
+        e.setCall(c);
+
+        String exp = "{\"person\":null,\"employer\":null,\"call\":"
+            + "{\"i\":1,\"d\":2.5,\"s\":\"line\\nbreak\","
+            + "\"p\":{\"firstName\":\"Ja\\\"rda\",\"lastName\":\"Tu\\\\lach\",\"sex\":\"MALE\"},"
+            + "\"data\":[{\"firstName\":\"A\",\"lastName\":null,\"sex\":null},"
+            + "{\"firstName\":null,\"lastName\":null,\"sex\":null}]}}";
+        assertEquals(e.toString(), exp);
+        assertEquals(c.getData().toString(), "[{\"firstName\":\"A\",\"lastName\":null,\"sex\":null},"
+            + "{\"firstName\":null,\"lastName\":null,\"sex\":null}]");
+    }
+
+    @Test public void bodyOfCallIsStreamed() {
+        SendTrans t = new SendTrans();
+        BrwsrCtx ctx = Contexts.newBuilder().register(Transfer.class, t, 1).build();
+        Employee e = Models.bind(new Employee(), ctx);
+        Person p = new Person("Jarda", "Tulach", Sex.MALE);
+
+        e.updatePersonalities("some/url", p, 1, 2.0, "3", null);
+
+        assertEquals(t.sent, p.toString());
+        assertTrue(t.writes > 0, "Written into the stream");
+        assertTrue(t.writes < 10, "Written in chunks, not char by char: " + t.writes);
+    }
+
+    @Test public void enumBodyIsWrittenAsMessage() {
+        SendTrans t = new SendTrans();
+        BrwsrCtx ctx = Contexts.newBuilder().register(Transfer.class, t, 1).build();
+        Employee e = Models.bind(new Employee(), ctx);
+
+        e.updateSex("some/url", Sex.FEMALE);
+
+        assertEquals(t.sent, "FEMALE");
+        assertEquals(t.message, t.sent, "Streamed body is the same as the message");
+    }
+
+    private static final class SendTrans implements Transfer {
+        String sent;
+        String message;
+        int writes;
+
+        @Override
+        public void extract(Object obj, String[] props, Object[] values) {
+        }
+
+        @Override
+        public Object toJSON(InputStream is) throws IOException {
+            throw new IOException();
+        }
+
+        @Override
+        public void loadJSON(JSONCall call) {
+            final ByteArrayOutputStream os = new ByteArrayOutputStream();
+            try {
+                call.writeData(new OutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        writes++;
+                        os.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        writes++;
+                        os.write(b, off, len);
+                    }
+                });
+                sent = os.toString("UTF-8");
+                message = call.getMessage();
+            } catch (IOException ex) {
+                call.notifyError(ex);
+            }
+        }
+    }
+}
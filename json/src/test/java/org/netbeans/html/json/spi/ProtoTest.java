@@ -25,6 +25,7 @@ import org.netbeans.html.context.spi.Contexts;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import org.testng.annotations.Test;
 
 
@@ -178,6 +179,20 @@ public class ProtoTest implements Technology.BatchInit<Object> {
         assertEquals(nil, "nil");
     }
 
+    @Test
+    public void threadValueIsCached() {
+        BrwsrCtx ctx = Contexts.newBuilder().build();
+        MyType type = new MyType();
+        type.registerProperty("worker", 0, true, false);
+        MyObj obj = new MyObj(type, ctx);
+
+        assertSame(obj.proto.getCachedValue(0), type, "Needs to be computed");
+        Thread value = Thread.currentThread();
+        assertSame(obj.proto.cacheValue(0, value), value);
+        assertSame(obj.proto.getCachedValue(0), value, "Thread value is remembered");
+        assertSame(obj.proto.getCachedValue(0), value, "And still remembered");
+    }
+
     @Test
     public void registerFunctionsIncrementally() {
         BrwsrCtx ctx = Contexts.newBuilder().register(Technology.class, this, 100).build();
@@ -195,4 +210,41 @@ public class ProtoTest implements Technology.BatchInit<Object> {
         assertNull(functions[4]);
         assertNotNull(functions[5]);
     }
+
+    @Test
+    public void dependenciesAreTrackedPerThread() throws Exception {
+        BrwsrCtx ctx = Contexts.newBuilder().register(Technology.class, this, 100).build();
+        MyType type = new MyType();
+        type.registerProperty("derived", 1, true, false);
+        type.registerProperty("value", 2, false, false);
+        final MyObj computing = new MyObj(type, ctx);
+        final MyObj other = new MyObj(type, ctx);
+        final MyObj used = new MyObj(type, ctx);
+        computing.proto.applyBindings();
+        other.proto.applyBindings();
+        used.proto.applyBindings();
+
+        computing.proto.acquireLock("derived");
+        Thread t = new Thread() {
+            @Override
+            public void run() {
+                other.proto.accessProperty("value");
+            }
+        };
+        t.start();
+        t.join();
+        used.proto.accessProperty("value");
+        computing.proto.releaseLock();
+
+        valueHasMutatedName = null;
+        other.proto.valueHasMutated("value");
+        assertEquals(valueHasMutatedName, "value", "Access from other thread isn't tracked");
+        assertEquals(valueHasMutatedData, other);
+
+        used.proto.valueHasMutated("value");
+        assertEquals(valueHasMutatedName, "derived", "Dependency is tracked");
+        assertEquals(valueHasMutatedData, computing);
+        valueHasMutatedName = null;
+        valueHasMutatedData = null;
+    }
 }
@@ -25,14 +25,17 @@ import java.io.OutputStream;
 import java.io.PushbackInputStream;
 import java.io.Reader;
 import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 import net.java.html.js.JavaScriptBody;
 import org.json.JSONArray;
@@ -49,43 +52,68 @@ import org.netbeans.html.json.spi.JSONCall;
  */
 final class LoadJSON implements Runnable {
     private static final Logger LOG = Logger.getLogger(LoadJSON.class.getName());
-    private static final Executor REQ = Executors.newCachedThreadPool(new ThreadFactory() {
-        @Override
-        public Thread newThread(Runnable runnable) {
-            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
-            thread.setDaemon(true);
-            return thread;
-        }
-    });
+    private static final int TIMEOUT = Integer.getInteger("org.netbeans.html.wstyrus.timeout", 0); // NOI18N
+    private static final ThreadPoolExecutor REQ;
+    static {
+        int max = Integer.getInteger("org.netbeans.html.wstyrus.maxConnections", 16); // NOI18N
+        REQ = new ThreadPoolExecutor(max, max, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }
+        );
+        REQ.allowCoreThreadTimeOut(true);
+    }
 
     private final JSONCall call;
-    private final URL base;
+    private final URL url;
 
 
-    private LoadJSON(JSONCall call) {
+    private LoadJSON(JSONCall call, URL url) {
         this.call = call;
-        this.base = null;
+        this.url = url;
     }
 
-    public static void loadJSON(JSONCall call) {
+    public static void loadJSON(final JSONCall call) {
         assert !"WebSocket".equals(call.getMethod());
-        REQ.execute(new LoadJSON((call)));
-    }
-
-    @Override
-    public void run() {
         final String url;
-        Throwable error = null;
-        Object json = null;
-
         if (call.isJSONP()) {
             url = call.composeURL("dummy");
         } else {
             url = call.composeURL(null);
         }
+        final URL u;
+        try {
+            u = new URL(url.replace(" ", "%20"));
+        } catch (final MalformedURLException ex) {
+            REQ.execute(new Runnable() {
+                @Override
+                public void run() {
+                    call.notifyError(ex);
+                }
+            });
+            return;
+        }
+        REQ.execute(new LoadJSON(call, u));
+    }
+
+    @Override
+    public void run() {
+        Throwable error = null;
+        Object json = null;
+        boolean notModified = false;
+        URLConnection conn = null;
         try {
-            final URL u = new URL(base, url.replace(" ", "%20"));
-            URLConnection conn = u.openConnection();
+            conn = url.openConnection();
+            if (TIMEOUT > 0) {
+                conn.setConnectTimeout(TIMEOUT);
+                conn.setReadTimeout(TIMEOUT);
+            }
             if (call.isDoOutput()) {
                 conn.setDoOutput(true);
             }
@@ -119,42 +147,68 @@ final class LoadJSON implements Runnable {
                 call.writeData(os);
                 os.flush();
             }
+            if (conn instanceof HttpURLConnection) {
+                HttpURLConnection http = (HttpURLConnection) conn;
+                if (http.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                    http.getInputStream().close();
+                    notModified = true;
+                    return;
+                }
+                notifyHeader(http, "ETag"); // NOI18N
+                notifyHeader(http, "Last-Modified"); // NOI18N
+            }
             final PushbackInputStream is = new PushbackInputStream(
                 conn.getInputStream(), 1
             );
             boolean[] arrayOrString = { false, false };
-            detectJSONType(call.isJSONP(), is, arrayOrString);
             try {
-                if (arrayOrString[1]) {
-                    throw new JSONException("");
-                }
-                JSONTokener tok = createTokener(is);
-                Object obj;
-                obj = arrayOrString[0] ? new JSONArray(tok) : new JSONObject(tok);
-                json = convertToArray(obj);
-            } catch (JSONException ex) {
-                Reader r = new InputStreamReader(is, "UTF-8");
-                StringBuilder sb = new StringBuilder();
-                for (;;) {
-                    int ch = r.read();
-                    if (ch == -1) {
-                        break;
+                detectJSONType(call.isJSONP(), is, arrayOrString);
+                String text = readStream(is);
+                try {
+                    if (arrayOrString[1]) {
+                        throw new JSONException("");
                     }
-                    sb.append((char)ch);
+                    JSONTokener tok = new JSONTokener(text);
+                    Object obj;
+                    obj = arrayOrString[0] ? new JSONArray(tok) : new JSONObject(tok);
+                    json = convertToArray(obj);
+                } catch (JSONException ex) {
+                    json = text;
                 }
-                json = sb.toString();
+            } finally {
+                is.close();
             }
         } catch (IOException ex) {
             error = ex;
+            if (conn instanceof HttpURLConnection) {
+                // consume the error response, so the connection can be reused
+                try {
+                    InputStream err = ((HttpURLConnection) conn).getErrorStream();
+                    if (err != null) {
+                        readStream(err);
+                        err.close();
+                    }
+                } catch (IOException ignore) {
+                }
+            }
         } finally {
             if (error != null) {
                 call.notifyError(error);
+            } else if (notModified) {
+                call.notifyNotModified();
             } else {
                 call.notifySuccess(json);
             }
         }
     }
 
+    private void notifyHeader(HttpURLConnection conn, String name) {
+        String value = conn.getHeaderField(name);
+        if (value != null) {
+            call.notifyHeader(name, value);
+        }
+    }
+
     private static void detectJSONType(boolean skipAnything, final PushbackInputStream is, boolean[] arrayOrString) throws IOException {
         for (;;) {
             int ch = is.read();
@@ -183,7 +237,7 @@ final class LoadJSON implements Runnable {
         }
     }
 
-    private static JSONTokener createTokener(InputStream is) throws IOException {
+    private static String readStream(InputStream is) throws IOException {
         Reader r = new InputStreamReader(is, "UTF-8");
         StringBuilder sb = new StringBuilder();
         char[] arr = new char[4096];
@@ -194,7 +248,7 @@ final class LoadJSON implements Runnable {
             }
             sb.append(arr, 0, len);
         }
-        return new JSONTokener(sb.toString());
+        return sb.toString();
     }
 
     static Object convertToArray(Object o) throws JSONException {
@@ -264,7 +318,7 @@ final class LoadJSON implements Runnable {
             PushbackInputStream push = new PushbackInputStream(is, 1);
             boolean[] arrayOrString = { false, false };
             detectJSONType(false, push, arrayOrString);
-            JSONTokener t = createTokener(push);
+            JSONTokener t = new JSONTokener(readStream(push));
             Object obj = arrayOrString[0] ? new JSONArray(t) : new JSONObject(t);
             return convertToArray(obj);
         } catch (JSONException ex) {
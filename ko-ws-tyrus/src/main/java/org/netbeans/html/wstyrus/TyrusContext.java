@@ -55,6 +55,12 @@ import org.openide.util.lookup.ServiceProvider;
  * running on JDK8. JDK8 WebView provides its own implementation of the
  * WebSocket API based on WebSocket object inside a browser. This is included
  * in the <code>org.netbeans.html:ko4j:1.0</code> module.
+ * <p>
+ * Plain HTTP requests are processed by a bounded pool of threads. At most
+ * <code>org.netbeans.html.wstyrus.maxConnections</code> (default <code>16</code>)
+ * connections are open at once, other requests wait in a queue. Connect and read
+ * timeout in milliseconds can be set by
+ * <code>org.netbeans.html.wstyrus.timeout</code> system property.
  *
  * @author Jaroslav Tulach
  */
@@ -35,7 +35,8 @@ import org.netbeans.html.json.spi.Technology;
 @Contexts.Id("ko4j")
 final class KOTech
 implements Technology.BatchCopy<Knockout>, Technology.ValueMutated<Knockout>,
-Technology.ApplyId<Knockout>, Technology.ToJavaScript<Knockout> {
+Technology.ApplyId<Knockout>, Technology.ToJavaScript<Knockout>,
+Technology.ArrayMutated<Knockout>, Technology.BatchMutated<Knockout> {
     public KOTech() {
     }
     
@@ -78,6 +79,23 @@ Technology.ApplyId<Knockout>, Technology.ToJavaScript<Knockout> {
         }
     }
 
+    @Override
+    public void valuesHaveMutated(Object[] data, String[] propertyNames, Object[] oldValues, Object[] newValues) {
+        Knockout.cleanUp();
+        for (int i = 0; i < newValues.length; i++) {
+            if (newValues[i] instanceof Enum) {
+                newValues[i] = newValues[i].toString();
+            }
+        }
+        Knockout.valuesHaveMutated(data, propertyNames, oldValues, newValues);
+    }
+
+    @Override
+    public boolean arrayHasMutated(Knockout data, String propertyName, int index, int removed, Object added) {
+        Knockout.cleanUp();
+        return data != null && data.arrayHasMutated(propertyName, index, removed, added);
+    }
+
     @Override
     public void expose(FunctionBinding fb, Object model, Knockout data) {
         throw new UnsupportedOperationException();
@@ -18,7 +18,6 @@
  */
 package org.netbeans.html.ko4j;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -37,16 +36,29 @@ import org.netbeans.html.json.spi.Transfer;
  */
 @Contexts.Id("xhr")
 final class KOTransfer
-implements Transfer {
+implements Transfer.BatchExtract {
     KOTransfer() {
     }
 
     @Override
     public void extract(Object obj, String[] props, Object[] values) {
+        LoadJSON.extractJSON(new Object[] { unwrap(obj) }, props, values);
+    }
+
+    @Override
+    public void extract(Object[] objs, String[] props, Object[] values) {
+        Object[] arr = new Object[objs.length];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = unwrap(objs[i]);
+        }
+        LoadJSON.extractJSON(arr, props, values);
+    }
+
+    private static Object unwrap(Object obj) {
         if (obj instanceof JSObjToStr) {
             obj = ((JSObjToStr)obj).obj;
         }
-        LoadJSON.extractJSON(obj, props, values);
+        return obj;
     }
 
     @Override
@@ -57,13 +69,7 @@ implements Transfer {
         } else {
             String data = null;
             if (call.isDoOutput()) {
-                try {
-                    ByteArrayOutputStream bos = new ByteArrayOutputStream();
-                    call.writeData(bos);
-                    data = new String(bos.toByteArray(), "UTF-8");
-                } catch (IOException ex) {
-                    call.notifyError(ex);
-                }
+                data = call.getMessage();
             }
             List<String> headerPairs = Models.asList();
             String h = call.getHeaders();
@@ -40,25 +40,6 @@ import org.netbeans.html.json.spi.PropertyBinding;
 @JavaScriptResource("knockout-3.5.0.js")
 final class Knockout  {
 
-    @JavaScriptBody(args = {"object", "property"}, body =
-        """
-        var ret;
-        if (property === null) ret = object;
-        else if (object === null) ret = null;
-        else ret = object[property];
-        if (typeof ret !== 'undefined' && ret !== null) {
-          if (typeof ko !== 'undefined' && ko['utils'] && ko['utils']['unwrapObservable']) {
-            return ko['utils']['unwrapObservable'](ret);
-          }
-          return ret;
-        }
-        return null;
-        """
-    )
-    static Object getProperty(Object object, String property) {
-        return null;
-    }
-
     private PropertyBinding[] props;
     private FunctionBinding[] funcs;
     private Object objs;
@@ -214,6 +195,81 @@ final class Knockout  {
         Object model, String prop, Object oldValue, Object newValue
     );
 
+    static void valuesHaveMutated(Object[] data, String[] names, Object[] oldValues, Object[] newValues) {
+        final Fn.Presenter active = Fn.activePresenter();
+        Object[] models = new Object[data.length];
+        int cnt = 0;
+        for (int i = 0; i < data.length; i++) {
+            Knockout ko = (Knockout) data[i];
+            if (ko == null) {
+                continue;
+            }
+            Object[] all = MapObjs.toArray(ko.objs);
+            if (all.length == 2 && getPresenter(all[0]) == active) {
+                models[cnt] = all[1];
+                names[cnt] = names[i];
+                oldValues[cnt] = oldValues[i];
+                newValues[cnt] = newValues[i];
+                cnt++;
+            } else {
+                ko.valueHasMutated(names[i], oldValues[i], newValues[i]);
+            }
+        }
+        if (cnt > 0) {
+            valuesHaveMutated(models, names, oldValues, newValues, cnt);
+        }
+    }
+
+    @JavaScriptBody(args = { "models", "props", "oldValues", "newValues", "cnt" },
+        wait4js = false,
+        body =
+          """
+          for (var i = 0; i < cnt; i++) {
+            var model = models[i];
+            var koProp = model ? model[props[i]] : null;
+            var koFire = koProp ? koProp['valueHasMutated'] : null;
+            if (koFire) {
+              if (oldValues[i] !== null || newValues[i] !== null) {
+                koFire(newValues[i]);
+              } else {
+                koFire();
+              }
+            }
+          }
+          """
+    )
+    private native static void valuesHaveMutated(
+        Object[] models, String[] props, Object[] oldValues, Object[] newValues, int cnt
+    );
+
+    final boolean arrayHasMutated(String propertyName, int index, int removed, Object added) {
+        Object[] all = MapObjs.toArray(objs);
+        if (all.length != 2 || getPresenter(all[0]) != Fn.activePresenter()) {
+            return false;
+        }
+        arrayHasMutated(all[1], propertyName, index, removed, added);
+        return true;
+    }
+
+    @JavaScriptBody(args = { "model", "prop", "index", "removed", "added" },
+        wait4js = false,
+        body =
+          """
+          if (model) {
+            var koProp = model[prop];
+            if (koProp) {
+              var koSplice = koProp['splice'];
+              if (koSplice) {
+                koSplice(index, removed, added);
+              }
+            }
+          }
+          """
+    )
+    private native static void arrayHasMutated(
+        Object model, String prop, int index, int removed, Object added
+    );
+
     final Object applyBindings(String id) {
         return applyBindings(id, js());
     }
@@ -300,6 +356,18 @@ final class Knockout  {
               if (arguments.length === 1) activeGetter = function() { return val; };
               trigger(val);
             };
+            cmpt['splice'] = function(index, removed, added) {
+              var arr = cmpt['peek']();
+              if (!Array.isArray(arr)) {
+                trigger();
+                return;
+              }
+              var args = [index, removed];
+              for (var i = 0; i < added.length; i++) args.push(added[i]);
+              arr.splice.apply(arr, args);
+              activeGetter = function() { return arr; };
+              trigger(arr);
+            };
             ret[name] = cmpt;
           }
           for (var i = 0; i < propNames.length; i++) {
@@ -107,9 +107,67 @@ final class LoadJSON {
 
     }
 
-    static void extractJSON(Object jsonObject, String[] props, Object[] values) {
-        for (int i = 0; i < props.length; i++) {
-            values[i] = Knockout.getProperty(jsonObject, props[i]);
+    // the script and its decoding are kept identical with
+    // org.netbeans.html.xhr4j.LoadJSON - the modules share no non-API package
+    @JavaScriptBody(args = {"objs", "props"}, body =
+        """
+        var unwrap = typeof ko !== 'undefined' && ko['utils'] && ko['utils']['unwrapObservable'] ?
+          ko['utils']['unwrapObservable'] : null;
+        var isArray = function(v) {
+          return Object.prototype.toString.call(v) === '[object Array]';
+        };
+        var ret = [];
+        var arrays = [];
+        var at = 0;
+        for (var i = 0; i < objs.length; i++) {
+          var object = objs[i];
+          for (var j = 0; j < props.length; j++, at++) {
+            var property = props[j];
+            var v;
+            if (property === null) v = object;
+            else if (object === null) v = null;
+            else v = object[property];
+            if (typeof v === 'undefined' || v === null) {
+              ret.push(null);
+              continue;
+            }
+            if (unwrap) v = unwrap(v);
+            if (isArray(v)) {
+              ret.push(null);
+              arrays.push(at, v.length);
+              for (var k = 0; k < v.length; k++) {
+                arrays.push(typeof v[k] === 'undefined' ? null : v[k]);
+              }
+            } else {
+              ret.push(v);
+            }
+          }
+        }
+        for (var a = 0; a < arrays.length; a++) {
+          ret.push(arrays[a]);
+        }
+        return ret;
+        """
+    )
+    private static Object[] extractValues(Object[] objs, String[] props) {
+        return null;
+    }
+
+    static void extractJSON(Object[] jsonObjects, String[] props, Object[] values) {
+        Object[] arr = extractValues(jsonObjects, props);
+        int size = Math.min(jsonObjects.length * props.length, values.length);
+        System.arraycopy(arr, 0, values, 0, size);
+        // array values follow as index, length and the elements themselves
+        int at = jsonObjects.length * props.length;
+        while (at < arr.length) {
+            int index = ((Number) arr[at++]).intValue();
+            int len = ((Number) arr[at++]).intValue();
+            Object[] elements = new Object[len];
+            System.arraycopy(arr, at, elements, 0, len);
+            at += len;
+            if (index < values.length) {
+                values[index] = elements;
+            }
         }
     }
 
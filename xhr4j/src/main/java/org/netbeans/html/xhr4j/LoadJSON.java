@@ -26,12 +26,10 @@ import java.io.PushbackInputStream;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
 import java.util.logging.Logger;
 import net.java.html.js.JavaScriptBody;
 import org.netbeans.html.json.spi.JSONCall;
@@ -44,44 +42,56 @@ import org.netbeans.html.json.spi.JSONCall;
  */
 final class LoadJSON implements Runnable {
     private static final Logger LOG = Logger.getLogger(LoadJSON.class.getName());
-    private static final Executor REQ = Executors.newCachedThreadPool(new ThreadFactory() {
-        @Override
-        public Thread newThread(Runnable runnable) {
-            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
-            thread.setDaemon(true);
-            thread.setName("xhr4j daemon");
-            return thread;
-        }
-    });
+    private static final int TIMEOUT = Integer.getInteger("org.netbeans.html.xhr4j.timeout", 0); // NOI18N
+    private static final Requests REQ = new Requests("xhr4j daemon", // NOI18N
+        Integer.getInteger("org.netbeans.html.xhr4j.maxConnections", 16), // NOI18N
+        Integer.getInteger("org.netbeans.html.xhr4j.maxConnectionsPerHost", 6) // NOI18N
+    );
 
     private final JSONCall call;
-    private final URL base;
+    private final URL url;
 
 
-    private LoadJSON(JSONCall call) {
+    private LoadJSON(JSONCall call, URL url) {
         this.call = call;
-        this.base = null;
+        this.url = url;
     }
 
-    public static void loadJSON(JSONCall call) {
+    public static void loadJSON(final JSONCall call) {
         assert !"WebSocket".equals(call.getMethod());
-        REQ.execute(new LoadJSON((call)));
-    }
-
-    @Override
-    public void run() {
         final String url;
-        Throwable error = null;
-        Object json = null;
-
         if (call.isJSONP()) {
             url = call.composeURL("dummy");
         } else {
             url = call.composeURL(null);
         }
+        final URL u;
+        try {
+            u = new URL(url.replace(" ", "%20"));
+        } catch (final MalformedURLException ex) {
+            REQ.execute(url, new Runnable() {
+                @Override
+                public void run() {
+                    call.notifyError(ex);
+                }
+            });
+            return;
+        }
+        REQ.execute(u.getProtocol() + "://" + u.getAuthority(), new LoadJSON(call, u));
+    }
+
+    @Override
+    public void run() {
+        Throwable error = null;
+        Object json = null;
+        boolean notModified = false;
+        URLConnection conn = null;
         try {
-            final URL u = new URL(base, url.replace(" ", "%20"));
-            URLConnection conn = u.openConnection();
+            conn = url.openConnection();
+            if (TIMEOUT > 0) {
+                conn.setConnectTimeout(TIMEOUT);
+                conn.setReadTimeout(TIMEOUT);
+            }
             if (call.isDoOutput()) {
                 conn.setDoOutput(true);
             }
@@ -115,21 +125,49 @@ final class LoadJSON implements Runnable {
                 call.writeData(os);
                 os.flush();
             }
+            if (conn instanceof HttpURLConnection) {
+                HttpURLConnection http = (HttpURLConnection) conn;
+                if (http.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                    http.getInputStream().close();
+                    notModified = true;
+                    return;
+                }
+                notifyHeader(http, "ETag"); // NOI18N
+                notifyHeader(http, "Last-Modified"); // NOI18N
+            }
             final PushbackInputStream is = new PushbackInputStream(
                 conn.getInputStream(), 1
             );
             boolean[] arrayOrString = { false, false };
-            detectJSONType(call.isJSONP(), is, arrayOrString);
-            String response = readStream(is);
+            String response;
+            try {
+                detectJSONType(call.isJSONP(), is, arrayOrString);
+                response = readStream(is);
+            } finally {
+                is.close();
+            }
             if (call.isJSONP()) {
                 response = '(' + response;
             }
             json = new Result(response, arrayOrString[0], arrayOrString[1]);
         } catch (IOException ex) {
             error = ex;
+            if (conn instanceof HttpURLConnection) {
+                // consume the error response, so the connection can be reused
+                try {
+                    InputStream err = ((HttpURLConnection) conn).getErrorStream();
+                    if (err != null) {
+                        readStream(err);
+                        err.close();
+                    }
+                } catch (IOException ignore) {
+                }
+            }
         } finally {
             if (error != null) {
                 call.notifyError(error);
+            } else if (notModified) {
+                call.notifyNotModified();
             } else {
                 call.notifySuccess(json);
             }
@@ -194,6 +232,13 @@ final class LoadJSON implements Runnable {
         return sb.toString();
     }
 
+    private void notifyHeader(HttpURLConnection conn, String name) {
+        String value = conn.getHeaderField(name);
+        if (value != null) {
+            call.notifyHeader(name, value);
+        }
+    }
+
     private static void detectJSONType(boolean skipAnything, final PushbackInputStream is, boolean[] arrayOrString) throws IOException {
         for (;;) {
             int ch = is.read();
@@ -222,22 +267,49 @@ final class LoadJSON implements Runnable {
         }
     }
 
-    @JavaScriptBody(args = {"object", "property"}, body =
+    // the script and its decoding are kept identical with
+    // org.netbeans.html.ko4j.LoadJSON - the modules share no non-API package
+    @JavaScriptBody(args = {"objs", "props"}, body =
         """
-        var ret;
-        if (property === null) ret = object;
-        else if (object === null) ret = null;
-        else ret = object[property];
-        if (typeof ret !== 'undefined' && ret !== null) {
-          if (typeof ko !== 'undefined' && ko['utils'] && ko['utils']['unwrapObservable']) {
-            return ko['utils']['unwrapObservable'](ret);
+        var unwrap = typeof ko !== 'undefined' && ko['utils'] && ko['utils']['unwrapObservable'] ?
+          ko['utils']['unwrapObservable'] : null;
+        var isArray = function(v) {
+          return Object.prototype.toString.call(v) === '[object Array]';
+        };
+        var ret = [];
+        var arrays = [];
+        var at = 0;
+        for (var i = 0; i < objs.length; i++) {
+          var object = objs[i];
+          for (var j = 0; j < props.length; j++, at++) {
+            var property = props[j];
+            var v;
+            if (property === null) v = object;
+            else if (object === null) v = null;
+            else v = object[property];
+            if (typeof v === 'undefined' || v === null) {
+              ret.push(null);
+              continue;
+            }
+            if (unwrap) v = unwrap(v);
+            if (isArray(v)) {
+              ret.push(null);
+              arrays.push(at, v.length);
+              for (var k = 0; k < v.length; k++) {
+                arrays.push(typeof v[k] === 'undefined' ? null : v[k]);
+              }
+            } else {
+              ret.push(v);
+            }
           }
-          return ret;
         }
-        return null;
+        for (var a = 0; a < arrays.length; a++) {
+          ret.push(arrays[a]);
+        }
+        return ret;
         """
     )
-    private static Object getProperty(Object object, String property) {
+    private static Object[] extractValues(Object[] objs, String[] props) {
         return null;
     }
 
@@ -246,12 +318,25 @@ final class LoadJSON implements Runnable {
         throw new IllegalStateException("No parser context for " + s);
     }
 
-    static void extractJSON(Object js, String[] props, Object[] values) {
-        if (js instanceof JSObjToStr) {
-            js = ((JSObjToStr)js).obj;
+    static void extractJSON(Object[] objs, String[] props, Object[] values) {
+        Object[] js = new Object[objs.length];
+        for (int i = 0; i < js.length; i++) {
+            js[i] = objs[i] instanceof JSObjToStr ? ((JSObjToStr) objs[i]).obj : objs[i];
         }
-        for (int i = 0; i < props.length; i++) {
-            values[i] = getProperty(js, props[i]);
+        Object[] arr = extractValues(js, props);
+        int size = Math.min(js.length * props.length, values.length);
+        System.arraycopy(arr, 0, values, 0, size);
+        // array values follow as index, length and the elements themselves
+        int at = js.length * props.length;
+        while (at < arr.length) {
+            int index = ((Number) arr[at++]).intValue();
+            int len = ((Number) arr[at++]).intValue();
+            Object[] elements = new Object[len];
+            System.arraycopy(arr, at, elements, 0, len);
+            at += len;
+            if (index < values.length) {
+                values[index] = elements;
+            }
         }
     }
 
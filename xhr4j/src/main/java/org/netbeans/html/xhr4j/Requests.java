@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.xhr4j;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/** Runs requests on a bounded pool of daemon threads. Limits the number
+ * of connections open at once - in total and to a single host. Requests
+ * over the limit wait in a queue.
+ *
+ * @author Jaroslav Tulach
+ */
+final class Requests {
+    private final ThreadPoolExecutor executor;
+    private final int perHost;
+    private final Map<String, Host> hosts = new HashMap<String, Host>();
+
+    Requests(final String name, int max, int perHost) {
+        this.executor = new ThreadPoolExecutor(
+            max, max, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+                    thread.setDaemon(true);
+                    thread.setName(name);
+                    return thread;
+                }
+            }
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+        this.perHost = perHost;
+    }
+
+    /** Schedules the request. It is started when there is a free thread
+     * and fewer than allowed requests to the same host are running.
+     *
+     * @param host identification of the host the request connects to
+     * @param request the request to run
+     */
+    void execute(String host, Runnable request) {
+        synchronized (hosts) {
+            Host h = hosts.get(host);
+            if (h == null) {
+                h = new Host();
+                hosts.put(host, h);
+            }
+            if (h.running >= perHost) {
+                h.pending.add(request);
+                return;
+            }
+            h.running++;
+        }
+        executor.execute(new Run(host, request));
+    }
+
+    private void finished(String host) {
+        Runnable next;
+        synchronized (hosts) {
+            Host h = hosts.get(host);
+            next = h.pending.poll();
+            if (next == null && --h.running == 0) {
+                hosts.remove(host);
+            }
+        }
+        if (next != null) {
+            executor.execute(new Run(host, next));
+        }
+    }
+
+    private static final class Host {
+        final ArrayDeque<Runnable> pending = new ArrayDeque<Runnable>();
+        int running;
+    }
+
+    private final class Run implements Runnable {
+        private final String host;
+        private final Runnable request;
+
+        Run(String host, Runnable request) {
+            this.host = host;
+            this.request = request;
+        }
+
+        @Override
+        public void run() {
+            try {
+                request.run();
+            } finally {
+                finished(host);
+            }
+        }
+    }
+}
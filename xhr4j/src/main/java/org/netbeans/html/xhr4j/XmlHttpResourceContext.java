@@ -35,13 +35,22 @@ import org.openide.util.lookup.ServiceProvider;
  * Registers {@link Transfer} technology at position <code>50</code>.
  * The {@link Contexts.Id} of the technology is <b>xhr4j</b>.
  * 
+ * <p>
+ * Requests are processed by a bounded pool of threads. At most
+ * <code>org.netbeans.html.xhr4j.maxConnections</code> (default <code>16</code>)
+ * connections are open at once and at most
+ * <code>org.netbeans.html.xhr4j.maxConnectionsPerHost</code> (default <code>6</code>)
+ * of them to the same host, other requests wait in a queue. Connect and read
+ * timeout in milliseconds can be set by
+ * <code>org.netbeans.html.xhr4j.timeout</code> system property.
+ * 
  * @author Jaroslav Tulach
  * @since 1.3
  */
 @Contexts.Id("xhr4j")
 @ServiceProvider(service = Contexts.Provider.class)
 public final class XmlHttpResourceContext
-implements Contexts.Provider, Transfer {
+implements Contexts.Provider, Transfer.BatchExtract {
     @Override
     public void fillContext(Contexts.Builder context, Class<?> requestor) {
         context.register(Transfer.class, this, 50);
@@ -49,7 +58,12 @@ implements Contexts.Provider, Transfer {
 
     @Override
     public void extract(Object obj, String[] props, Object[] values) {
-        LoadJSON.extractJSON(obj, props, values);
+        LoadJSON.extractJSON(new Object[] { obj }, props, values);
+    }
+
+    @Override
+    public void extract(Object[] objs, String[] props, Object[] values) {
+        LoadJSON.extractJSON(objs, props, values);
     }
 
     @Override
@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.netbeans.html.xhr4j;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+public class RequestsTest {
+    @Test public void limitsRequestsPerHost() throws Exception {
+        Requests r = new Requests("test", 8, 2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(10);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger max = new AtomicInteger();
+        final AtomicInteger other = new AtomicInteger();
+        for (int i = 0; i < 9; i++) {
+            r.execute("http://a", new Runnable() {
+                @Override
+                public void run() {
+                    int now = running.incrementAndGet();
+                    synchronized (max) {
+                        max.set(Math.max(max.get(), now));
+                    }
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        throw new IllegalStateException(ex);
+                    } finally {
+                        running.decrementAndGet();
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        r.execute("http://b", new Runnable() {
+            @Override
+            public void run() {
+                other.incrementAndGet();
+                done.countDown();
+            }
+        });
+        assertTrue(waitFor(other), "Other host isn't blocked");
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS), "All requests finished");
+        assertEquals(max.get(), 2, "At most two requests to the same host");
+    }
+
+    private static boolean waitFor(AtomicInteger value) throws InterruptedException {
+        for (int i = 0; i < 1000 && value.get() == 0; i++) {
+            Thread.sleep(10);
+        }
+        return value.get() > 0;
+    }
+}